@@ -0,0 +1,25 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.ChallengeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    //the full application without the web server, DEBUG logging on the hot path would dominate the measurements
+    //settings are passed as command line arguments so they win over application.properties
+    static ConfigurableApplicationContext start(String... arguments) {
+        String[] args = new String[arguments.length + 1];
+        args[0] = "--logging.level.com.mindex=WARN";
+        System.arraycopy(arguments, 0, args, 1, arguments.length);
+
+        return new SpringApplicationBuilder(ChallengeApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args);
+    }
+}
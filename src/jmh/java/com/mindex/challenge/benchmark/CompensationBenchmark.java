@@ -0,0 +1,70 @@
+package com.mindex.challenge.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading and writing a compensation as JSON, the work done on every compensation submit and read, and of the
+ * salary conversion on its own next to the Double and NumberFormat conversion it replaced.
+ * Run with `-prof gc` to see the bytes allocated per operation next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompensationBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final byte[] submitted = "{\"employeeCompensationId\":\"12345\",\"salary\":\"123456.3\",\"effectiveDate\":\"2025-08-24\"}".getBytes();
+    private final String salary = "123456.3";
+    private final long minorUnits = 12345630;
+    private Compensation compensation;
+
+    @Setup
+    public void setup() throws IOException {
+        compensation = objectMapper.readValue(submitted, Compensation.class);
+    }
+
+    @Benchmark
+    public Compensation readJson() throws IOException {
+        return objectMapper.readValue(submitted, Compensation.class);
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(compensation);
+    }
+
+    @Benchmark
+    public Money parseSalary() {
+        return Money.parse(salary);
+    }
+
+    //a new Money each time, since a Money keeps its formatted string once it has been written out
+    @Benchmark
+    public String formatSalary() {
+        return Money.of(minorUnits).format();
+    }
+
+    //what setSalary used to do on every deserialization: parse to a double, then format with a new locale-dependent formatter
+    @Benchmark
+    public String legacyParseAndFormatSalary() {
+        return NumberFormat.getCurrencyInstance().format(Double.valueOf(salary));
+    }
+}
@@ -0,0 +1,80 @@
+package com.mindex.challenge.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Jackson round trips of an EmployeeView with a filled in directReports tree, the payload /reporting returns, and of
+ * a stored Employee with as many direct report IDs, the payload /employee/{id} returns, which stays the same size
+ * however deep the tree below the employee is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeJsonBenchmark {
+
+    @Param({"2", "10"})
+    private int fanout;
+
+    @Param({"1", "3"})
+    private int depth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private EmployeeView tree;
+    private byte[] json;
+    private byte[] storedJson;
+
+    @Setup
+    public void setup() throws IOException {
+        tree = SyntheticOrg.nested(fanout, depth);
+        json = objectMapper.writeValueAsBytes(tree);
+
+        Employee stored = new Employee();
+        stored.setEmployeeId(tree.getEmployeeId());
+        stored.setFirstName(tree.getFirstName());
+        stored.setLastName(tree.getLastName());
+        stored.setPosition(tree.getPosition());
+        stored.setDepartment(tree.getDepartment());
+        stored.setDirectReports(tree.getDirectReports().stream().map(EmployeeView::getEmployeeId).collect(Collectors.toList()));
+        storedJson = objectMapper.writeValueAsBytes(stored);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(tree);
+    }
+
+    @Benchmark
+    public EmployeeView deserialize() throws IOException {
+        return objectMapper.readValue(json, EmployeeView.class);
+    }
+
+    @Benchmark
+    public EmployeeView roundTrip() throws IOException {
+        return objectMapper.readValue(objectMapper.writeValueAsBytes(tree), EmployeeView.class);
+    }
+
+    @Benchmark
+    public Employee deserializeStored() throws IOException {
+        return objectMapper.readValue(storedJson, Employee.class);
+    }
+}
@@ -0,0 +1,141 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.EmployeeSearch;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each indexed lookup against the embedded server as the org grows, every employee with a compensation.
+ * With the lookups answered from an index the time per lookup should not depend on the size.
+ *
+ * The directory pages compare the first page with one that starts halfway through the org, the deep page should cost
+ * the same as the first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IndexBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10000;
+    private static final LocalDate AS_OF = LocalDate.of(2025, 6, 1);
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+    private CompensationRepository compensationRepository;
+    private MongoTemplate mongoTemplate;
+    private EmployeeService employeeService;
+    private String middleCursor;
+    private String middleDepartmentCursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        compensationRepository = context.getBean(CompensationRepository.class);
+        mongoTemplate = context.getBean(MongoTemplate.class);
+        employeeService = context.getBean(EmployeeService.class);
+
+        EmployeeStore employeeStore = context.getBean(EmployeeStore.class);
+        List<Employee> employees = SyntheticOrg.generate(OrgShape.BALANCED, size);
+        for (int from = 0; from < employees.size(); from += INSERT_BATCH_SIZE) {
+            employeeStore.insert(employees.subList(from, Math.min(from + INSERT_BATCH_SIZE, employees.size())));
+        }
+
+        //the employee halfway through the directory order, which sorts the last names as strings
+        employees.sort((a, b) -> a.getLastName().compareTo(b.getLastName()));
+        middleCursor = EmployeeSearch.cursorAfter(employees.get(size / 2));
+        List<Employee> department = employees.stream().filter(employee -> "Department0".equals(employee.getDepartment())).toList();
+        middleDepartmentCursor = EmployeeSearch.cursorAfter(department.get(department.size() / 2));
+
+        List<Compensation> compensations = SyntheticOrg.compensation(size);
+        for (int from = 0; from < compensations.size(); from += INSERT_BATCH_SIZE) {
+            compensationRepository.insert(compensations.subList(from, Math.min(from + INSERT_BATCH_SIZE, compensations.size())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee findByEmployeeId() {
+        return employeeRepository.findByEmployeeId(randomEmployeeId());
+    }
+
+    @Benchmark
+    public Employee findByLastName() {
+        return mongoTemplate.findOne(new Query(Criteria.where("lastName").is("Last" + randomIndex())), Employee.class);
+    }
+
+    //the reverse lookup through the multikey index on the direct report IDs
+    @Benchmark
+    public List<Employee> findManager() {
+        return employeeRepository.findByDirectReports(randomEmployeeId());
+    }
+
+    @Benchmark
+    public Compensation findCompensationAsOf() {
+        return compensationRepository.findAsOf(randomEmployeeId(), AS_OF);
+    }
+
+    @Benchmark
+    public EmployeePage firstDirectoryPage() {
+        return employeeService.search(null, null, null, null, EmployeeSearch.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public EmployeePage deepDirectoryPage() {
+        return employeeService.search(null, null, null, middleCursor, EmployeeSearch.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public EmployeePage deepDepartmentPage() {
+        return employeeService.search("Department0", null, null, middleDepartmentCursor, EmployeeSearch.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public EmployeePage namePrefixPage() {
+        return employeeService.search(null, null, "Last" + randomIndex(), null, EmployeeSearch.DEFAULT_LIMIT);
+    }
+
+    private String randomEmployeeId() {
+        return SyntheticOrg.employeeId(randomIndex());
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+}
@@ -0,0 +1,10 @@
+package com.mindex.challenge.benchmark;
+
+public enum OrgShape {
+    //every employee reports straight to the root
+    WIDE,
+    //a single chain of command, each employee has one direct report
+    DEEP,
+    //every manager has ten direct reports
+    BALANCED
+}
@@ -0,0 +1,83 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.PayrollSummary;
+import com.mindex.challenge.service.PayrollService;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+import com.mindex.challenge.service.impl.PayrollView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PayrollService rollups over a synthetic org in which every employee has a compensation. The manager rollup starts at
+ * the root, so it covers the whole org. Both are read from the payroll view, which is built once here as it is on startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PayrollBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private PayrollService payrollService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+
+        EmployeeStore employeeStore = context.getBean(EmployeeStore.class);
+        List<Employee> employees = SyntheticOrg.generate(OrgShape.BALANCED, size);
+        for (int from = 0; from < employees.size(); from += INSERT_BATCH_SIZE) {
+            employeeStore.insert(employees.subList(from, Math.min(from + INSERT_BATCH_SIZE, employees.size())));
+        }
+
+        CompensationRepository compensationRepository = context.getBean(CompensationRepository.class);
+        List<Compensation> compensations = SyntheticOrg.compensation(size);
+        for (int from = 0; from < compensations.size(); from += INSERT_BATCH_SIZE) {
+            compensationRepository.insert(compensations.subList(from, Math.min(from + INSERT_BATCH_SIZE, compensations.size())));
+        }
+
+        context.getBean(OrgGraphIndex.class).rebuild(employees);
+        context.getBean(PayrollView.class).rebuild(employees, compensations);
+        payrollService = context.getBean(PayrollService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PayrollSummary> departments() {
+        return payrollService.departments();
+    }
+
+    @Benchmark
+    public List<PayrollSummary> managerSubtree() {
+        return payrollService.managerSubtree(SyntheticOrg.ROOT_ID);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeServiceImpl.reports against synthetic org trees loaded into the embedded datastore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportsBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10000;
+    private static final Set<String> NAME_FIELDS = Set.of("firstName", "lastName");
+
+    @Param({"WIDE", "DEEP", "BALANCED"})
+    private OrgShape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+
+        EmployeeStore employeeStore = context.getBean(EmployeeStore.class);
+        List<Employee> employees = SyntheticOrg.generate(shape, size);
+        for (int from = 0; from < employees.size(); from += INSERT_BATCH_SIZE) {
+            employeeStore.insert(employees.subList(from, Math.min(from + INSERT_BATCH_SIZE, employees.size())));
+        }
+
+        context.getBean(OrgGraphIndex.class).rebuild(employees);
+        employeeService = context.getBean(EmployeeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportingStructure reports() {
+        return employeeService.reports(SyntheticOrg.ROOT_ID);
+    }
+
+    @Benchmark
+    public ReportingStructure reportsTwoLevelsOfNames() {
+        return employeeService.reports(SyntheticOrg.ROOT_ID, 2, NAME_FIELDS, false);
+    }
+
+    @Benchmark
+    public ReportingStructure reportsCountOnly() {
+        return employeeService.reports(SyntheticOrg.ROOT_ID, null, null, true);
+    }
+}
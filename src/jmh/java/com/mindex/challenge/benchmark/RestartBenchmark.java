@@ -0,0 +1,100 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.dao.durable.DurableMemoryBackend;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to come back up from a data directory holding an org of the given size with a compensation for every employee.
+ * restoreBackend only reads the snapshot back into the embedded server, startApplication is the whole context
+ * including the indexes and the in-memory org graph, until the first request could be served.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RestartBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    @Param({"2000000"})
+    private int size;
+
+    private Path directory;
+    private DurableMemoryBackend backend;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("restart-benchmark");
+
+        //closing the context shuts the embedded server down, which writes the snapshot
+        try (ConfigurableApplicationContext seeded = BenchmarkContext.start("--challenge.storage.data-dir=" + directory)) {
+            EmployeeStore employeeStore = seeded.getBean(EmployeeStore.class);
+            List<Employee> employees = SyntheticOrg.generate(OrgShape.BALANCED, size);
+            for (int from = 0; from < employees.size(); from += INSERT_BATCH_SIZE) {
+                employeeStore.insert(employees.subList(from, Math.min(from + INSERT_BATCH_SIZE, employees.size())));
+            }
+            employees = null;
+
+            CompensationRepository compensationRepository = seeded.getBean(CompensationRepository.class);
+            List<Compensation> compensations = SyntheticOrg.compensation(size);
+            for (int from = 0; from < compensations.size(); from += INSERT_BATCH_SIZE) {
+                compensationRepository.insert(compensations.subList(from, Math.min(from + INSERT_BATCH_SIZE, compensations.size())));
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        if (backend != null) {
+            backend.close();
+            backend = null;
+        }
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public DurableMemoryBackend restoreBackend() throws IOException {
+        backend = DurableMemoryBackend.open(directory, false);
+        return backend;
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startApplication() {
+        context = BenchmarkContext.start("--challenge.storage.data-dir=" + directory);
+        return context;
+    }
+}
@@ -0,0 +1,93 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lookup latency of each storage mode. The external mode needs a running server and is not in the default
+ * parameters, run it with `-p mode=external -jvmArgsAppend -Dchallenge.storage.mongo-uri=mongodb://host:port/db`
+ * against an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StorageBenchmark {
+    private static final int INSERT_BATCH_SIZE = 10000;
+    private static final int IN_QUERY_SIZE = 100;
+    private static final Set<String> NAME_FIELDS = Set.of("firstName", "lastName");
+
+    @Param({"embedded", "cached"})
+    private String mode;
+
+    @Param({"100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeStore employeeStore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("--challenge.storage.mode=" + mode);
+
+        employeeStore = context.getBean(EmployeeStore.class);
+        List<Employee> employees = SyntheticOrg.generate(OrgShape.BALANCED, size);
+        for (int from = 0; from < employees.size(); from += INSERT_BATCH_SIZE) {
+            employeeStore.insert(employees.subList(from, Math.min(from + INSERT_BATCH_SIZE, employees.size())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee findByEmployeeId() {
+        return employeeStore.findByEmployeeId(randomEmployeeId());
+    }
+
+    @Benchmark
+    public List<Employee> findByEmployeeIdIn() {
+        return employeeStore.findByEmployeeIdIn(randomEmployeeIds());
+    }
+
+    @Benchmark
+    public List<Employee> findByEmployeeIdInProjected() {
+        return employeeStore.findByEmployeeIdIn(randomEmployeeIds(), NAME_FIELDS);
+    }
+
+    private String randomEmployeeId() {
+        return SyntheticOrg.employeeId(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    private List<String> randomEmployeeIds() {
+        List<String> employeeIds = new ArrayList<>(IN_QUERY_SIZE);
+        for (int i = 0; i < IN_QUERY_SIZE; i++) {
+            employeeIds.add(randomEmployeeId());
+        }
+        return employeeIds;
+    }
+}
@@ -0,0 +1,90 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeView;
+import com.mindex.challenge.data.Money;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates org trees of a given shape and size, stored the same way as the seed data, with direct reports as the
+ * IDs of the reports.
+ */
+final class SyntheticOrg {
+    static final String ROOT_ID = employeeId(0);
+
+    private static final int BALANCED_FANOUT = 10;
+
+    private SyntheticOrg() {
+    }
+
+    static List<Employee> generate(OrgShape shape, int size) {
+        List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee();
+            employee.setEmployeeId(employeeId(i));
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setPosition(i == 0 ? "Chief Executive" : "Developer");
+            employee.setDepartment("Department" + (i % 20));
+            employees.add(employee);
+        }
+
+        for (int i = 1; i < size; i++) {
+            Employee manager = employees.get(parent(shape, i));
+            if (manager.getDirectReports() == null) {
+                manager.setDirectReports(new ArrayList<>());
+            }
+
+            manager.getDirectReports().add(employeeId(i));
+        }
+
+        return employees;
+    }
+
+    //a salary for each employee generated above, spread between $40,000 and $240,000
+    static List<Compensation> compensation(int size) {
+        List<Compensation> compensations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Compensation compensation = new Compensation();
+            compensation.setEmployeeCompensationId(employeeId(i));
+            compensation.setSalary(Money.of(4_000_000L + (i * 7919L) % 20_000_000L));
+            compensation.setEffectiveDate(LocalDate.of(2025, 1, 1));
+            compensations.add(compensation);
+        }
+        return compensations;
+    }
+
+    //the same tree with every report filled in, the shape /reporting returns and Jackson has to walk
+    static EmployeeView nested(int fanout, int depth) {
+        List<EmployeeView> directReports = null;
+        if (depth > 0) {
+            directReports = new ArrayList<>(fanout);
+            for (int i = 0; i < fanout; i++) {
+                directReports.add(nested(fanout, depth - 1));
+            }
+        }
+
+        return new EmployeeView("nested-" + depth + "-" + ThreadLocalRandom.current().nextInt(), "First", "Last",
+                "Developer", "Engineering", directReports, null);
+    }
+
+    private static int parent(OrgShape shape, int i) {
+        switch (shape) {
+            case WIDE:
+                return 0;
+            case DEEP:
+                return i - 1;
+            default:
+                return (i - 1) / BALANCED_FANOUT;
+        }
+    }
+
+    static String employeeId(int i) {
+        return "synthetic-" + i;
+    }
+}
@@ -0,0 +1,155 @@
+package com.mindex.challenge.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.ChallengeApplication;
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.Employee;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application, puts a manager with 1,000 direct reports in front of it and polls /employee/{id} and
+ * /reporting/{id} the way a dashboard does, first fetching the whole body every time, then with gzip, then sending the
+ * tag of its first fetch back in If-None-Match. Prints the body bytes and the server CPU time each request cost.
+ *
+ * The CPU time is that of the Tomcat request threads only, the client runs in the same JVM. Run with
+ * `gradlew conditionalGetLoadTest`. Tune it with -Ploadtest.requests, the number of requests per row.
+ */
+public final class ConditionalGetComparison {
+    private static final int REPORTS = 1000;
+
+    private ConditionalGetComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = Integer.getInteger("loadtest.requests", 500);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChallengeApplication.class)
+                .run("--server.port=0", "--logging.level.com.mindex=WARN");
+
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://localhost:" + port;
+            String managerId = createManager(client, objectMapper, base);
+
+            System.out.printf("%d requests per row, %d direct reports%n", requests, REPORTS);
+            System.out.printf("%-12s %-14s %8s %14s %16s%n", "endpoint", "mode", "status", "body bytes/req", "server us/req");
+
+            for (String path : List.of("/employee/", "/reporting/")) {
+                URI uri = URI.create(base + path + managerId);
+                String endpoint = path.substring(1, path.length() - 1);
+                //once so the first row does not pay for warming up
+                poll(client, uri, null, null, requests);
+
+                //the tag a dashboard holds on to after its first fetch
+                String eTag = client.send(request(uri, "gzip", null), HttpResponse.BodyHandlers.discarding())
+                        .headers().firstValue("ETag").orElseThrow();
+
+                print(endpoint, "full", poll(client, uri, null, null, requests), requests);
+                print(endpoint, "gzip", poll(client, uri, "gzip", null, requests), requests);
+                print(endpoint, "if-none-match", poll(client, uri, "gzip", eTag, requests), requests);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    //a manager over REPORTS employees created in one batch, returns the manager's ID
+    private static String createManager(HttpClient client, ObjectMapper objectMapper, String base) throws Exception {
+        List<Employee> reports = new ArrayList<>(REPORTS);
+        for (int i = 0; i < REPORTS; i++) {
+            Employee report = new Employee();
+            report.setFirstName("Report");
+            report.setLastName("Number " + i);
+            report.setPosition("Developer");
+            report.setDepartment("Engineering");
+            reports.add(report);
+        }
+        BatchResult created = objectMapper.readValue(post(client, base + "/employees:batch",
+                objectMapper.writeValueAsBytes(reports)), BatchResult.class);
+
+        Employee manager = new Employee();
+        manager.setFirstName("Manager");
+        manager.setLastName("Of Many");
+        manager.setPosition("Manager");
+        manager.setDepartment("Engineering");
+        manager.setDirectReports(new ArrayList<>());
+        created.getResults().forEach(result -> manager.getDirectReports().add(result.getEmployeeId()));
+        return objectMapper.readValue(post(client, base + "/employee", objectMapper.writeValueAsBytes(manager)),
+                Employee.class).getEmployeeId();
+    }
+
+    //sends the requests one after another, returns the status of the last one
+    private static Row poll(HttpClient client, URI uri, String acceptEncoding, String ifNoneMatch, int requests) throws Exception {
+        HttpRequest request = request(uri, acceptEncoding, ifNoneMatch);
+        long cpuBefore = serverCpuNanos();
+        long bytes = 0;
+        int status = 0;
+
+        for (int i = 0; i < requests; i++) {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            bytes += response.body().length;
+            status = response.statusCode();
+        }
+
+        return new Row(status, bytes, serverCpuNanos() - cpuBefore);
+    }
+
+    private static void print(String endpoint, String mode, Row row, int requests) {
+        System.out.printf("%-12s %-14s %8d %14.0f %16.1f%n", endpoint, mode, row.status,
+                (double) row.bytes / requests, row.cpuNanos / 1000.0 / requests);
+    }
+
+    private static HttpRequest request(URI uri, String acceptEncoding, String ifNoneMatch) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return request.build();
+    }
+
+    private static byte[] post(HttpClient client, String uri, byte[] body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    //the CPU time of every Tomcat request thread alive now
+    private static long serverCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long nanos = 0;
+        for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (thread != null && thread.getThreadName().startsWith("http-nio")) {
+                nanos += Math.max(0, threads.getThreadCpuTime(thread.getThreadId()));
+            }
+        }
+        return nanos;
+    }
+
+    private static final class Row {
+        private final int status;
+        private final long bytes;
+        private final long cpuNanos;
+
+        private Row(int status, long bytes, long cpuNanos) {
+            this.status = status;
+            this.bytes = bytes;
+            this.cpuNanos = cpuNanos;
+        }
+    }
+}
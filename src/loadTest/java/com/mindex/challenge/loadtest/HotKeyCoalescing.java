@@ -0,0 +1,122 @@
+package com.mindex.challenge.loadtest;
+
+import com.mindex.challenge.ChallengeApplication;
+import com.mindex.challenge.dao.EmployeeCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application and sends bursts of identical requests for one hot employee at /employee/{id} and
+ * /reporting/{id}, with 1, 10, 100 and 1,000 clients firing at once, and prints how many database commands each burst
+ * cost. With the reads coalesced the count stays flat as the burst grows, instead of growing with it.
+ *
+ * Run with `gradlew coalescingLoadTest`. Tune it with -Ploadtest.bursts, the number of bursts averaged per row.
+ */
+public final class HotKeyCoalescing {
+    private static final String EMPLOYEE_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+    private static final List<String> PATHS = List.of("/employee/" + EMPLOYEE_ID, "/reporting/" + EMPLOYEE_ID);
+    private static final int[] CONCURRENCY = {1, 10, 100, 1000};
+
+    private HotKeyCoalescing() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bursts = Integer.getInteger("loadtest.bursts", 5);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChallengeApplication.class)
+                .run("--server.port=0", "--logging.level.com.mindex=WARN");
+
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            EmployeeCache employeeCache = context.getBean(EmployeeCache.class);
+
+            System.out.printf("%d bursts per row%n", bursts);
+            System.out.printf("%-60s %8s %18s %18s %8s%n", "path", "clients", "commands/burst", "coalesced/burst", "errors");
+
+            for (String path : PATHS) {
+                URI uri = URI.create("http://localhost:" + port + path);
+                //once so the first row does not pay for warming up
+                burst(uri, CONCURRENCY[CONCURRENCY.length - 1]);
+
+                for (int clients : CONCURRENCY) {
+                    long commands = 0;
+                    double coalesced = 0;
+                    int errors = 0;
+
+                    for (int i = 0; i < bursts; i++) {
+                        //every burst starts cold, so a cached employee does not hide the reads it would have made
+                        employeeCache.evictEmployee(EMPLOYEE_ID);
+                        long commandsBefore = commands(registry);
+                        double coalescedBefore = registry.counter("employee.reports.coalesced").count();
+
+                        errors += burst(uri, clients);
+
+                        commands += commands(registry) - commandsBefore;
+                        coalesced += registry.counter("employee.reports.coalesced").count() - coalescedBefore;
+                    }
+
+                    System.out.printf("%-60s %8d %18.1f %18.1f %8d%n", path, clients,
+                            (double) commands / bursts, coalesced / bursts, errors);
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    //every client sends one request at the same moment, returns how many of them failed
+    private static int burst(URI uri, int clients) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Boolean>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                } catch (Exception e) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int errors = 0;
+        for (Future<Boolean> future : futures) {
+            if (!future.get()) {
+                errors++;
+            }
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return errors;
+    }
+
+    //every command the driver has sent so far, whatever the collection or outcome
+    private static long commands(MeterRegistry registry) {
+        long count = 0;
+        for (Timer timer : registry.find("mongodb.driver.commands").timers()) {
+            count += timer.count();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,137 @@
+package com.mindex.challenge.loadtest;
+
+import com.mindex.challenge.ChallengeApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application once on platform threads and once with the virtual profile, drives the same closed-loop load
+ * at /employee/{id} and /reporting/{id} against each, and prints throughput and latency percentiles side by side.
+ *
+ * Run with `gradlew loadTest`. Tune it with -Ploadtest.concurrency, -Ploadtest.seconds and -Ploadtest.warmupSeconds.
+ */
+public final class ThroughputComparison {
+    private static final String EMPLOYEE_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+    private static final List<String> PATHS = List.of("/employee/" + EMPLOYEE_ID, "/reporting/" + EMPLOYEE_ID);
+
+    private ThroughputComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 1000);
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.seconds", 20));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 5));
+
+        System.out.printf("Java %d, %d concurrent clients, %ds warmup, %ds measurement%n",
+                Runtime.version().feature(), concurrency, warmup.toSeconds(), duration.toSeconds());
+        System.out.printf("%-10s %-60s %12s %10s %10s %10s %8s%n", "mode", "path", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+
+        for (String mode : List.of("platform", "virtual")) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(ChallengeApplication.class)
+                    .run("--server.port=0", "--logging.level.com.mindex=WARN", "--spring.profiles.active=" + mode);
+
+            try {
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+                for (String path : PATHS) {
+                    URI uri = URI.create("http://localhost:" + port + path);
+                    drive(uri, concurrency, warmup);
+                    Result result = drive(uri, concurrency, duration);
+
+                    System.out.printf("%-10s %-60s %12.0f %10.2f %10.2f %10.2f %8d%n", mode, path,
+                            result.requests / (duration.toNanos() / 1e9),
+                            result.percentile(50) / 1e6, result.percentile(99) / 1e6, result.percentile(100) / 1e6,
+                            result.errors);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    //every client sends its next request as soon as the previous one completes, until the duration is up
+    private static Result drive(URI uri, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        List<Future<Result>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(clients.submit(() -> {
+                Result result = new Result();
+                start.await();
+
+                while (System.nanoTime() < deadline) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            result.errors++;
+                        }
+                    } catch (Exception e) {
+                        result.errors++;
+                    }
+                    result.record(System.nanoTime() - sent);
+                }
+                return result;
+            }));
+        }
+
+        start.countDown();
+        Result total = new Result();
+        for (Future<Result> future : futures) {
+            total.merge(future.get());
+        }
+
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+        return total;
+    }
+
+    private static final class Result {
+        private long[] latencies = new long[1024];
+        private int requests;
+        private int errors;
+
+        void record(long latencyNanos) {
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[requests++] = latencyNanos;
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < other.requests; i++) {
+                record(other.latencies[i]);
+            }
+            errors += other.errors;
+        }
+
+        long percentile(int percentile) {
+            if (requests == 0) {
+                return 0;
+            }
+
+            long[] sorted = Arrays.copyOf(latencies, requests);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * requests) - 1;
+            return sorted[Math.max(0, Math.min(index, requests - 1))];
+        }
+    }
+}
@@ -1,40 +1,231 @@
 package com.mindex.challenge;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.EmployeeStore;
 import com.mindex.challenge.data.Employee;
-import jakarta.annotation.PostConstruct;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+import com.mindex.challenge.service.impl.PayrollView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+//loads the data even when every other bean is created lazily, nothing else would ask for it
 @Component
-public class DataBootstrap {
+@Lazy(false)
+public class DataBootstrap implements SmartInitializingSingleton {
+    private static final Logger LOG = LoggerFactory.getLogger(DataBootstrap.class);
+
     private static final String DATASTORE_LOCATION = "/static/employee_database.json";
 
+    //marks the end of the parsed records for the writers, compared by identity
+    private static final List<Employee> END_OF_DATA = new ArrayList<>();
+
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private EmployeeStore employeeStore;
 
     @Autowired
     private ObjectMapper objectMapper;
 
-    @PostConstruct
+    @Autowired
+    private OrgGraphIndex orgGraphIndex;
+
+    @Autowired
+    private PayrollView payrollView;
+
+    @Value("${challenge.bootstrap.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${challenge.bootstrap.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${challenge.bootstrap.queue-capacity:8}")
+    private int queueCapacity;
+
+    //loads on a thread of its own while the web server starts, requests wait on ready() instead of the context refresh
+    @Value("${challenge.bootstrap.background:false}")
+    private boolean background;
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    //runs once every singleton exists rather than in @PostConstruct, because the writer threads need beans that
+    //cannot be resolved from another thread while the context is still creating this one
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!background) {
+            init();
+            return;
+        }
+
+        Thread loader = new Thread(() -> {
+            try {
+                init();
+            } catch (Throwable e) {
+                //whatever ends the load, ready() has to complete, or every request waits on it until the gate times out
+                LOG.error("Failed to load the data, requests will be rejected", e);
+                ready.completeExceptionally(e);
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+            }
+        }, "data-bootstrap");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Completes once the data is loaded and the in-memory views are built from it, or exceptionally if that failed.
+     */
+    public CompletableFuture<Void> ready() {
+        return ready;
+    }
+
     public void init() {
-        //added some new test data to database json for testing purposes
-        InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION);
+        resetPeakHeapUsage();
+        long start = System.nanoTime();
+
+        //a data directory brings back everything written before the last shutdown, the seed data would duplicate it
+        long restored = employeeStore.count();
+        int loaded = 0;
+        if (restored > 0) {
+            LOG.info("Found [{}] restored employees, skipping the seed data", restored);
+        } else {
+            try (InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION)) {
+                loaded = load(inputStream);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
 
-        Employee[] employees = null;
+        //the reporting hierarchy is read far more often than it changes, so it is indexed in memory once the data is loaded
+        orgGraphIndex.reload();
+        //the payroll rollups are built once from the stored data too, every write after this reaches them as an event
+        payrollView.reload();
 
-        try {
-            employees = objectMapper.readValue(inputStream, Employee[].class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        ready.complete(null);
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOG.info("Loaded [{}] employees in [{}] ms ([{}] records/s), peak heap [{}] MB",
+                loaded, elapsedMillis, loaded * 1000L / elapsedMillis, peakHeapUsage() / (1024 * 1024));
+    }
+
+    /**
+     * Streams the employee array from the input and inserts it in batches. Parsing runs on the calling thread while
+     * the writer threads insert earlier batches, and the bounded queue between them keeps at most a few batches in
+     * memory at a time.
+     */
+    int load(InputStream inputStream) throws IOException {
+        BlockingQueue<List<Employee>> batches = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "data-bootstrap-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            List<Future<Integer>> written = new ArrayList<>();
+            for (int i = 0; i < writerThreads; i++) {
+                written.add(writers.submit(() -> write(batches)));
+            }
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of employees in " + DATASTORE_LOCATION);
+            }
+
+            List<Employee> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(objectMapper.readValue(parser, Employee.class));
+
+                if (batch.size() == batchSize) {
+                    handOff(batches, batch, written);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                handOff(batches, batch, written);
+            }
+
+            for (int i = 0; i < writerThreads; i++) {
+                handOff(batches, END_OF_DATA, written);
+            }
+
+            int loaded = 0;
+            for (Future<Integer> writerResult : written) {
+                loaded += writerResult.get();
+            }
+            return loaded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + DATASTORE_LOCATION, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to insert employees from " + DATASTORE_LOCATION, e.getCause());
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    private int write(BlockingQueue<List<Employee>> batches) throws InterruptedException {
+        int written = 0;
+
+        List<Employee> batch;
+        while ((batch = batches.take()) != END_OF_DATA) {
+            employeeStore.insert(batch);
+            written += batch.size();
+        }
+
+        return written;
+    }
+
+    //blocks while the writers are behind, but gives up as soon as one of them has failed
+    private static void handOff(BlockingQueue<List<Employee>> batches, List<Employee> batch, List<Future<Integer>> written)
+            throws InterruptedException, ExecutionException {
+        while (!batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<Integer> writerResult : written) {
+                if (writerResult.isDone()) {
+                    writerResult.get();
+                    throw new IllegalStateException("Employee writer stopped before the end of the data");
+                }
+            }
         }
+    }
+
+    private static void resetPeakHeapUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
 
-        for (Employee employee : employees) {
-            employeeRepository.insert(employee);
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
         }
+        return peak;
     }
 }
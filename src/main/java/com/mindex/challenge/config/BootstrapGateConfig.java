@@ -0,0 +1,93 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.DataBootstrap;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Holds requests back until the data is loaded when {@link DataBootstrap} loads it in the background
+ * (challenge.bootstrap.background), so a request that reaches the web server first waits for the seed data instead of
+ * finding no employees. The actuator endpoints are let through, so health checks answer while the data loads. A
+ * request that has waited challenge.bootstrap.gate-timeout is answered 503, as is every request once the load failed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "challenge.bootstrap.background", havingValue = "true")
+public class BootstrapGateConfig {
+    private static final String ACTUATOR_PATH = "/actuator/";
+
+    @Value("${challenge.bootstrap.gate-timeout:30s}")
+    private Duration gateTimeout;
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public OncePerRequestFilter bootstrapGateFilter(DataBootstrap dataBootstrap) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+                return request.getRequestURI().startsWith(ACTUATOR_PATH);
+            }
+
+            //blocks the request thread, but only for requests that arrive while the data is still loading
+            @Override
+            protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                            @NonNull FilterChain filterChain) throws ServletException, IOException {
+                try {
+                    dataBootstrap.ready().get(gateTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Data failed to load");
+                    return;
+                } catch (TimeoutException e) {
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Data is still loading");
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Data is still loading");
+                    return;
+                }
+                filterChain.doFilter(request, response);
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public WebFilter bootstrapGateWebFilter(DataBootstrap dataBootstrap) {
+        return (exchange, chain) -> {
+            if (exchange.getRequest().getPath().value().startsWith(ACTUATOR_PATH)) {
+                return chain.filter(exchange);
+            }
+
+            //subscribes to the load rather than waiting on it, so no event loop thread is held
+            //a request that times out or goes away must not cancel the load every other request waits on
+            return Mono.fromFuture(dataBootstrap.ready(), true)
+                    .timeout(gateTimeout)
+                    .thenReturn(true)
+                    .onErrorReturn(false)
+                    .flatMap(loaded -> {
+                        if (loaded) {
+                            return chain.filter(exchange);
+                        }
+                        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                        return exchange.getResponse().setComplete();
+                    });
+        };
+    }
+}
@@ -1,34 +1,130 @@
 package com.mindex.challenge.config;
 
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mindex.challenge.dao.durable.DurableMemoryBackend;
+import com.mindex.challenge.dao.embedded.IndexedMemoryBackend;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoBackend;
 import de.bwaldvogel.mongo.MongoServer;
-import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 import org.springframework.lang.NonNull;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 
 @EnableMongoRepositories(basePackageClasses = EmployeeRepository.class)
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveEmployeeRepository.class)
 @Configuration
 public class MongoConfig extends AbstractMongoClientConfiguration {
 
+    //every request holds a pooled connection while it talks to the database, so the pool caps concurrent requests
+    //the virtual profile raises it, since virtual threads no longer cap concurrency at the Tomcat pool size
+    @Value("${challenge.mongo.max-pool-size:100}")
+    private int maxPoolSize;
+
+    //embedded starts a server in this JVM and connects to it, external connects to the server at mongo-uri instead
+    @Value("${challenge.storage.mode:" + StorageConfig.EMBEDDED + "}")
+    private String storageMode;
+    @Value("${challenge.storage.mongo-uri:mongodb://localhost:27017/test}")
+    private String mongoUri;
+
+    //when set, the embedded server keeps its data in this directory across restarts instead of only in memory
+    @Value("${challenge.storage.data-dir:}")
+    private String dataDir;
+    @Value("${challenge.storage.fsync:false}")
+    private boolean fsync;
+    //a snapshot is written in the background once the write-ahead log grows past this many bytes
+    @Value("${challenge.storage.snapshot-log-bytes:67108864}")
+    private long snapshotLogBytes;
+
+    //created by Spring Boot's mongo metrics auto-configuration when a meter registry is present
+    @Autowired
+    private ObjectProvider<MongoMetricsCommandListener> commandListener;
+    @Autowired
+    private ObjectProvider<MongoMetricsConnectionPoolListener> connectionPoolListener;
+
     @Override
     @NonNull
     protected String getDatabaseName() {
-        return "test";
+        String database = isExternal() ? new ConnectionString(mongoUri).getDatabase() : null;
+        return database != null ? database : "test";
+    }
+
+    //the embedded server is a bean of its own so it is shut down with the context, otherwise its threads keep the JVM alive
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnExpression("'${challenge.storage.mode:" + StorageConfig.EMBEDDED + "}' != '" + StorageConfig.EXTERNAL + "'")
+    public MongoServer mongoServer() {
+        MongoServer server = new MongoServer(dataDir.isEmpty() ? new IndexedMemoryBackend() : durableBackend());
+        server.bind();
+        return server;
+    }
+
+    private MongoBackend durableBackend() {
+        try {
+            return DurableMemoryBackend.open(Path.of(dataDir), fsync, snapshotLogBytes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
     @NonNull
     public MongoClient mongoClient() {
-        MongoServer server = new MongoServer(new MemoryBackend());
-        InetSocketAddress serverAddress = server.bind();
-        String mongoConnectionString = String.format("mongodb://%s:%d", serverAddress.getHostName(), serverAddress.getPort());
-        return MongoClients.create(mongoConnectionString);
+        return MongoClients.create(clientSettings());
+    }
+
+    //the reactive repositories talk to the same server through the driver's non-blocking client
+    @Bean(destroyMethod = "close")
+    public com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient() {
+        return com.mongodb.reactivestreams.client.MongoClients.create(clientSettings());
+    }
+
+    //shares the converter with the blocking template, so both map documents the same way
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MappingMongoConverter mappingMongoConverter) {
+        return new ReactiveMongoTemplate(new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient(), getDatabaseName()), mappingMongoConverter);
+    }
+
+    //Spring Boot only attaches its metrics listeners to the clients it creates itself, attaching them here is what
+    //publishes the driver's command latency (mongodb.driver.commands) and connection pool metrics for these clients
+    private MongoClientSettings clientSettings() {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(connectionString())
+                .applyToConnectionPoolSettings(pool -> pool.maxSize(maxPoolSize));
+        commandListener.ifAvailable(builder::addCommandListener);
+        connectionPoolListener.ifAvailable(listener -> builder.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(listener)));
+        return builder.build();
+    }
+
+    private ConnectionString connectionString() {
+        if (isExternal()) {
+            return new ConnectionString(mongoUri);
+        }
+
+        InetSocketAddress serverAddress = mongoServer().getLocalAddress();
+        return new ConnectionString(String.format("mongodb://%s:%d/", serverAddress.getHostName(), serverAddress.getPort()));
+    }
+
+    private boolean isExternal() {
+        return StorageConfig.EXTERNAL.equals(storageMode);
     }
 }
 
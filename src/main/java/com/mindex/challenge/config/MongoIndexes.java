@@ -0,0 +1,108 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the indexes the repositories rely on when the application starts, before any data is loaded, and brings
+ * documents a data directory or an external database kept from an older release up to the current layout.
+ *
+ * These are declared here instead of with @Indexed, next to the legacy indexes each one replaces.
+ */
+@Component
+public class MongoIndexes {
+    private static final Logger LOG = LoggerFactory.getLogger(MongoIndexes.class);
+
+    private static final String LEGACY_COMPENSATION_INDEX = "employeeCompensationId_1";
+    //the directory indexes lead with the same fields as the first two, the last indexed the embedded report stubs
+    private static final List<String> LEGACY_EMPLOYEE_INDEXES = List.of("department_1", "lastName_1", "directReports.employeeId_1");
+    private static final String LEGACY_REPORT_ID = "directReports.employeeId";
+    private static final String VERSION = "version";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        //the upserts depend on this being unique, a stale version then fails with a duplicate key instead of inserting a copy
+        IndexOperations employeeIndexes = mongoTemplate.indexOps(Employee.class);
+        employeeIndexes.ensureIndex(new Index().on("employeeId", Sort.Direction.ASC).unique());
+        dropIndexes(employeeIndexes, LEGACY_EMPLOYEE_INDEXES);
+        //the directory, in the order of its pages, so a page is one range scan from the cursor with a department, a
+        //position or neither fixed, and a last name prefix is a range of the same index
+        employeeIndexes.ensureIndex(new Index().on("lastName", Sort.Direction.ASC).on("employeeId", Sort.Direction.ASC));
+        employeeIndexes.ensureIndex(new Index().on("department", Sort.Direction.ASC).on("lastName", Sort.Direction.ASC).on("employeeId", Sort.Direction.ASC));
+        employeeIndexes.ensureIndex(new Index().on("position", Sort.Direction.ASC).on("lastName", Sort.Direction.ASC).on("employeeId", Sort.Direction.ASC));
+        migrateDirectReports();
+        migrateVersions();
+        //multikey, one entry per direct report ID, so finding an employee's manager does not scan every employee
+        employeeIndexes.ensureIndex(new Index().on("directReports", Sort.Direction.ASC));
+
+        //compensation is an append-only history now, so the old one-entry-per-employee index would reject every new entry
+        IndexOperations compensationIndexes = mongoTemplate.indexOps(Compensation.class);
+        dropIndexes(compensationIndexes, List.of(LEGACY_COMPENSATION_INDEX));
+
+        //in the same order as the history queries, so the entry as of a date and the whole history are each one range scan
+        //not unique on employeeCompensationId, an employee has one entry per effective date
+        compensationIndexes.ensureIndex(new Index()
+                .on("employeeCompensationId", Sort.Direction.ASC)
+                .on("effectiveDate", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC));
+    }
+
+    //direct reports used to be stored as employee stubs, {"employeeId": "..."}, and are now stored as the bare IDs
+    private void migrateDirectReports() {
+        MongoCollection<Document> employees = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Employee.class));
+        int migrated = 0;
+
+        for (Document employee : employees.find(Filters.exists(LEGACY_REPORT_ID)).projection(Projections.include("directReports"))) {
+            List<String> reportIds = new ArrayList<>();
+            for (Object directReport : employee.getList("directReports", Object.class)) {
+                reportIds.add(directReport instanceof Document ? ((Document) directReport).getString("employeeId") : (String) directReport);
+            }
+            employees.updateOne(Filters.eq("_id", employee.get("_id")), Updates.set("directReports", reportIds));
+            migrated++;
+        }
+
+        if (migrated > 0) {
+            LOG.info("Migrated the direct reports of [{}] employees to report IDs", migrated);
+        }
+    }
+
+    //employees stored before they were versioned, or by a bulk insert that left the version out, start at the first one
+    //so every stored employee can be tagged and ordered by it
+    private void migrateVersions() {
+        MongoCollection<Document> employees = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Employee.class));
+        long migrated = employees.updateMany(Filters.exists(VERSION, false), Updates.set(VERSION, 0L)).getModifiedCount();
+
+        if (migrated > 0) {
+            LOG.info("Gave [{}] employees without a version their first one", migrated);
+        }
+    }
+
+    private static void dropIndexes(IndexOperations indexes, List<String> names) {
+        for (IndexInfo index : indexes.getIndexInfo()) {
+            if (names.contains(index.getName())) {
+                indexes.dropIndex(index.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.mindex.challenge.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips /reporting responses of at least challenge.reporting.gzip-min-bytes for clients that accept it. A large tree
+ * is the same few field names over and over, so it shrinks to a small fraction of its size.
+ *
+ * The servers' own compression is not used for this, Tomcat leaves every response with a strong ETag uncompressed, and
+ * a strong ETag has to tell the gzipped bytes apart from the plain ones anyway. So the tag of a gzipped response gets a
+ * -gzip suffix, and the suffix is taken off the tags a client sends back before the handler compares them.
+ */
+@Configuration
+public class ReportCompressionConfig {
+    private static final String REPORTING_PATH = "/reporting/";
+    private static final String GZIP = "gzip";
+    private static final String GZIP_TAG_SUFFIX = "-gzip\"";
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public OncePerRequestFilter reportCompressionFilter(@Value("${challenge.reporting.gzip-min-bytes:2048}") int minBytes) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+                return !request.getRequestURI().startsWith(REPORTING_PATH);
+            }
+
+            @Override
+            protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                            @NonNull FilterChain filterChain) throws ServletException, IOException {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+
+                List<String> ifNoneMatch = Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH));
+                GzipResponse gzipResponse = new GzipResponse(response, minBytes);
+                filterChain.doFilter(withoutGzipTags(request, ifNoneMatch), gzipResponse);
+
+                String eTag = response.getHeader(HttpHeaders.ETAG);
+                if (response.getStatus() == HttpStatus.NOT_MODIFIED.value() && eTag != null && sentGzipTag(ifNoneMatch, eTag)) {
+                    response.setHeader(HttpHeaders.ETAG, gzipTag(eTag));
+                }
+                gzipResponse.finish();
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public WebFilter reportCompressionWebFilter(@Value("${challenge.reporting.gzip-min-bytes:2048}") int minBytes) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!request.getPath().value().startsWith(REPORTING_PATH)) {
+                return chain.filter(exchange);
+            }
+
+            exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!acceptsGzip(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING))) {
+                return chain.filter(exchange);
+            }
+
+            List<String> ifNoneMatch = request.getHeaders().getOrEmpty(HttpHeaders.IF_NONE_MATCH);
+            ServerHttpRequest untagged = ifNoneMatch.isEmpty() ? request : request.mutate()
+                    .headers(headers -> headers.put(HttpHeaders.IF_NONE_MATCH, withoutGzipTags(ifNoneMatch)))
+                    .build();
+
+            //a body encoded from a single value arrives as one buffer, joining it costs no copy in that case, and it is
+            //compressed straight from that buffer into the one written out
+            ServerHttpResponse response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+                @Override
+                @NonNull
+                public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+                    return DataBufferUtils.join(body).defaultIfEmpty(bufferFactory().wrap(new byte[0])).flatMap(joined -> {
+                        if (!HttpStatus.OK.equals(getStatusCode()) || joined.readableByteCount() < minBytes) {
+                            return super.writeWith(Mono.just(joined));
+                        }
+
+                        DataBuffer compressed = bufferFactory().allocateBuffer(joined.readableByteCount() / 4 + 64);
+                        try (InputStream content = joined.asInputStream(true);
+                             GZIPOutputStream gzip = new GZIPOutputStream(compressed.asOutputStream())) {
+                            content.transferTo(gzip);
+                        } catch (IOException e) {
+                            DataBufferUtils.release(compressed);
+                            return Mono.error(new UncheckedIOException(e));
+                        }
+
+                        HttpHeaders headers = getHeaders();
+                        if (headers.getETag() != null) {
+                            headers.setETag(gzipTag(headers.getETag()));
+                        }
+                        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                        headers.setContentLength(compressed.readableByteCount());
+                        return super.writeWith(Mono.just(compressed));
+                    });
+                }
+            };
+            response.beforeCommit(() -> {
+                String eTag = response.getHeaders().getETag();
+                if (HttpStatus.NOT_MODIFIED.equals(response.getStatusCode()) && eTag != null && sentGzipTag(ifNoneMatch, eTag)) {
+                    response.getHeaders().setETag(gzipTag(eTag));
+                }
+                return Mono.empty();
+            });
+
+            return chain.filter(exchange.mutate().request(untagged).response(response).build());
+        };
+    }
+
+    //gzip listed without q=0, a wildcard is not taken as a request for compression
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            if (!GZIP.equalsIgnoreCase(parameters[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parameters.length; i++) {
+                if (parameters[i].trim().matches("[qQ]=0(\\.0{0,3})?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String gzipTag(String eTag) {
+        if (!eTag.endsWith("\"") || eTag.endsWith(GZIP_TAG_SUFFIX)) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + GZIP_TAG_SUFFIX;
+    }
+
+    private static List<String> withoutGzipTags(List<String> ifNoneMatch) {
+        List<String> untagged = new ArrayList<>(ifNoneMatch.size());
+        for (String value : ifNoneMatch) {
+            untagged.add(value.replace(GZIP_TAG_SUFFIX, "\""));
+        }
+        return untagged;
+    }
+
+    private static HttpServletRequest withoutGzipTags(HttpServletRequest request, List<String> ifNoneMatch) {
+        if (ifNoneMatch.isEmpty()) {
+            return request;
+        }
+
+        List<String> untagged = withoutGzipTags(ifNoneMatch);
+        return new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? untagged.get(0) : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? Collections.enumeration(untagged) : super.getHeaders(name);
+            }
+        };
+    }
+
+    //the 304 names the copy the client has, which was the gzipped one if it sent that tag
+    private static boolean sentGzipTag(List<String> ifNoneMatch, String eTag) {
+        String gzipTag = gzipTag(eTag);
+        for (String value : ifNoneMatch) {
+            if (value.contains(gzipTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Holds back the first challenge.reporting.gzip-min-bytes of a body. A body that stays under them is written as it
+     * is once the handler is done, one that gets past them is compressed from then on, straight into the response, so
+     * a large tree is never held in memory in full.
+     */
+    private static class GzipResponse extends HttpServletResponseWrapper {
+        private final HttpServletResponse response;
+        private final ByteArrayOutputStream held;
+        private final int minBytes;
+        private OutputStream body;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        GzipResponse(HttpServletResponse response, int minBytes) {
+            super(response);
+            this.response = response;
+            this.held = new ByteArrayOutputStream(Math.max(minBytes, 32));
+            this.minBytes = minBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(@NonNull byte[] bytes, int offset, int length) throws IOException {
+                        if (body == null && held.size() + length >= minBytes && response.getStatus() == HttpStatus.OK.value()) {
+                            startGzip();
+                        }
+                        (body == null ? held : body).write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        //the length the handler knows is that of the uncompressed body, it is only sent if the body goes out as it is
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        //nothing is committed while the body is held back, so a 304 or a small body can still be sent as it is
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (body != null) {
+                body.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (body != null) {
+                throw new IllegalStateException("Response body is already being compressed");
+            }
+            held.reset();
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            contentLength = -1;
+            super.reset();
+        }
+
+        private void startGzip() throws IOException {
+            String eTag = response.getHeader(HttpHeaders.ETAG);
+            if (eTag != null) {
+                response.setHeader(HttpHeaders.ETAG, gzipTag(eTag));
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            contentLength = -1;
+            body = new GZIPOutputStream(response.getOutputStream(), 8192);
+            held.writeTo(body);
+            held.reset();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (body != null) {
+                body.close();
+                return;
+            }
+
+            if (held.size() > 0 || contentLength >= 0) {
+                response.setContentLengthLong(held.size());
+                held.writeTo(response.getOutputStream());
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.dao.CachedEmployeeStore;
+import com.mindex.challenge.dao.MongoEmployeeStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+public class StorageConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(StorageConfig.class);
+
+    static final String EMBEDDED = "embedded";
+    static final String EXTERNAL = "external";
+    static final String CACHED = "cached";
+
+    //embedded and external differ only in the server MongoConfig connects to, cached answers lookups from memory and
+    //writes through to the embedded one
+    //the cache loads what is already stored, so it waits for MongoIndexes to migrate older documents
+    @Bean
+    @DependsOn("mongoIndexes")
+    public EmployeeStore employeeStore(@Value("${challenge.storage.mode:" + EMBEDDED + "}") String storageMode,
+                                       EmployeeRepository employeeRepository,
+                                       ApplicationContext applicationContext) {
+        LOG.info("Serving employees from [{}] storage", storageMode);
+
+        switch (storageMode) {
+            case EMBEDDED:
+            case EXTERNAL:
+                return new MongoEmployeeStore(employeeRepository);
+            case CACHED:
+                //the reactive service reads and writes through the reactive repositories, which would bypass the table
+                if (applicationContext instanceof ReactiveWebApplicationContext) {
+                    throw new IllegalStateException("Storage mode " + CACHED + " is not supported by the reactive profile");
+                }
+                CachedEmployeeStore cachedEmployeeStore = new CachedEmployeeStore(employeeRepository);
+                cachedEmployeeStore.load();
+                return cachedEmployeeStore;
+            default:
+                throw new IllegalStateException("Invalid storage mode: " + storageMode);
+        }
+    }
+}
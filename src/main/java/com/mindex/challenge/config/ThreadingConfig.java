@@ -0,0 +1,30 @@
+package com.mindex.challenge.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ThreadingConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    //Spring Boot silently ignores the virtual thread setting on older runtimes, make it visible instead
+    @PostConstruct
+    public void checkVirtualThreads() {
+        int javaVersion = Runtime.version().feature();
+
+        if (virtualThreadsEnabled && javaVersion < VIRTUAL_THREADS_JAVA_VERSION) {
+            LOG.warn("Virtual threads are enabled but the application is running on Java {}, requests will be served on platform threads. Java {} or later is required",
+                    javaVersion, VIRTUAL_THREADS_JAVA_VERSION);
+        } else {
+            LOG.info("Serving requests on {} threads", virtualThreadsEnabled ? "virtual" : "platform");
+        }
+    }
+}
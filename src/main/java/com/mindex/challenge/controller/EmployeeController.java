@@ -1,26 +1,54 @@
 package com.mindex.challenge.controller;
 
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.ChangeEvent;
 import com.mindex.challenge.data.Compensation;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.InvalidRequestException;
 import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.EmployeeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+//the reactive profile serves the same endpoints through ReactiveEmployeeRoutes instead
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class EmployeeController {
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeController.class);
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    private EntityTags entityTags;
+
     @PostMapping("/employee")
     public Employee create(@RequestBody Employee employee) {
         LOG.debug("Received employee create request for [{}]", employee);
@@ -28,11 +56,24 @@ public class EmployeeController {
         return employeeService.create(employee);
     }
 
+    @PostMapping("/employees:batch")
+    public BatchResult createBatch(@RequestBody List<Employee> employees) {
+        LOG.debug("Received employee batch create request for [{}] employees", employees.size());
+
+        return employeeService.createBatch(employees);
+    }
+
     @GetMapping("/employee/{id}")
-    public Employee read(@PathVariable String id) {
+    public ResponseEntity<Employee> read(@PathVariable String id, WebRequest request) {
         LOG.debug("Received employee read request for id [{}]", id);
 
-        return employeeService.read(id);
+        Employee employee = employeeService.read(id);
+        //answered with 304 and no body when the client already has this version
+        if (request.checkNotModified(entityTags.employee(employee))) {
+            return null;
+        }
+
+        return revalidated(employee);
     }
 
     @PutMapping("/employee/{id}")
@@ -44,10 +85,38 @@ public class EmployeeController {
     }
 
     @GetMapping("/reporting/{id}")
-    public ReportingStructure reports(@PathVariable String id) {
+    public ResponseEntity<ReportingStructure> reports(@PathVariable String id,
+                                                      @RequestParam(required = false) Integer depth,
+                                                      @RequestParam(required = false) Set<String> fields,
+                                                      @RequestParam(defaultValue = "false") boolean countOnly,
+                                                      WebRequest request) {
         LOG.debug("Received employee reporting request for id [{}]", id);
 
-        return employeeService.reports(id);
+        //nothing in the tree has been written since the client's copy, so it is not even read
+        String reportsVersion = employeeService.reportsVersion(id);
+        if (request.checkNotModified(entityTags.reports(reportsVersion))) {
+            return null;
+        }
+
+        return revalidated(employeeService.reports(id, depth, fields, countOnly, reportsVersion));
+    }
+
+    @GetMapping("/employee/{id}/managers")
+    public List<Employee> managers(@PathVariable String id) {
+        LOG.debug("Received chain of command request for id [{}]", id);
+
+        return employeeService.managers(id);
+    }
+
+    @GetMapping("/employees")
+    public EmployeePage search(@RequestParam(required = false) String department,
+                               @RequestParam(required = false) String position,
+                               @RequestParam(required = false) String q,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(required = false) Integer limit) {
+        LOG.debug("Received employee search request for department [{}], position [{}] and name [{}]", department, position, q);
+
+        return employeeService.search(department, position, q, after, limit);
     }
 
     @PostMapping("/submit-compensation/{id}")
@@ -57,10 +126,72 @@ public class EmployeeController {
         return employeeService.submitCompensation(id, compensation);
     }
 
+    @PostMapping("/compensation:batch")
+    public BatchResult submitCompensationBatch(@RequestBody List<Compensation> compensations) {
+        LOG.debug("Received compensation batch submit request for [{}] employees", compensations.size());
+
+        return employeeService.submitCompensationBatch(compensations);
+    }
+
     @GetMapping("/compensation/{id}")
-    public Compensation readCompensation(@PathVariable String id) {
-        LOG.debug("Received compensation read request for id [{}]", id);
+    public Compensation readCompensation(@PathVariable String id,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        LOG.debug("Received compensation read request for id [{}] as of [{}]", id, asOf);
+
+        //without a date this is the compensation in effect today, which is the one that is cached
+        return asOf == null ? employeeService.readCompensation(id) : employeeService.readCompensationAsOf(id, asOf);
+    }
+
+    @GetMapping("/compensation/{id}/history")
+    public List<Compensation> readCompensationHistory(@PathVariable String id) {
+        LOG.debug("Received compensation history request for id [{}]", id);
+
+        return employeeService.readCompensationHistory(id);
+    }
+
+    @GetMapping("/events")
+    public List<ChangeEvent> events(@RequestParam(required = false) Long since,
+                                    @RequestParam(required = false) Integer limit) {
+        LOG.debug("Received change event request since [{}]", since);
+
+        return employeeService.events(since, limit);
+    }
+
+    //one JSON object per line, written while the database cursor is read, so the export never builds the full list in memory
+    @GetMapping("/employees/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        LOG.debug("Received employee export request");
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(ndjsonWriter.streamingBody(employeeService::exportEmployees));
+    }
+
+    @GetMapping("/compensation/export")
+    public ResponseEntity<StreamingResponseBody> exportCompensation() {
+        LOG.debug("Received compensation export request");
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(ndjsonWriter.streamingBody(employeeService::exportCompensation));
+    }
+
+    //a write carrying a stale version lost the race, tell the client to re-read instead of returning a server error
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String handleConflict(OptimisticLockingFailureException e) {
+        LOG.debug("Rejected stale write: {}", e.getMessage());
+
+        return e.getMessage();
+    }
+
+    //a parameter that cannot be served is the client's mistake, the same as one that does not parse
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleInvalidRequest(InvalidRequestException e) {
+        LOG.debug("Rejected request: {}", e.getMessage());
+
+        return e.getMessage();
+    }
 
-        return employeeService.readCompensation(id);
+    //the tag is already on the response from checkNotModified, clients may keep the body but have to check it is current
+    private static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
     }
 }
@@ -0,0 +1,30 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.Employee;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+
+/**
+ * Strong entity tags for the employee and reporting responses, worked out without serializing the response, so a
+ * client polling them can send the tag back in If-None-Match and get a 304 with no body.
+ *
+ * Versions and event sequences start over when the application restarts without a data directory, so the tags built
+ * from them also carry a value drawn on startup, and a tag from an earlier run never matches.
+ */
+@Component
+public class EntityTags {
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    //every write bumps the stored version, and every insert and MongoIndexes give a stored employee its first one
+    public String employee(Employee employee) {
+        return "\"" + epoch + "-" + employee.getVersion() + "\"";
+    }
+
+    //the version covers everyone in the tree, so a write elsewhere in the org leaves the tag as it is
+    //it has to be read before the tree, so a write made while the tree is read gives it an older tag, never a newer one
+    public String reports(String reportsVersion) {
+        return "\"" + epoch + "-" + reportsVersion + "\"";
+    }
+}
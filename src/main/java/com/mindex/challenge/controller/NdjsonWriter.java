@@ -0,0 +1,66 @@
+package com.mindex.challenge.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes records as newline-delimited JSON, one record per line, without ever holding more than one record and the
+ * generator's buffer in memory.
+ */
+@Component
+public class NdjsonWriter {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * A response body that pulls records from the stream only as fast as the client reads them. The stream is opened
+     * once the response starts and closed when it ends, so the database cursor behind it never outlives the request.
+     */
+    public <T> StreamingResponseBody streamingBody(Supplier<Stream<T>> records) {
+        return outputStream -> {
+            try (Stream<T> stream = records.get()) {
+                write(stream.iterator(), outputStream);
+            }
+        };
+    }
+
+    //encodes one chunk of records, used where the caller does its own streaming
+    public byte[] encode(List<?> records) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            write(records.iterator(), outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private void write(Iterator<?> records, OutputStream outputStream) throws IOException {
+        //flushing after every record would send a chunk per record, the generator and servlet buffers decide when to write instead
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            while (records.hasNext()) {
+                writer.writeValue(generator, records.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
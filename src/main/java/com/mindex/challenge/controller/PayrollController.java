@@ -0,0 +1,44 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.DepartmentHeadcount;
+import com.mindex.challenge.data.PayrollSummary;
+import com.mindex.challenge.service.PayrollService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PayrollController {
+    private static final Logger LOG = LoggerFactory.getLogger(PayrollController.class);
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @GetMapping("/payroll/departments")
+    public List<PayrollSummary> departments() {
+        LOG.debug("Received payroll by department request");
+
+        return payrollService.departments();
+    }
+
+    @GetMapping("/payroll/headcount")
+    public List<DepartmentHeadcount> headcounts() {
+        LOG.debug("Received headcount by department request");
+
+        return payrollService.headcounts();
+    }
+
+    @GetMapping("/payroll/managers/{id}")
+    public List<PayrollSummary> managerSubtree(@PathVariable String id) {
+        LOG.debug("Received payroll subtree request for id [{}]", id);
+
+        return payrollService.managerSubtree(id);
+    }
+}
@@ -0,0 +1,235 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.InvalidRequestException;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Handlers behind {@link ReactiveEmployeeRoutes}, one per {@link EmployeeController} endpoint.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEmployeeHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEmployeeHandler.class);
+
+    private static final ParameterizedTypeReference<List<Employee>> EMPLOYEE_LIST = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<Compensation>> COMPENSATION_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    //records encoded per response chunk, a flush per record would cost a network write each
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
+    @Autowired
+    private ReactiveEmployeeService employeeService;
+
+    @Autowired
+    private NdjsonWriter ndjsonWriter;
+
+    @Autowired
+    private EntityTags entityTags;
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return request.bodyToMono(Employee.class)
+                .doOnNext(employee -> LOG.debug("Received employee create request for [{}]", employee))
+                .flatMap(employeeService::create)
+                .flatMap(ReactiveEmployeeHandler::ok);
+    }
+
+    public Mono<ServerResponse> createBatch(ServerRequest request) {
+        return request.bodyToMono(EMPLOYEE_LIST)
+                .doOnNext(employees -> LOG.debug("Received employee batch create request for [{}] employees", employees.size()))
+                .flatMap(employeeService::createBatch)
+                .flatMap(ReactiveEmployeeHandler::ok);
+    }
+
+    public Mono<ServerResponse> read(ServerRequest request) {
+        String id = request.pathVariable("id");
+        LOG.debug("Received employee read request for id [{}]", id);
+
+        //answered with 304 and no body when the client already has this version
+        return employeeService.read(id).flatMap(employee -> {
+            String eTag = entityTags.employee(employee);
+            return request.checkNotModified(eTag).switchIfEmpty(Mono.defer(() -> revalidated(eTag, employee)));
+        });
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        String id = request.pathVariable("id");
+
+        return request.bodyToMono(Employee.class)
+                .doOnNext(employee -> {
+                    LOG.debug("Received employee update request for id [{}] and employee [{}]", id, employee);
+                    employee.setEmployeeId(id);
+                })
+                .flatMap(employeeService::update)
+                .flatMap(ReactiveEmployeeHandler::ok)
+                .onErrorResume(OptimisticLockingFailureException.class, ReactiveEmployeeHandler::conflict);
+    }
+
+    public Mono<ServerResponse> reports(ServerRequest request) {
+        String id = request.pathVariable("id");
+        LOG.debug("Received employee reporting request for id [{}]", id);
+
+        boolean countOnly = request.queryParam("countOnly").map(Boolean::parseBoolean).orElse(false);
+        Set<String> fields = fields(request);
+
+        //nothing in the tree has been written since the client's copy, so it is not even read
+        return queryParam(request, "depth", Integer::valueOf).flatMap(depth -> employeeService.reportsVersion(id).flatMap(reportsVersion -> {
+            String eTag = entityTags.reports(reportsVersion);
+            return request.checkNotModified(eTag).switchIfEmpty(Mono.defer(() -> employeeService.reports(id, depth.orElse(null), fields, countOnly, reportsVersion)
+                    .flatMap(reportingStructure -> revalidated(eTag, reportingStructure))));
+        })).onErrorResume(InvalidRequestException.class, ReactiveEmployeeHandler::badRequest);
+    }
+
+    public Mono<ServerResponse> submitCompensation(ServerRequest request) {
+        String id = request.pathVariable("id");
+        LOG.debug("Received compensation submit request for id [{}]", id);
+
+        return request.bodyToMono(Compensation.class)
+                .flatMap(compensation -> employeeService.submitCompensation(id, compensation))
+                .flatMap(ReactiveEmployeeHandler::ok);
+    }
+
+    public Mono<ServerResponse> submitCompensationBatch(ServerRequest request) {
+        return request.bodyToMono(COMPENSATION_LIST)
+                .doOnNext(compensations -> LOG.debug("Received compensation batch submit request for [{}] employees", compensations.size()))
+                .flatMap(employeeService::submitCompensationBatch)
+                .flatMap(ReactiveEmployeeHandler::ok);
+    }
+
+    public Mono<ServerResponse> readCompensation(ServerRequest request) {
+        String id = request.pathVariable("id");
+
+        return queryParam(request, "asOf", LocalDate::parse).flatMap(asOf -> {
+            LOG.debug("Received compensation read request for id [{}] as of [{}]", id, asOf.orElse(null));
+
+            return asOf.map(date -> employeeService.readCompensationAsOf(id, date)).orElseGet(() -> employeeService.readCompensation(id))
+                    .flatMap(ReactiveEmployeeHandler::ok);
+        }).onErrorResume(InvalidRequestException.class, ReactiveEmployeeHandler::badRequest);
+    }
+
+    public Mono<ServerResponse> managers(ServerRequest request) {
+        String id = request.pathVariable("id");
+        LOG.debug("Received chain of command request for id [{}]", id);
+
+        return employeeService.managers(id).collectList().flatMap(ReactiveEmployeeHandler::ok);
+    }
+
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String department = request.queryParam("department").orElse(null);
+        String position = request.queryParam("position").orElse(null);
+        String q = request.queryParam("q").orElse(null);
+        LOG.debug("Received employee search request for department [{}], position [{}] and name [{}]", department, position, q);
+
+        return queryParam(request, "limit", Integer::valueOf)
+                .flatMap(limit -> employeeService.search(department, position, q, request.queryParam("after").orElse(null), limit.orElse(null)))
+                .flatMap(ReactiveEmployeeHandler::ok)
+                .onErrorResume(InvalidRequestException.class, ReactiveEmployeeHandler::badRequest);
+    }
+
+    public Mono<ServerResponse> readCompensationHistory(ServerRequest request) {
+        String id = request.pathVariable("id");
+        LOG.debug("Received compensation history request for id [{}]", id);
+
+        return employeeService.readCompensationHistory(id).collectList().flatMap(ReactiveEmployeeHandler::ok);
+    }
+
+    public Mono<ServerResponse> events(ServerRequest request) {
+        return Mono.zip(queryParam(request, "since", Long::valueOf), queryParam(request, "limit", Integer::valueOf)).flatMap(params -> {
+            LOG.debug("Received change event request since [{}]", params.getT1().orElse(null));
+
+            return employeeService.events(params.getT1().orElse(null), params.getT2().orElse(null)).collectList();
+        }).flatMap(ReactiveEmployeeHandler::ok).onErrorResume(InvalidRequestException.class, ReactiveEmployeeHandler::badRequest);
+    }
+
+    public Mono<ServerResponse> exportEmployees(ServerRequest request) {
+        LOG.debug("Received employee export request");
+
+        return ndjson(employeeService.exportEmployees());
+    }
+
+    public Mono<ServerResponse> exportCompensation(ServerRequest request) {
+        LOG.debug("Received compensation export request");
+
+        return ndjson(employeeService.exportCompensation());
+    }
+
+    //chunks are only encoded as the client's demand reaches back to the cursor, so a slow reader slows the database reads
+    private Mono<ServerResponse> ndjson(Flux<?> records) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).build((exchange, context) -> exchange.getResponse().writeWith(
+                records.buffer(EXPORT_CHUNK_SIZE)
+                        .map(chunk -> exchange.getResponse().bufferFactory().wrap(ndjsonWriter.encode(chunk)))));
+    }
+
+    //accepted repeated or comma separated, the same as the servlet binding
+    private static Set<String> fields(ServerRequest request) {
+        List<String> values = request.queryParams().getOrDefault("fields", List.of());
+        if (values.isEmpty()) {
+            return null;
+        }
+
+        Set<String> fields = new LinkedHashSet<>();
+        for (String value : values) {
+            fields.addAll(Arrays.asList(value.split(",")));
+        }
+        return fields;
+    }
+
+    //parsed when subscribed, a value that does not parse is the client's mistake the same as in the servlet binding
+    private static <T> Mono<Optional<T>> queryParam(ServerRequest request, String name, Function<String, T> parser) {
+        return Mono.fromCallable(() -> {
+            Optional<String> value = request.queryParam(name);
+            try {
+                return value.map(parser);
+            } catch (RuntimeException e) {
+                throw new InvalidRequestException("Invalid " + name + ": " + value.get());
+            }
+        });
+    }
+
+    private static Mono<ServerResponse> ok(Object body) {
+        return ServerResponse.ok().bodyValue(body);
+    }
+
+    //clients may keep the body but have to check it is current, by sending the tag back
+    private static Mono<ServerResponse> revalidated(String eTag, Object body) {
+        return ServerResponse.ok().eTag(eTag).cacheControl(CacheControl.noCache()).bodyValue(body);
+    }
+
+    //a write carrying a stale version lost the race, tell the client to re-read instead of returning a server error
+    private static Mono<ServerResponse> conflict(OptimisticLockingFailureException e) {
+        LOG.debug("Rejected stale write: {}", e.getMessage());
+
+        return ServerResponse.status(HttpStatus.CONFLICT).bodyValue(e.getMessage());
+    }
+
+    private static Mono<ServerResponse> badRequest(InvalidRequestException e) {
+        LOG.debug("Rejected request: {}", e.getMessage());
+
+        return ServerResponse.status(HttpStatus.BAD_REQUEST).bodyValue(e.getMessage());
+    }
+}
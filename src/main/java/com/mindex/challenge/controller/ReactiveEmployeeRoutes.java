@@ -0,0 +1,39 @@
+package com.mindex.challenge.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * The {@link EmployeeController} endpoints on WebFlux, served when the application runs as a reactive web application
+ * (the "reactive" profile). Each request is handled on a small number of event loop threads instead of holding a servlet
+ * thread while the database works.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEmployeeRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> employeeRoutes(ReactiveEmployeeHandler handler) {
+        return RouterFunctions.route()
+                .GET("/employees/export", handler::exportEmployees)
+                //ahead of /compensation/{id}, which would otherwise take "export" as an ID
+                .GET("/compensation/export", handler::exportCompensation)
+                .POST("/employee", handler::create)
+                .POST("/employees:batch", handler::createBatch)
+                .GET("/employee/{id}", handler::read)
+                .PUT("/employee/{id}", handler::update)
+                .GET("/employee/{id}/managers", handler::managers)
+                .GET("/employees", handler::search)
+                .GET("/reporting/{id}", handler::reports)
+                .POST("/submit-compensation/{id}", handler::submitCompensation)
+                .POST("/compensation:batch", handler::submitCompensationBatch)
+                .GET("/compensation/{id}", handler::readCompensation)
+                .GET("/compensation/{id}/history", handler::readCompensationHistory)
+                .GET("/events", handler::events)
+                .build();
+    }
+}
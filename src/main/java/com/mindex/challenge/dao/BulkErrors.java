@@ -0,0 +1,37 @@
+package com.mindex.challenge.dao;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.BulkOperationException;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+final class BulkErrors {
+
+    private BulkErrors() {
+    }
+
+    //an unordered bulk write keeps going past failed operations and reports each one by its position in the batch
+    static Map<Integer, String> byIndex(BulkOperationException e) {
+        return byIndex(e.getErrors());
+    }
+
+    //reactive bulk writes surface the driver's exception untranslated
+    static Mono<Map<Integer, String>> byIndex(Mono<BulkWriteResult> execution) {
+        return execution
+                .<Map<Integer, String>>map(result -> Map.of())
+                .onErrorResume(BulkOperationException.class, e -> Mono.just(byIndex(e)))
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(byIndex(e.getWriteErrors())));
+    }
+
+    private static Map<Integer, String> byIndex(Iterable<BulkWriteError> bulkWriteErrors) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (BulkWriteError error : bulkWriteErrors) {
+            errors.put(error.getIndex(), error.getMessage());
+        }
+        return errors;
+    }
+}
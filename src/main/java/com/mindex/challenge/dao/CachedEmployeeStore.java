@@ -0,0 +1,254 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Write-through cache of the employee collection. It is not a storage engine of its own: MongoDB stays the store of
+ * record for every write and for compensation, and only employee lookups are answered from an {@link EmployeeTable}
+ * in this JVM, with no document encoding and no round trip to a server. The directory search still goes to the
+ * database, which has the indexes to page through it in order.
+ *
+ * The table is filled from the database on start. Writes go through to the repository first and are only applied to
+ * the table once the database has accepted them, so the aggregations and exports that query MongoDB see the same
+ * employees. Concurrent writes to one employee can reach the table in a different order than the database applied
+ * them, so the table never replaces an employee with an older version of it. Employees are mutable and copied on the
+ * way in and on the way out, so a caller that changes the object it got back does not change what the table holds.
+ */
+public class CachedEmployeeStore implements EmployeeStore {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final EmployeeTable table = new EmployeeTable();
+
+    public CachedEmployeeStore(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    /**
+     * Fills the table with the employees already in the database, which a data directory restores on start.
+     */
+    public void load() {
+        List<Employee> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        try (Stream<Employee> employees = employeeRepository.streamAllBy()) {
+            Iterator<Employee> iterator = employees.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    put(batch);
+                    batch.clear();
+                }
+            }
+        }
+        put(batch);
+    }
+
+    @Override
+    public Employee insert(Employee employee) {
+        Employee inserted = employeeRepository.insert(employee);
+        put(List.of(inserted));
+        return inserted;
+    }
+
+    @Override
+    public List<Employee> insert(List<Employee> employees) {
+        List<Employee> inserted = employeeRepository.insert(employees);
+        put(inserted);
+        return inserted;
+    }
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Employee> employees) {
+        Map<Integer, String> errors = employeeRepository.bulkInsert(employees);
+
+        List<Employee> inserted = new ArrayList<>(employees.size());
+        for (int i = 0; i < employees.size(); i++) {
+            if (!errors.containsKey(i)) {
+                inserted.add(employees.get(i));
+            }
+        }
+        put(inserted);
+
+        return errors;
+    }
+
+    @Override
+    public Employee upsert(Employee employee) {
+        //the repository owns the version check, the table takes whatever it wrote
+        Employee updated = employeeRepository.upsert(employee);
+        put(List.of(updated));
+        return updated;
+    }
+
+    @Override
+    public Employee findByEmployeeId(String employeeId) {
+        if (employeeId == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            return copy(table.get(employeeId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Employee> findByEmployeeIdIn(Collection<String> employeeIds) {
+        List<Employee> employees = new ArrayList<>(employeeIds.size());
+
+        lock.readLock().lock();
+        try {
+            for (String employeeId : employeeIds) {
+                Employee employee = employeeId == null ? null : table.get(employeeId);
+                if (employee != null) {
+                    employees.add(copy(employee));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return employees;
+    }
+
+    @Override
+    public List<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields) {
+        List<Employee> employees = new ArrayList<>(employeeIds.size());
+
+        lock.readLock().lock();
+        try {
+            for (String employeeId : employeeIds) {
+                Employee employee = employeeId == null ? null : table.get(employeeId);
+                if (employee != null) {
+                    employees.add(project(employee, fields));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return employees;
+    }
+
+    //the table is a hash with no order to page through, the database answers from its directory indexes
+    @Override
+    public List<Employee> search(EmployeeSearch search) {
+        return employeeRepository.search(search);
+    }
+
+    @Override
+    public long count() {
+        return size();
+    }
+
+    @Override
+    public Stream<Employee> streamAllBy() {
+        Employee[] employees;
+
+        lock.readLock().lock();
+        try {
+            employees = table.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        //stored employees are never mutated, only replaced, so copying them outside the lock is safe
+        return Arrays.stream(employees).map(CachedEmployeeStore::copy);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(List<Employee> employees) {
+        List<Employee> copies = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            copies.add(copy(employee));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Employee copy : copies) {
+                if (!isOlder(copy, table.get(copy.getEmployeeId()))) {
+                    table.put(copy.getEmployeeId(), copy);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //every write bumps the version in the database, an employee without one is taken as it is
+    private static boolean isOlder(Employee employee, Employee stored) {
+        return stored != null && stored.getVersion() != null && employee.getVersion() != null
+                && employee.getVersion() <= stored.getVersion();
+    }
+
+    //the report IDs are copied into a list of their own, so changing the list of one copy leaves the others alone
+    static Employee copy(Employee employee) {
+        if (employee == null) {
+            return null;
+        }
+
+        Employee copy = new Employee();
+        copy.setEmployeeId(employee.getEmployeeId());
+        copy.setFirstName(employee.getFirstName());
+        copy.setLastName(employee.getLastName());
+        copy.setPosition(employee.getPosition());
+        copy.setDepartment(employee.getDepartment());
+        copy.setVersion(employee.getVersion());
+
+        if (employee.getDirectReports() != null) {
+            copy.setDirectReports(new ArrayList<>(employee.getDirectReports()));
+        }
+
+        return copy;
+    }
+
+    //the same fields the repository's projected query reads: the requested ones, the employee ID and the report IDs
+    static Employee project(Employee employee, Collection<String> fields) {
+        Employee projected = new Employee();
+        projected.setEmployeeId(employee.getEmployeeId());
+
+        if (fields.contains("firstName")) {
+            projected.setFirstName(employee.getFirstName());
+        }
+        if (fields.contains("lastName")) {
+            projected.setLastName(employee.getLastName());
+        }
+        if (fields.contains("position")) {
+            projected.setPosition(employee.getPosition());
+        }
+        if (fields.contains("department")) {
+            projected.setDepartment(employee.getDepartment());
+        }
+        if (fields.contains("version")) {
+            projected.setVersion(employee.getVersion());
+        }
+
+        if (employee.getDirectReports() != null) {
+            projected.setDirectReports(new ArrayList<>(employee.getDirectReports()));
+        }
+
+        return projected;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mindex.challenge.dao;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+
+/**
+ * Queries over the append-only compensation history, shared by the blocking and reactive repositories. Every one of
+ * them is answered by a range scan of the history index, (employeeCompensationId, effectiveDate desc, _id desc).
+ */
+final class CompensationHistory {
+    static final String EMPLOYEE_ID = "employeeCompensationId";
+    static final String EFFECTIVE_DATE = "effectiveDate";
+
+    //the index order, newest entry first within each employee, so the entry in effect is always the first one read
+    //_id breaks ties between entries for the same date in insertion order
+    static final Sort INDEX_ORDER = Sort.by(Sort.Order.asc(EMPLOYEE_ID), Sort.Order.desc(EFFECTIVE_DATE), Sort.Order.desc("_id"));
+
+    private CompensationHistory() {
+    }
+
+    static Query asOf(String employeeId, LocalDate asOf) {
+        return new Query(Criteria.where(EMPLOYEE_ID).is(employeeId).and(EFFECTIVE_DATE).lte(asOf))
+                .with(INDEX_ORDER)
+                .limit(1);
+    }
+
+    static Query history(String employeeId) {
+        return new Query(Criteria.where(EMPLOYEE_ID).is(employeeId)).with(INDEX_ORDER);
+    }
+}
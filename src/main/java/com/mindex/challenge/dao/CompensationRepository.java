@@ -1,11 +1,15 @@
 package com.mindex.challenge.dao;
 
 import com.mindex.challenge.data.Compensation;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
-public interface CompensationRepository extends MongoRepository<Compensation, String> {
-    Compensation findByEmployeeCompensationId(String employeeCompensationId);
+public interface CompensationRepository extends MongoRepository<Compensation, String>, CompensationRepositoryCustom {
     void deleteByEmployeeCompensationId(String employeeCompensationId);
+    @Meta(cursorBatchSize = 1000)
+    Stream<Compensation> streamAllBy();
 }
@@ -0,0 +1,26 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface CompensationRepositoryCustom {
+    /**
+     * Appends every compensation to the history with a single unordered bulk write, returning the error for each
+     * position that failed.
+     */
+    Map<Integer, String> bulkInsert(List<Compensation> compensations);
+
+    /**
+     * The compensation in effect for the employee on the given date, the entry with the latest effective date on or
+     * before it, or null if there is none. Of two entries with the same effective date the one inserted last wins.
+     */
+    Compensation findAsOf(String employeeId, LocalDate asOf);
+
+    /**
+     * Every compensation entry for the employee, newest effective date first.
+     */
+    List<Compensation> findHistory(String employeeId);
+}
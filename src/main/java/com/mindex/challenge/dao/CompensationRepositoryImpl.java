@@ -0,0 +1,44 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class CompensationRepositoryImpl implements CompensationRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Compensation> compensations) {
+        if (compensations.isEmpty()) {
+            return Map.of();
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Compensation.class);
+        bulkOperations.insert(compensations);
+
+        try {
+            bulkOperations.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            return BulkErrors.byIndex(e);
+        }
+    }
+
+    @Override
+    public Compensation findAsOf(String employeeId, LocalDate asOf) {
+        return mongoTemplate.findOne(CompensationHistory.asOf(employeeId, asOf), Compensation.class);
+    }
+
+    @Override
+    public List<Compensation> findHistory(String employeeId) {
+        return mongoTemplate.find(CompensationHistory.history(employeeId), Compensation.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mindex.challenge.dao;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded read-through cache in front of the employee store and the compensation repository.
+ *
+ * Entries expire after the configured TTL and are evicted by size, and every write through the service invalidates the
+ * entry it touched. Lookups that find nothing are not cached. Hit, miss and eviction counts are published as the
+ * cache.* metrics, tagged with cache=employees or cache=compensation.
+ */
+@Component
+public class EmployeeCache implements MeterBinder {
+
+    private final LoadingCache<String, Employee> employees;
+    private final LoadingCache<String, Compensation> compensation;
+
+    public EmployeeCache(EmployeeStore employeeStore,
+                         CompensationRepository compensationRepository,
+                         @Value("${challenge.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${challenge.cache.ttl:5m}") Duration ttl) {
+        this.employees = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Employee load(@NonNull String employeeId) {
+                        return employeeStore.findByEmployeeId(employeeId);
+                    }
+
+                    //the misses of a bulk lookup are fetched in one query instead of one each
+                    @Override
+                    public Map<String, Employee> loadAll(@NonNull Set<? extends String> employeeIds) {
+                        return employeeStore.findByEmployeeIdIn(Set.copyOf(employeeIds)).stream()
+                                .collect(Collectors.toMap(Employee::getEmployeeId, Function.identity(), (first, second) -> first));
+                    }
+                });
+        this.compensation = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                //the entry in effect today, a write evicts it and a future-dated entry takes over within one ttl of its date
+                .build(employeeId -> compensationRepository.findAsOf(employeeId, LocalDate.now()));
+    }
+
+    public Employee findEmployee(String employeeId) {
+        return employees.get(employeeId);
+    }
+
+    //the employees found, keyed by ID, the ones that do not exist are left out
+    public Map<String, Employee> findEmployees(Collection<String> employeeIds) {
+        return employees.getAll(employeeIds);
+    }
+
+    public Compensation findCompensation(String employeeId) {
+        return compensation.get(employeeId);
+    }
+
+    public void evictEmployee(String employeeId) {
+        employees.invalidate(employeeId);
+    }
+
+    public void evictCompensation(String employeeId) {
+        compensation.invalidate(employeeId);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, employees, "employees");
+        CaffeineCacheMetrics.monitor(registry, compensation, "compensation");
+    }
+}
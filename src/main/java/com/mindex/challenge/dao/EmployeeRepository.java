@@ -2,10 +2,21 @@ package com.mindex.challenge.dao;
 
 import com.mindex.challenge.data.Employee;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface EmployeeRepository extends MongoRepository<Employee, String> {
+public interface EmployeeRepository extends MongoRepository<Employee, String>, EmployeeRepositoryCustom {
     Employee findByEmployeeId(String employeeId);
+    List<Employee> findByEmployeeIdIn(Collection<String> employeeIds);
+    //the managers that list the employee as a direct report, normally at most one
+    List<Employee> findByDirectReports(String employeeId);
+    //the cursor fetches a bounded batch at a time, so streaming every employee never holds more than one batch in memory
+    @Meta(cursorBatchSize = 1000)
+    Stream<Employee> streamAllBy();
     void deleteByEmployeeId(String employeeId);
 }
@@ -0,0 +1,31 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface EmployeeRepositoryCustom {
+    /**
+     * Inserts the employees with a single unordered bulk write, returning the error for each position that failed.
+     */
+    Map<Integer, String> bulkInsert(List<Employee> employees);
+
+    /**
+     * Replaces or inserts the employee in a single atomic round trip. When the employee carries a version the write only
+     * applies to that version, and an OptimisticLockingFailureException is thrown if it has moved on.
+     */
+    Employee upsert(Employee employee);
+
+    /**
+     * Fetches the employees with only the given fields read from the database. The employee ID and the IDs of the
+     * direct reports are always read, since the report tree is assembled from them.
+     */
+    List<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields);
+
+    /**
+     * Reads one page of the directory, plus the first employee of the next page if there is one.
+     */
+    List<Employee> search(EmployeeSearch search);
+}
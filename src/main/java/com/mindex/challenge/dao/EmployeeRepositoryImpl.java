@@ -0,0 +1,86 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class EmployeeRepositoryImpl implements EmployeeRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Employee> employees) {
+        if (employees.isEmpty()) {
+            return Map.of();
+        }
+
+        initializeVersions(employees);
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        bulkOperations.insert(employees);
+
+        try {
+            bulkOperations.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            return BulkErrors.byIndex(e);
+        }
+    }
+
+    @Override
+    public Employee upsert(Employee employee) {
+        return VersionedUpsert.upsert(mongoTemplate, Employee.class, "employeeId", employee.getEmployeeId(), employee.getVersion(), updateOf(employee));
+    }
+
+    @Override
+    public List<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields) {
+        return mongoTemplate.find(projectedQuery(employeeIds, fields), Employee.class);
+    }
+
+    @Override
+    public List<Employee> search(EmployeeSearch search) {
+        return mongoTemplate.find(search.query(), Employee.class);
+    }
+
+    //shared with the reactive repository
+    static Query projectedQuery(Collection<String> employeeIds, Collection<String> fields) {
+        Query query = new Query(Criteria.where("employeeId").in(employeeIds));
+        query.fields().include("employeeId").include("directReports").exclude("_id");
+
+        for (String field : fields) {
+            //the direct report IDs are already included
+            if (!"directReports".equals(field) && !"employeeId".equals(field)) {
+                query.fields().include(field);
+            }
+        }
+        return query;
+    }
+
+    //a bulk insert leaves the version out, so each employee gets the first one insert would give it, shared with the reactive repository
+    static void initializeVersions(List<Employee> employees) {
+        for (Employee employee : employees) {
+            if (employee.getVersion() == null) {
+                employee.setVersion(0L);
+            }
+        }
+    }
+
+    //every field but the key and version, shared with the reactive repository
+    static Update updateOf(Employee employee) {
+        return new Update()
+                .set("firstName", employee.getFirstName())
+                .set("lastName", employee.getLastName())
+                .set("position", employee.getPosition())
+                .set("department", employee.getDepartment())
+                .set("directReports", employee.getDirectReports());
+    }
+}
@@ -0,0 +1,146 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.InvalidRequestException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of the employee directory, in last name then employee ID order. The page after another starts after the
+ * last employee on it, named by an opaque cursor, so reading it is a range scan of the directory indexes from that
+ * employee on and costs the same however deep into the directory it is.
+ */
+public final class EmployeeSearch {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    static final String LAST_NAME = "lastName";
+    static final String EMPLOYEE_ID = "employeeId";
+
+    //the order of the (lastName, employeeId) index and of the (department|position, lastName, employeeId) indexes
+    //once the department or position is fixed
+    static final Sort DIRECTORY_ORDER = Sort.by(Sort.Order.asc(LAST_NAME), Sort.Order.asc(EMPLOYEE_ID));
+
+    //sorts after every character a name is expected to continue with, so a prefix is a range of the index
+    private static final char PREFIX_END = '\uffff';
+    //separates the last name from the employee ID in a cursor, and is left out when the last name is null
+    private static final char CURSOR_SEPARATOR = '\u0000';
+
+    private final String department;
+    private final String position;
+    private final String namePrefix;
+    private final String afterLastName;
+    private final String afterEmployeeId;
+    private final int limit;
+
+    private EmployeeSearch(String department, String position, String namePrefix, String afterLastName,
+                           String afterEmployeeId, int limit) {
+        this.department = department;
+        this.position = position;
+        this.namePrefix = namePrefix;
+        this.afterLastName = afterLastName;
+        this.afterEmployeeId = afterEmployeeId;
+        this.limit = limit;
+    }
+
+    /**
+     * @param namePrefix start of the last name, case sensitive
+     * @param after cursor of the last employee on the previous page, or null for the first page
+     * @param limit page size, {@link #DEFAULT_LIMIT} when null and at most {@link #MAX_LIMIT}
+     */
+    public static EmployeeSearch of(String department, String position, String namePrefix, String after, Integer limit) {
+        if (limit == null) {
+            limit = DEFAULT_LIMIT;
+        } else if (limit < 1) {
+            throw new InvalidRequestException("Invalid limit: " + limit);
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+
+        if (after == null || after.isEmpty()) {
+            return new EmployeeSearch(blankToNull(department), blankToNull(position), blankToNull(namePrefix), null, null, limit);
+        }
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor: " + after);
+        }
+
+        int separator = decoded.lastIndexOf(CURSOR_SEPARATOR);
+        String afterLastName = separator < 0 ? null : decoded.substring(0, separator);
+        String afterEmployeeId = decoded.substring(separator + 1);
+        if (afterEmployeeId.isEmpty()) {
+            throw new InvalidRequestException("Invalid cursor: " + after);
+        }
+
+        return new EmployeeSearch(blankToNull(department), blankToNull(position), blankToNull(namePrefix), afterLastName, afterEmployeeId, limit);
+    }
+
+    /**
+     * The cursor that continues a search after the given employee.
+     */
+    public static String cursorAfter(Employee employee) {
+        String key = employee.getLastName() == null
+                ? employee.getEmployeeId()
+                : employee.getLastName() + CURSOR_SEPARATOR + employee.getEmployeeId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The page out of the employees {@link #query()} returned, with the cursor of its last employee if there are more.
+     */
+    public EmployeePage page(List<Employee> employees) {
+        if (employees.size() <= limit) {
+            return new EmployeePage(employees, null);
+        }
+
+        List<Employee> page = employees.subList(0, limit);
+        return new EmployeePage(page, cursorAfter(page.get(limit - 1)));
+    }
+
+    //one more than the page, so the caller can tell whether there is a next page without a count
+    //the conditions stay at the top level of the query rather than under an $and, where an index would not see them
+    Query query() {
+        Criteria criteria = new Criteria();
+        if (department != null) {
+            criteria.and("department").is(department);
+        }
+        if (position != null) {
+            criteria.and("position").is(position);
+        }
+
+        //the bounds of the index range, the exact keyset condition is checked on each employee in it
+        String from = namePrefix;
+        if (afterLastName != null && (from == null || afterLastName.compareTo(from) > 0)) {
+            from = afterLastName;
+        }
+        if (from != null) {
+            Criteria lastName = criteria.and(LAST_NAME).gte(from);
+            if (namePrefix != null) {
+                lastName.lt(namePrefix + PREFIX_END);
+            }
+        }
+
+        if (afterEmployeeId != null) {
+            //a null last name sorts before every string, so after one come the rest of the nulls and then every name
+            criteria.orOperator(afterLastName == null
+                    ? List.of(Criteria.where(LAST_NAME).is(null).and(EMPLOYEE_ID).gt(afterEmployeeId),
+                            Criteria.where(LAST_NAME).gte(""))
+                    : List.of(Criteria.where(LAST_NAME).gt(afterLastName),
+                            Criteria.where(LAST_NAME).is(afterLastName).and(EMPLOYEE_ID).gt(afterEmployeeId)));
+        }
+
+        return new Query(criteria).with(DIRECTORY_ORDER).limit(limit + 1);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
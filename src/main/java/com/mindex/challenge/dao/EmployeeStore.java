@@ -0,0 +1,54 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Storage SPI behind the blocking employee reads and writes. The implementation is chosen with challenge.storage.mode:
+ * external and embedded go through {@link EmployeeRepository} to a MongoDB server, cached writes through to the embedded
+ * one and serves lookups from an in-memory copy without decoding a document. The methods mirror the repository's, with
+ * the same semantics.
+ */
+public interface EmployeeStore {
+    Employee insert(Employee employee);
+
+    /**
+     * Inserts the employees in order, failing on the first one that cannot be written.
+     */
+    List<Employee> insert(List<Employee> employees);
+
+    /**
+     * @see EmployeeRepositoryCustom#bulkInsert(List)
+     */
+    Map<Integer, String> bulkInsert(List<Employee> employees);
+
+    /**
+     * @see EmployeeRepositoryCustom#upsert(Employee)
+     */
+    Employee upsert(Employee employee);
+
+    Employee findByEmployeeId(String employeeId);
+
+    List<Employee> findByEmployeeIdIn(Collection<String> employeeIds);
+
+    /**
+     * @see EmployeeRepositoryCustom#findByEmployeeIdIn(Collection, Collection)
+     */
+    List<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields);
+
+    /**
+     * @see EmployeeRepositoryCustom#search(EmployeeSearch)
+     */
+    List<Employee> search(EmployeeSearch search);
+
+    long count();
+
+    /**
+     * Streams every employee, the stream must be closed once consumed.
+     */
+    Stream<Employee> streamAllBy();
+}
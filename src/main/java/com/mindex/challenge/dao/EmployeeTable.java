@@ -0,0 +1,102 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Open addressing hash table from employee ID to employee, with linear probing over parallel arrays.
+ *
+ * The spread hash of every key is kept next to it, so a probe compares ints and only calls equals on a likely match.
+ * Entries are never removed, which keeps probing simple. Not thread safe, the store guards it with a lock.
+ */
+final class EmployeeTable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private Employee[] values = new Employee[INITIAL_CAPACITY];
+    private int size;
+
+    Employee get(String employeeId) {
+        int hash = hash(employeeId);
+        int mask = keys.length - 1;
+
+        for (int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && keys[slot].equals(employeeId)) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    void put(String employeeId, Employee employee) {
+        //kept at most half full, so probe sequences stay short
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+
+        int hash = hash(employeeId);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(employeeId)) {
+                values[slot] = employee;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = employeeId;
+        hashes[slot] = hash;
+        values[slot] = employee;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    //the stored employees in slot order
+    Employee[] values() {
+        Employee[] employees = new Employee[size];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                employees[count++] = values[slot];
+            }
+        }
+        return employees;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Employee[] oldValues = values;
+
+        int capacity = oldKeys.length * 2;
+        int mask = capacity - 1;
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new Employee[capacity];
+
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldKeys[oldSlot] == null) {
+                continue;
+            }
+
+            int slot = oldHashes[oldSlot] & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            hashes[slot] = oldHashes[oldSlot];
+            values[slot] = oldValues[oldSlot];
+        }
+    }
+
+    //UUIDs hash well on their own, the multiply spreads sequential IDs over the low bits the mask keeps
+    private static int hash(String employeeId) {
+        int hash = employeeId.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,70 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Employee store backed by the MongoDB server the client is connected to, the embedded one or an external one.
+ */
+public class MongoEmployeeStore implements EmployeeStore {
+
+    private final EmployeeRepository employeeRepository;
+
+    public MongoEmployeeStore(EmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    @Override
+    public Employee insert(Employee employee) {
+        return employeeRepository.insert(employee);
+    }
+
+    @Override
+    public List<Employee> insert(List<Employee> employees) {
+        return employeeRepository.insert(employees);
+    }
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Employee> employees) {
+        return employeeRepository.bulkInsert(employees);
+    }
+
+    @Override
+    public Employee upsert(Employee employee) {
+        return employeeRepository.upsert(employee);
+    }
+
+    @Override
+    public Employee findByEmployeeId(String employeeId) {
+        return employeeRepository.findByEmployeeId(employeeId);
+    }
+
+    @Override
+    public List<Employee> findByEmployeeIdIn(Collection<String> employeeIds) {
+        return employeeRepository.findByEmployeeIdIn(employeeIds);
+    }
+
+    @Override
+    public List<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields) {
+        return employeeRepository.findByEmployeeIdIn(employeeIds, fields);
+    }
+
+    @Override
+    public List<Employee> search(EmployeeSearch search) {
+        return employeeRepository.search(search);
+    }
+
+    @Override
+    public long count() {
+        return employeeRepository.count();
+    }
+
+    @Override
+    public Stream<Employee> streamAllBy() {
+        return employeeRepository.streamAllBy();
+    }
+}
@@ -0,0 +1,9 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveCompensationRepository extends ReactiveMongoRepository<Compensation, String>, ReactiveCompensationRepositoryCustom {
+}
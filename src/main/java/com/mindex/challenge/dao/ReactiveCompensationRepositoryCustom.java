@@ -0,0 +1,26 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface ReactiveCompensationRepositoryCustom {
+    /**
+     * Non-blocking counterpart of {@link CompensationRepositoryCustom#bulkInsert(List)}.
+     */
+    Mono<Map<Integer, String>> bulkInsert(List<Compensation> compensations);
+
+    /**
+     * Non-blocking counterpart of {@link CompensationRepositoryCustom#findAsOf(String, LocalDate)}.
+     */
+    Mono<Compensation> findAsOf(String employeeId, LocalDate asOf);
+
+    /**
+     * Non-blocking counterpart of {@link CompensationRepositoryCustom#findHistory(String)}.
+     */
+    Flux<Compensation> findHistory(String employeeId);
+}
@@ -0,0 +1,41 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class ReactiveCompensationRepositoryImpl implements ReactiveCompensationRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Map<Integer, String>> bulkInsert(List<Compensation> compensations) {
+        if (compensations.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Compensation.class);
+        bulkOperations.insert(compensations);
+
+        return BulkErrors.byIndex(bulkOperations.execute());
+    }
+
+    @Override
+    public Mono<Compensation> findAsOf(String employeeId, LocalDate asOf) {
+        return reactiveMongoTemplate.findOne(CompensationHistory.asOf(employeeId, asOf), Compensation.class);
+    }
+
+    @Override
+    public Flux<Compensation> findHistory(String employeeId) {
+        return reactiveMongoTemplate.find(CompensationHistory.history(employeeId), Compensation.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ReactiveEmployeeRepositoryCustom {
+    /**
+     * Non-blocking counterpart of {@link EmployeeRepositoryCustom#bulkInsert(List)}.
+     */
+    Mono<Map<Integer, String>> bulkInsert(List<Employee> employees);
+
+    /**
+     * Non-blocking counterpart of {@link EmployeeRepositoryCustom#upsert(Employee)}.
+     */
+    Mono<Employee> upsert(Employee employee);
+
+    /**
+     * Non-blocking counterpart of {@link EmployeeRepositoryCustom#findByEmployeeIdIn(Collection, Collection)}.
+     */
+    Flux<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields);
+
+    /**
+     * Non-blocking counterpart of {@link EmployeeRepositoryCustom#search(EmployeeSearch)}.
+     */
+    Flux<Employee> search(EmployeeSearch search);
+}
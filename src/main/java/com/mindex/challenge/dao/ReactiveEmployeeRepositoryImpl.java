@@ -0,0 +1,47 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class ReactiveEmployeeRepositoryImpl implements ReactiveEmployeeRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Map<Integer, String>> bulkInsert(List<Employee> employees) {
+        if (employees.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        EmployeeRepositoryImpl.initializeVersions(employees);
+        ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        bulkOperations.insert(employees);
+
+        return BulkErrors.byIndex(bulkOperations.execute());
+    }
+
+    @Override
+    public Mono<Employee> upsert(Employee employee) {
+        return VersionedUpsert.upsert(reactiveMongoTemplate, Employee.class, "employeeId", employee.getEmployeeId(), employee.getVersion(), EmployeeRepositoryImpl.updateOf(employee));
+    }
+
+    @Override
+    public Flux<Employee> findByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields) {
+        return reactiveMongoTemplate.find(EmployeeRepositoryImpl.projectedQuery(employeeIds, fields), Employee.class);
+    }
+
+    @Override
+    public Flux<Employee> search(EmployeeSearch search) {
+        return reactiveMongoTemplate.find(search.query(), Employee.class);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mindex.challenge.dao;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+final class VersionedUpsert {
+    private static final String VERSION = "version";
+    private static final FindAndModifyOptions OPTIONS = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+    private VersionedUpsert() {
+    }
+
+    /**
+     * Applies the update to the document with the given key through one findAndModify with upsert, bumping its version.
+     *
+     * The unique index on the key turns a stale version into a duplicate key error, because the upsert then tries to
+     * insert a second document with the same key. Without an expected version the same error can only mean a concurrent
+     * upsert inserted the document first, so the write is retried once as a plain update.
+     */
+    static <T> T upsert(MongoTemplate mongoTemplate, Class<T> type, String keyField, String key, Long expectedVersion, Update update) {
+        Query query = query(keyField, key, expectedVersion);
+        update.inc(VERSION, 1);
+
+        try {
+            return mongoTemplate.findAndModify(query, update, OPTIONS, type);
+        } catch (DuplicateKeyException e) {
+            if (expectedVersion != null) {
+                throw conflict(type, key, expectedVersion, e);
+            }
+
+            return mongoTemplate.findAndModify(query, update, OPTIONS, type);
+        }
+    }
+
+    //same write as above without blocking the caller, the retry or conflict is decided when the error signal arrives
+    static <T> Mono<T> upsert(ReactiveMongoTemplate reactiveMongoTemplate, Class<T> type, String keyField, String key, Long expectedVersion, Update update) {
+        Query query = query(keyField, key, expectedVersion);
+        update.inc(VERSION, 1);
+
+        return reactiveMongoTemplate.findAndModify(query, update, OPTIONS, type)
+                .onErrorResume(DuplicateKeyException.class, e -> expectedVersion != null
+                        ? Mono.error(conflict(type, key, expectedVersion, e))
+                        : reactiveMongoTemplate.findAndModify(query, update, OPTIONS, type));
+    }
+
+    private static Query query(String keyField, String key, Long expectedVersion) {
+        Query query = new Query(Criteria.where(keyField).is(key));
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where(VERSION).is(expectedVersion));
+        }
+        return query;
+    }
+
+    private static OptimisticLockingFailureException conflict(Class<?> type, String key, Long expectedVersion, DuplicateKeyException cause) {
+        return new OptimisticLockingFailureException(String.format("%s [%s] has been modified since version %d", type.getSimpleName(), key, expectedVersion), cause);
+    }
+}
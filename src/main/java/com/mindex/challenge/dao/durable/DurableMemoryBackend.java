@@ -0,0 +1,269 @@
+package com.mindex.challenge.dao.durable;
+
+import com.mindex.challenge.dao.embedded.IndexedMemoryBackend;
+import de.bwaldvogel.mongo.MongoCollection;
+import de.bwaldvogel.mongo.MongoDatabase;
+import de.bwaldvogel.mongo.backend.memory.MemoryDatabase;
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.exception.MongoServerException;
+import de.bwaldvogel.mongo.oplog.NoopOplog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Memory backend for the embedded server that keeps its data in a directory across restarts.
+ *
+ * Every write is appended to a write-ahead log before it is applied. On a clean shutdown, and in the background
+ * whenever the log has grown past a size, the collections are written to a snapshot and the log is emptied. On start
+ * the snapshot is read back through a memory mapping and the log is replayed over it, so a crash loses no write the
+ * server acknowledged and never has more than that much log to replay. Indexes are not stored, MongoIndexes creates
+ * them again once the client connects.
+ *
+ * A snapshot only holds the lock of every collection while it cuts the log, long enough to note where the log ends
+ * and how many positions each collection has. It then reads the collections a batch at a time, and every write made
+ * meanwhile is logged after the cut. Each logged write puts a whole document or deletes one, so replaying those over
+ * the snapshot ends with the same documents whichever of them it already holds. Once the snapshot is on disk only the
+ * records before the cut are dropped.
+ */
+public class DurableMemoryBackend extends IndexedMemoryBackend {
+    private static final Logger LOG = LoggerFactory.getLogger(DurableMemoryBackend.class);
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String LOG_FILE = "wal.log";
+    static final long DEFAULT_SNAPSHOT_LOG_BYTES = 64L * 1024 * 1024;
+
+    private final Path directory;
+    private final long snapshotLogBytes;
+    private final Map<String, DurableMemoryCollection> collections = new ConcurrentHashMap<>();
+
+    //held while the log is cut, and while collections are added or dropped so the cut sees all or none of it
+    private final Object snapshotLock = new Object();
+    //held while a snapshot is written, so the one on close never overlaps one in the background
+    private final Object compactionLock = new Object();
+    //the write that takes the log past snapshotLogBytes only hands the snapshot over, so no write waits for one
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+
+    //null while the directory is being read back, so restoring does not log the writes again
+    private volatile WriteAheadLog writeAheadLog;
+
+    private DurableMemoryBackend(Path directory, long snapshotLogBytes) {
+        this.directory = directory;
+        this.snapshotLogBytes = snapshotLogBytes;
+    }
+
+    public static DurableMemoryBackend open(Path directory, boolean fsync) throws IOException {
+        return open(directory, fsync, DEFAULT_SNAPSHOT_LOG_BYTES);
+    }
+
+    public static DurableMemoryBackend open(Path directory, boolean fsync, long snapshotLogBytes) throws IOException {
+        Files.createDirectories(directory);
+        DurableMemoryBackend backend = new DurableMemoryBackend(directory, snapshotLogBytes);
+
+        long start = System.nanoTime();
+        long restored = Snapshot.read(directory.resolve(SNAPSHOT_FILE), backend::collection);
+        long[] replayed = new long[1];
+        long logLength = WriteAheadLog.replay(directory.resolve(LOG_FILE), record -> {
+            backend.replay(record);
+            replayed[0]++;
+        });
+        backend.writeAheadLog = WriteAheadLog.open(directory.resolve(LOG_FILE), logLength, fsync);
+
+        LOG.info("Restored [{}] documents and replayed [{}] logged writes from [{}] in [{}] ms",
+                restored, replayed[0], directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return backend;
+    }
+
+    @Override
+    public MemoryDatabase openOrCreateDatabase(String databaseName) {
+        return new DurableMemoryDatabase(databaseName, getCursorRegistry(), this);
+    }
+
+    //called by MongoServer once every client connection is closed, so no write can race the snapshot
+    @Override
+    public void close() {
+        snapshotWriter.shutdown();
+
+        synchronized (compactionLock) {
+            WriteAheadLog log = writeAheadLog;
+            writeAheadLog = null;
+
+            if (log != null) {
+                try {
+                    if (!log.isEmpty()) {
+                        snapshot(log);
+                    }
+                } catch (IOException e) {
+                    //nothing is lost, the log still holds every write and is replayed on the next start
+                    LOG.error("Failed to write a snapshot to [{}]", directory, e);
+                } finally {
+                    try {
+                        log.close();
+                    } catch (IOException e) {
+                        LOG.warn("Failed to close the write-ahead log in [{}]", directory, e);
+                    }
+                }
+            }
+        }
+
+        super.close();
+    }
+
+    void register(DurableMemoryCollection collection) {
+        synchronized (snapshotLock) {
+            collections.put(namespace(collection.getDatabaseName(), collection.getCollectionName()), collection);
+        }
+    }
+
+    void collectionDropped(String databaseName, String collectionName) {
+        synchronized (snapshotLock) {
+            collections.remove(namespace(databaseName, collectionName));
+            log(new Document("op", "drop").append("db", databaseName).append("c", collectionName));
+        }
+    }
+
+    void logPut(String databaseName, String collectionName, Document document) {
+        log(new Document("op", "put").append("db", databaseName).append("c", collectionName).append("doc", document));
+    }
+
+    void logDelete(String databaseName, String collectionName, Object id) {
+        log(new Document("op", "delete").append("db", databaseName).append("c", collectionName).append("id", id));
+    }
+
+    private void log(Document record) {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            return;
+        }
+
+        long logLength;
+        try {
+            logLength = log.append(record);
+        } catch (IOException e) {
+            //failing the write is the only way to keep an unlogged change from being acknowledged
+            throw new MongoServerException("Failed to write to the write-ahead log in " + directory, e);
+        }
+
+        if (logLength >= snapshotLogBytes && snapshotQueued.compareAndSet(false, true)) {
+            snapshotWriter.execute(this::compact);
+        }
+    }
+
+    //runs on the snapshot writer, never on a thread that holds a collection's lock
+    private void compact() {
+        snapshotQueued.set(false);
+
+        synchronized (compactionLock) {
+            //closed meanwhile, close has written a snapshot of its own
+            WriteAheadLog log = writeAheadLog;
+            if (log == null) {
+                return;
+            }
+
+            try {
+                snapshot(log);
+            } catch (IOException e) {
+                //the log keeps every write, the next write past the limit tries again
+                LOG.error("Failed to write a snapshot to [{}]", directory, e);
+            }
+        }
+    }
+
+    private void snapshot(WriteAheadLog log) throws IOException {
+        long start = System.nanoTime();
+        List<DurableMemoryCollection> snapshotted;
+        int[] positionCounts;
+        long logLength;
+        synchronized (snapshotLock) {
+            snapshotted = new ArrayList<>(collections.values());
+            positionCounts = new int[snapshotted.size()];
+            try {
+                logLength = cut(snapshotted, 0, positionCounts, log);
+            } catch (IOException e) {
+                endSnapshot(snapshotted);
+                throw e;
+            }
+        }
+
+        try {
+            Snapshot.write(directory.resolve(SNAPSHOT_FILE), snapshotted, positionCounts);
+        } finally {
+            endSnapshot(snapshotted);
+        }
+        log.discardBefore(logLength);
+
+        LOG.info("Wrote snapshot of [{}] collections to [{}] in [{}] ms",
+                snapshotted.size(), directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    //takes the lock of one collection after another and reads where the log ends once it holds all of them
+    //a write logs and applies itself under its collection's lock, so every write logged before the cut is applied
+    private long cut(List<DurableMemoryCollection> snapshotted, int locked, int[] positionCounts, WriteAheadLog log) throws IOException {
+        if (locked < snapshotted.size()) {
+            DurableMemoryCollection collection = snapshotted.get(locked);
+            synchronized (collection) {
+                positionCounts[locked] = collection.startSnapshot();
+                return cut(snapshotted, locked + 1, positionCounts, log);
+            }
+        }
+
+        return log.length();
+    }
+
+    private static void endSnapshot(List<DurableMemoryCollection> snapshotted) {
+        for (DurableMemoryCollection collection : snapshotted) {
+            collection.endSnapshot();
+        }
+    }
+
+    private void replay(Document record) {
+        String databaseName = (String) record.get("db");
+        String collectionName = (String) record.get("c");
+
+        switch ((String) record.get("op")) {
+            case "put":
+                collection(databaseName, collectionName).replayPut((Document) record.get("doc"));
+                break;
+            case "delete":
+                collection(databaseName, collectionName).replayDelete(record.get("id"));
+                break;
+            case "drop":
+                MongoDatabase database = resolveDatabase(databaseName);
+                if (database.resolveCollection(collectionName, false) != null) {
+                    database.dropCollection(collectionName, NoopOplog.get());
+                }
+                break;
+            default:
+                throw new IllegalStateException("Invalid log record: " + record);
+        }
+    }
+
+    private DurableMemoryCollection collection(String databaseName, String collectionName) {
+        MongoDatabase database = resolveDatabase(databaseName);
+        MongoCollection<?> collection = database.resolveCollection(collectionName, false);
+        if (collection == null) {
+            collection = database.createCollectionOrThrowIfExists(collectionName);
+        }
+        return (DurableMemoryCollection) collection;
+    }
+
+    private static String namespace(String databaseName, String collectionName) {
+        return databaseName + "." + collectionName;
+    }
+}
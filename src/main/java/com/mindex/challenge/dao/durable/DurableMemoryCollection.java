@@ -0,0 +1,116 @@
+package com.mindex.challenge.dao.durable;
+
+import com.mindex.challenge.dao.embedded.IndexedMemoryCollection;
+import de.bwaldvogel.mongo.MongoDatabase;
+import de.bwaldvogel.mongo.backend.ArrayFilters;
+import de.bwaldvogel.mongo.backend.CollectionOptions;
+import de.bwaldvogel.mongo.backend.CursorRegistry;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.oplog.NoopOplog;
+import de.bwaldvogel.mongo.wire.bson.BsonEncoder;
+import io.netty.buffer.ByteBuf;
+
+import java.util.BitSet;
+
+/**
+ * Memory collection that records every document it adds, changes or removes in the backend's write-ahead log. Each
+ * write is logged before it is applied, while the collection holds its lock, so the log has the writes in the order
+ * the collection applied them, and a write that fails to be logged leaves the collection unchanged. An update is
+ * logged by the collection's {@link LoggedIdIndex}, the last point before the stored document is changed in place.
+ *
+ * A snapshot reads the collection a batch of positions at a time, from the point the log was cut for it. A document
+ * keeps its position for as long as it is stored, so every document stored at the cut is read once, changed in place
+ * or not. A document added after the cut is in the log the snapshot keeps, and is left out even where it takes a
+ * position the snapshot has not reached yet, so a document deleted and added again is never read twice.
+ */
+final class DurableMemoryCollection extends IndexedMemoryCollection {
+    private static final String ID_FIELD = "_id";
+
+    private final DurableMemoryBackend backend;
+
+    //one past the highest position a document was ever added at, the stock collection never shrinks its list
+    private int positionCount;
+    //the positions documents were added at since the log was cut for a snapshot, null while none is written
+    private BitSet addedSinceCut;
+
+    DurableMemoryCollection(MongoDatabase database, String collectionName, CollectionOptions options,
+                            CursorRegistry cursorRegistry, DurableMemoryBackend backend) {
+        super(database, collectionName, options, cursorRegistry);
+        this.backend = backend;
+    }
+
+    @Override
+    protected Integer addDocumentInternal(Document document) {
+        backend.logPut(getDatabaseName(), getCollectionName(), document);
+        return added(super.addDocumentInternal(document));
+    }
+
+    //the log gets the whole new document
+    void logUpdate(Document newDocument) {
+        backend.logPut(getDatabaseName(), getCollectionName(), newDocument);
+    }
+
+    @Override
+    protected void removeDocument(Integer position) {
+        backend.logDelete(getDatabaseName(), getCollectionName(), getDocument(position).get(ID_FIELD));
+        super.removeDocument(position);
+    }
+
+    /**
+     * Adds a document from a snapshot. A snapshot holds each document once and only ever valid ones, so this skips the
+     * unique key checks and takes the size from the snapshot instead of encoding the document again to measure it,
+     * which is most of what an insert costs.
+     */
+    void restore(Document document, int size) {
+        Integer position = added(super.addDocumentInternal(document));
+        for (Index<Integer> index : getIndexes()) {
+            index.add(document, position, this);
+        }
+        updateDataSize(size);
+    }
+
+    //from the log, where a put may follow an earlier put of the same document or one the snapshot already holds
+    void replayPut(Document document) {
+        updateDocuments(new Document(ID_FIELD, document.get(ID_FIELD)), document, ArrayFilters.empty(), false, true, NoopOplog.get());
+    }
+
+    void replayDelete(Object id) {
+        deleteDocuments(new Document(ID_FIELD, id), 1, NoopOplog.get());
+    }
+
+    //called with the collection's lock held, while the log is cut, returns the positions the snapshot has to read
+    int startSnapshot() {
+        addedSinceCut = new BitSet();
+        return positionCount;
+    }
+
+    synchronized void endSnapshot() {
+        addedSinceCut = null;
+    }
+
+    /**
+     * Encodes the documents at positions from up to to that were already stored when the log was cut, and returns how
+     * many there were. The collection's lock is held for the batch, so no document is read half updated, and writes
+     * wait for one batch at most.
+     */
+    synchronized int encodeDocuments(int from, int to, ByteBuf buffer) {
+        int count = 0;
+        for (int position = from; position < to; position++) {
+            Document document = getDocument(position);
+            if (document != null && !addedSinceCut.get(position)) {
+                BsonEncoder.encodeDocument(document, buffer);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Integer added(Integer position) {
+        positionCount = Math.max(positionCount, position + 1);
+        if (addedSinceCut != null) {
+            addedSinceCut.set(position);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mindex.challenge.dao.durable;
+
+import com.mindex.challenge.dao.embedded.IndexedMemoryDatabase;
+import de.bwaldvogel.mongo.MongoCollection;
+import de.bwaldvogel.mongo.MongoDatabase;
+import de.bwaldvogel.mongo.backend.CollectionOptions;
+import de.bwaldvogel.mongo.backend.CursorRegistry;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.backend.memory.MemoryCollection;
+import de.bwaldvogel.mongo.exception.MongoServerException;
+import de.bwaldvogel.mongo.oplog.Oplog;
+
+import java.util.List;
+
+final class DurableMemoryDatabase extends IndexedMemoryDatabase {
+    private static final String SYSTEM_COLLECTION_PREFIX = "system.";
+
+    private final DurableMemoryBackend backend;
+
+    DurableMemoryDatabase(String databaseName, CursorRegistry cursorRegistry, DurableMemoryBackend backend) {
+        super(databaseName, cursorRegistry);
+        this.backend = backend;
+    }
+
+    //the system collections are created by the super constructor, before the backend is set, and only describe the
+    //indexes, which MongoIndexes creates again on every start
+    @Override
+    protected MemoryCollection openOrCreateCollection(String collectionName, CollectionOptions options) {
+        if (collectionName.startsWith(SYSTEM_COLLECTION_PREFIX)) {
+            return super.openOrCreateCollection(collectionName, options);
+        }
+
+        DurableMemoryCollection collection = new DurableMemoryCollection(this, collectionName, options, cursorRegistry, backend);
+        backend.register(collection);
+        return collection;
+    }
+
+    //the ID index of a durable collection is the one that logs its updates
+    @Override
+    protected Index<Integer> openOrCreateUniqueIndex(String collectionName, String indexName, List<IndexKey> keys, boolean sparse) {
+        if (LoggedIdIndex.NAME.equals(indexName) && !collectionName.startsWith(SYSTEM_COLLECTION_PREFIX)) {
+            return new LoggedIdIndex(keys, sparse);
+        }
+        return super.openOrCreateUniqueIndex(collectionName, indexName, keys, sparse);
+    }
+
+    //dropping a database drops each of its collections through here
+    @Override
+    public void dropCollection(String collectionName, Oplog oplog) {
+        super.dropCollection(collectionName, oplog);
+        backend.collectionDropped(databaseName, collectionName);
+    }
+
+    @Override
+    public void moveCollection(MongoDatabase oldDatabase, MongoCollection<?> collection, String newCollectionName) {
+        throw new MongoServerException("Renaming a collection is not supported with a data directory");
+    }
+}
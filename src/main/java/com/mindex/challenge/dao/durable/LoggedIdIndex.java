@@ -0,0 +1,31 @@
+package com.mindex.challenge.dao.durable;
+
+import com.mindex.challenge.dao.embedded.PrefixMemoryUniqueIndex;
+import de.bwaldvogel.mongo.MongoCollection;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.exception.KeyConstraintError;
+
+import java.util.List;
+
+/**
+ * ID index of a durable collection, which logs every update before it is applied.
+ *
+ * The embedded server changes a stored document in place and only tells the collection afterwards. Before that it
+ * checks the update against every index and then updates each of them, in the order they were added. The ID index is
+ * added with the collection, so it is the first to be updated: every check has passed and nothing has changed yet.
+ */
+final class LoggedIdIndex extends PrefixMemoryUniqueIndex {
+    static final String NAME = "_id_";
+
+    LoggedIdIndex(List<IndexKey> keys, boolean sparse) {
+        super(NAME, keys, sparse);
+    }
+
+    @Override
+    public void updateInPlace(Document oldDocument, Document newDocument, Integer position,
+                              MongoCollection<Integer> collection) throws KeyConstraintError {
+        ((DurableMemoryCollection) collection).logUpdate(newDocument);
+        super.updateInPlace(oldDocument, newDocument, position, collection);
+    }
+}
@@ -0,0 +1,73 @@
+package com.mindex.challenge.dao.durable;
+
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.wire.bson.BsonDecoder;
+import io.netty.buffer.Unpooled;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a snapshot or log file. The file is mapped one window at a time, so files larger
+ * than a single mapping can be read, and BSON documents are decoded straight from the mapped pages without copying
+ * them onto the heap first.
+ */
+final class MappedFile implements Closeable {
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private MappedFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    static MappedFile open(Path file) throws IOException {
+        return new MappedFile(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    long size() {
+        return size;
+    }
+
+    int readInt(long position) throws IOException {
+        return slice(position, Integer.BYTES).getInt(0);
+    }
+
+    //the BSON length prefix says how many bytes the document spans
+    Document readDocument(long position) throws IOException {
+        int length = readInt(position);
+        if (length < 5 || position + length > size) {
+            throw new IOException("Invalid document length [" + length + "] at position [" + position + "]");
+        }
+        return BsonDecoder.decodeBson(Unpooled.wrappedBuffer(slice(position, length)));
+    }
+
+    //a little endian view of [position, position + length), mapping a new window when the range leaves the current one
+    ByteBuffer slice(long position, int length) throws IOException {
+        if (position < 0 || position + length > size) {
+            throw new IOException("Read of [" + length + "] bytes at position [" + position + "] is past the end of the file");
+        }
+
+        if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Math.max(WINDOW_SIZE, length)));
+            windowStart = position;
+        }
+        return window.slice((int) (position - windowStart), length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,124 @@
+package com.mindex.challenge.dao.durable;
+
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.wire.bson.BsonEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Binary image of every collection: a magic number and version, then for each collection a BSON header with its
+ * namespace and document count followed by the documents as BSON, and an end marker.
+ *
+ * A collection is written a batch of positions at a time, each batch with a header of its own, so the collection is
+ * only locked while one batch is encoded. A snapshot is written to a temporary file and moved over the previous one
+ * once it is complete and on disk, so the file that is read back is always a whole snapshot. The directory is forced to disk after the move, so once write
+ * returns the new snapshot survives a power loss and the log it replaces can be emptied.
+ */
+final class Snapshot {
+    private static final int MAGIC = 0x454D5053;
+    private static final int VERSION = 1;
+    private static final int FLUSH_SIZE = 1024 * 1024;
+    private static final int BATCH_POSITIONS = 1024;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes the documents each collection held when the log was cut, given the number of positions it had then.
+     */
+    static void write(Path file, List<DurableMemoryCollection> collections, int[] positionCounts) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuf buffer = Unpooled.buffer(2 * FLUSH_SIZE);
+            ByteBuf batch = Unpooled.buffer(FLUSH_SIZE);
+            buffer.writeIntLE(MAGIC);
+            buffer.writeIntLE(VERSION);
+
+            for (int i = 0; i < collections.size(); i++) {
+                DurableMemoryCollection collection = collections.get(i);
+
+                //an empty collection still gets a header, so it is created again on restore
+                int from = 0;
+                do {
+                    int to = (int) Math.min(positionCounts[i], (long) from + BATCH_POSITIONS);
+                    batch.clear();
+                    int count = collection.encodeDocuments(from, to, batch);
+
+                    if (count > 0 || from == 0) {
+                        BsonEncoder.encodeDocument(new Document("db", collection.getDatabaseName())
+                                .append("c", collection.getCollectionName())
+                                .append("n", count), buffer);
+                        buffer.writeBytes(batch);
+                        if (buffer.readableBytes() >= FLUSH_SIZE) {
+                            flush(channel, buffer);
+                        }
+                    }
+                    from = to;
+                } while (from < positionCounts[i]);
+            }
+
+            BsonEncoder.encodeDocument(new Document("end", true), buffer);
+            flush(channel, buffer);
+            channel.force(true);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel directory = FileChannel.open(file.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    /**
+     * Adds every document in the snapshot to the collection the resolver returns for its namespace, and returns the
+     * number of documents read. A collection can have any number of headers, each followed by its documents.
+     */
+    static long read(Path file, BiFunction<String, String, DurableMemoryCollection> collections) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (MappedFile mapped = MappedFile.open(file)) {
+            if (mapped.size() < 2 * Integer.BYTES || mapped.readInt(0) != MAGIC || mapped.readInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Unrecognized snapshot " + file);
+            }
+
+            long restored = 0;
+            long position = 2 * Integer.BYTES;
+            while (true) {
+                Document header = mapped.readDocument(position);
+                position += mapped.readInt(position);
+                if (header.containsKey("end")) {
+                    return restored;
+                }
+
+                DurableMemoryCollection collection = collections.apply((String) header.get("db"), (String) header.get("c"));
+                long count = ((Number) header.get("n")).longValue();
+                for (long i = 0; i < count; i++) {
+                    int length = mapped.readInt(position);
+                    collection.restore(mapped.readDocument(position), length);
+                    position += length;
+                }
+                restored += count;
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuf buffer) throws IOException {
+        ByteBuffer bytes = buffer.nioBuffer();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,159 @@
+package com.mindex.challenge.dao.durable;
+
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.wire.bson.BsonEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of every document write since the last snapshot.
+ *
+ * Each record is a little endian length and CRC32C followed by the BSON record itself. A record is handed to the
+ * operating system before the write it describes is applied, so it survives the process being killed; with fsync on
+ * it is also forced to disk, which survives a power loss at the cost of a disk flush per write. A record cut short by
+ * a crash fails its checksum, and replay stops there.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final Path file;
+    private final boolean fsync;
+    private FileChannel channel;
+    private final ByteBuf buffer = Unpooled.buffer(4096);
+    private final CRC32C checksum = new CRC32C();
+
+    private WriteAheadLog(Path file, FileChannel channel, boolean fsync) {
+        this.file = file;
+        this.channel = channel;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the log for appending after its last complete record, dropping whatever a crash left behind it.
+     */
+    static WriteAheadLog open(Path file, long validLength, boolean fsync) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return new WriteAheadLog(file, channel, fsync);
+    }
+
+    /**
+     * Hands every complete record to the consumer in order and returns the length of the log up to the last of them.
+     */
+    static long replay(Path file, Consumer<Document> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        CRC32C checksum = new CRC32C();
+        try (MappedFile mapped = MappedFile.open(file)) {
+            long position = 0;
+            while (position + HEADER_SIZE <= mapped.size()) {
+                int length = mapped.readInt(position);
+                int expectedChecksum = mapped.readInt(position + Integer.BYTES);
+                long end = position + HEADER_SIZE + length;
+
+                if (length <= 0 || end > mapped.size()) {
+                    break;
+                }
+
+                checksum.reset();
+                checksum.update(mapped.slice(position + HEADER_SIZE, length));
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    break;
+                }
+
+                consumer.accept(mapped.readDocument(position + HEADER_SIZE));
+                position = end;
+            }
+
+            if (position < mapped.size()) {
+                LOG.warn("Ignoring [{}] bytes of incomplete records at the end of [{}]", mapped.size() - position, file);
+            }
+            return position;
+        }
+    }
+
+    //returns the length of the log with the record
+    synchronized long append(Document record) throws IOException {
+        buffer.clear();
+        buffer.writeZero(HEADER_SIZE);
+        BsonEncoder.encodeDocument(record, buffer);
+
+        int length = buffer.writerIndex() - HEADER_SIZE;
+        checksum.reset();
+        checksum.update(buffer.array(), buffer.arrayOffset() + HEADER_SIZE, length);
+        buffer.setIntLE(0, length);
+        buffer.setIntLE(Integer.BYTES, (int) checksum.getValue());
+
+        ByteBuffer bytes = buffer.nioBuffer();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        return channel.position();
+    }
+
+    synchronized boolean isEmpty() throws IOException {
+        return channel.size() == 0;
+    }
+
+    synchronized long length() throws IOException {
+        return channel.position();
+    }
+
+    /**
+     * Drops the records before the given length, once a snapshot holds every write they describe. The records after it
+     * are copied to a new log that is moved over this one, so the file on disk always holds either every record or
+     * only those after the length. Appends wait while the records are copied, which are only those logged while the
+     * snapshot was written.
+     */
+    synchronized void discardBefore(long length) throws IOException {
+        long end = channel.size();
+        if (length == end) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            return;
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel tail = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long position = length; position < end; ) {
+                position += channel.transferTo(position, end - position, tail);
+            }
+            tail.force(true);
+        }
+
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        try (FileChannel directory = FileChannel.open(file.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
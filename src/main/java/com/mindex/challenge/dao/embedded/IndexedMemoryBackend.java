@@ -0,0 +1,16 @@
+package com.mindex.challenge.dao.embedded;
+
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.bwaldvogel.mongo.backend.memory.MemoryDatabase;
+
+/**
+ * Memory backend for the embedded server whose collections use their indexes for lookups the stock backend answers
+ * with a collection scan.
+ */
+public class IndexedMemoryBackend extends MemoryBackend {
+
+    @Override
+    public MemoryDatabase openOrCreateDatabase(String databaseName) {
+        return new IndexedMemoryDatabase(databaseName, getCursorRegistry());
+    }
+}
@@ -0,0 +1,60 @@
+package com.mindex.challenge.dao.embedded;
+
+import de.bwaldvogel.mongo.MongoDatabase;
+import de.bwaldvogel.mongo.backend.CollectionOptions;
+import de.bwaldvogel.mongo.backend.CursorRegistry;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.backend.QueryResult;
+import de.bwaldvogel.mongo.backend.memory.MemoryCollection;
+import de.bwaldvogel.mongo.bson.Document;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Memory collection that answers a sorted query from an ordered index when one holds the documents in the order of
+ * the sort. The stock collection collects and sorts every match before it applies the limit, so a page of a large
+ * collection cost as much as reading all of it.
+ */
+public class IndexedMemoryCollection extends MemoryCollection {
+
+    public IndexedMemoryCollection(MongoDatabase database, String collectionName, CollectionOptions options, CursorRegistry cursorRegistry) {
+        super(database, collectionName, options, cursorRegistry);
+    }
+
+    //runs under the collection's lock, so the index cannot change while its positions are read
+    @Override
+    protected QueryResult queryDocuments(Document query, Document orderBy, int numberToSkip, int limit, int batchSize, Document projection) {
+        OrderedMemoryIndex sorted = sortedIndex(query, orderBy);
+        if (sorted == null) {
+            return super.queryDocuments(query, orderBy, numberToSkip, limit, batchSize, projection);
+        }
+
+        //not the collection's own spliterator, a range of a sorted map counts its entries to size one
+        Spliterator<Integer> positions = Spliterators.spliteratorUnknownSize(sorted.getPositionsInOrder(query).iterator(), Spliterator.ORDERED);
+        Stream<Document> documents = StreamSupport.stream(positions, false).map(this::getDocument);
+        return matchDocumentsFromStream(documents, query, null, numberToSkip, limit, batchSize, projection);
+    }
+
+    //the ordered index that fixes the most fields by equality, so the fewest documents are read past for the page
+    private OrderedMemoryIndex sortedIndex(Document query, Document orderBy) {
+        if (orderBy == null || orderBy.isEmpty()) {
+            return null;
+        }
+
+        OrderedMemoryIndex best = null;
+        int bestFixed = -1;
+        for (Index<Integer> index : getIndexes()) {
+            if (index instanceof OrderedMemoryIndex) {
+                int fixed = ((OrderedMemoryIndex) index).sortedPrefix(query, orderBy);
+                if (fixed > bestFixed) {
+                    best = (OrderedMemoryIndex) index;
+                    bestFixed = fixed;
+                }
+            }
+        }
+        return best;
+    }
+}
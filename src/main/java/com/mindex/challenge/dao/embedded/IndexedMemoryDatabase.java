@@ -0,0 +1,43 @@
+package com.mindex.challenge.dao.embedded;
+
+import de.bwaldvogel.mongo.backend.CollectionOptions;
+import de.bwaldvogel.mongo.backend.CursorRegistry;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.backend.memory.MemoryCollection;
+import de.bwaldvogel.mongo.backend.memory.MemoryDatabase;
+
+import java.util.List;
+
+/**
+ * Memory database that keeps every index it is asked to create. The stock one ignores indexes that are not unique and
+ * only uses a unique index when the query is on exactly its fields, so a lookup by department, by a direct report or
+ * by employee ID and version scanned the whole collection.
+ *
+ * An index on one field is kept as a hash, which answers lookups by value. A compound index is kept sorted, so it
+ * also answers ranges and returns the documents of a sorted query in order.
+ */
+public class IndexedMemoryDatabase extends MemoryDatabase {
+
+    public IndexedMemoryDatabase(String databaseName, CursorRegistry cursorRegistry) {
+        super(databaseName, cursorRegistry);
+    }
+
+    @Override
+    protected MemoryCollection openOrCreateCollection(String collectionName, CollectionOptions options) {
+        return new IndexedMemoryCollection(this, collectionName, options, cursorRegistry);
+    }
+
+    @Override
+    protected Index<Integer> openOrCreateUniqueIndex(String collectionName, String indexName, List<IndexKey> keys, boolean sparse) {
+        return new PrefixMemoryUniqueIndex(indexName, keys, sparse);
+    }
+
+    @Override
+    protected Index<Integer> openOrCreateSecondaryIndex(String collectionName, String indexName, List<IndexKey> keys, boolean sparse) {
+        if (keys.size() > 1) {
+            return new OrderedMemoryIndex(indexName, keys, sparse);
+        }
+        return new MemorySecondaryIndex(indexName, keys, sparse);
+    }
+}
@@ -0,0 +1,172 @@
+package com.mindex.challenge.dao.embedded;
+
+import de.bwaldvogel.mongo.MongoCollection;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.backend.KeyValue;
+import de.bwaldvogel.mongo.bson.BsonRegularExpression;
+import de.bwaldvogel.mongo.bson.Document;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index that is not unique, kept as a hash of the value of its first field to the positions of the documents with that
+ * value. An array value adds the document under each of its elements, so a query on a field of the embedded direct
+ * reports finds the managers that list a report.
+ *
+ * Only equality and $in on the first field are answered from the index. The collection checks the rest of the query,
+ * and any sort, against the documents it returns, so a compound index still narrows a query on its leading field.
+ */
+final class MemorySecondaryIndex extends Index<Integer> {
+    private static final String ID_FIELD = "_id";
+    private static final String IN = "$in";
+    private static final String EQ = "$eq";
+
+    //the _id tells apart documents that share a value, since removing a document only passes the document
+    private final Map<KeyValue, Map<Object, Integer>> positions = new HashMap<>();
+    private long count;
+
+    MemorySecondaryIndex(String name, List<IndexKey> keys, boolean sparse) {
+        super(name, keys, sparse);
+    }
+
+    @Override
+    public synchronized Integer getPosition(Document document) {
+        Object id = document.get(ID_FIELD);
+        for (KeyValue value : leadingValues(document)) {
+            Map<Object, Integer> documents = positions.get(value);
+            if (documents != null && documents.containsKey(id)) {
+                return documents.get(id);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void checkAdd(Document document, MongoCollection<Integer> collection) {
+    }
+
+    @Override
+    public synchronized void add(Document document, Integer position, MongoCollection<Integer> collection) {
+        Object id = document.get(ID_FIELD);
+        for (KeyValue value : leadingValues(document)) {
+            if (positions.computeIfAbsent(value, key -> new HashMap<>()).put(id, position) == null) {
+                count++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized Integer remove(Document document) {
+        Object id = document.get(ID_FIELD);
+        Integer position = null;
+        for (KeyValue value : leadingValues(document)) {
+            Map<Object, Integer> documents = positions.get(value);
+            if (documents == null) {
+                continue;
+            }
+
+            Integer removed = documents.remove(id);
+            if (removed != null) {
+                position = removed;
+                count--;
+            }
+            if (documents.isEmpty()) {
+                positions.remove(value);
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public synchronized boolean canHandle(Document query) {
+        String field = keys().get(0);
+        return query.containsKey(field) && queriedValues(query.get(field)) != null;
+    }
+
+    //in position order, the order a scan of the collection would return them in
+    @Override
+    public synchronized Iterable<Integer> getPositions(Document query) {
+        Set<Integer> matches = new TreeSet<>();
+        for (Object value : queriedValues(query.get(keys().get(0)))) {
+            Map<Object, Integer> documents = positions.get(new KeyValue(value).normalized());
+            if (documents != null) {
+                matches.addAll(documents.values());
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public long getDataSize() {
+        return getCount();
+    }
+
+    @Override
+    public void checkUpdate(Document oldDocument, Document newDocument, MongoCollection<Integer> collection) {
+    }
+
+    @Override
+    public synchronized void updateInPlace(Document oldDocument, Document newDocument, Integer position, MongoCollection<Integer> collection) {
+        if (!leadingValues(oldDocument).equals(leadingValues(newDocument))) {
+            remove(oldDocument);
+            add(newDocument, position, collection);
+        }
+    }
+
+    @Override
+    public synchronized void drop() {
+        positions.clear();
+        count = 0;
+    }
+
+    private Set<KeyValue> leadingValues(Document document) {
+        Set<KeyValue> values = new HashSet<>();
+        if (isSparse() && !document.containsKey(keys().get(0))) {
+            return values;
+        }
+
+        for (KeyValue keyValue : getKeyValues(document)) {
+            values.add(new KeyValue(keyValue.get(0)).normalized());
+        }
+        return values;
+    }
+
+    //the values a condition matches by equality, or null if it is a range, a pattern or anything else the hash cannot answer
+    static Collection<?> queriedValues(Object condition) {
+        if (condition instanceof Document) {
+            Document operators = (Document) condition;
+            if (operators.size() != 1) {
+                return null;
+            }
+            if (operators.containsKey(EQ)) {
+                return isEquality(operators.get(EQ)) ? List.of(operators.get(EQ)) : null;
+            }
+            if (operators.get(IN) instanceof Collection) {
+                Collection<?> values = (Collection<?>) operators.get(IN);
+                return values.stream().allMatch(MemorySecondaryIndex::isEquality) ? values : null;
+            }
+            return null;
+        }
+        return isEquality(condition) ? List.of(condition) : null;
+    }
+
+    //null also matches a missing field and an array or embedded document matches as a whole, neither is in the hash
+    private static boolean isEquality(Object value) {
+        return value != null
+                && !(value instanceof Document)
+                && !(value instanceof Collection)
+                && !BsonRegularExpression.isRegularExpression(value);
+    }
+}
@@ -0,0 +1,335 @@
+package com.mindex.challenge.dao.embedded;
+
+import de.bwaldvogel.mongo.MongoCollection;
+import de.bwaldvogel.mongo.backend.Index;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.backend.KeyValue;
+import de.bwaldvogel.mongo.backend.ValueComparator;
+import de.bwaldvogel.mongo.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compound index that is not unique, kept sorted on all of its fields in their declared directions, the way MongoDB
+ * keeps it. Equality and $in on leading fields followed by a range on the next field are answered with a range of
+ * the index.
+ *
+ * The collection also asks it for the documents of a sorted query in index order, when the query fixes every field
+ * ahead of the sort fields. It can then stop reading once it has the documents for the page instead of sorting every
+ * match, which is what keeps a keyset page as cheap deep into the collection as on the first page.
+ */
+final class OrderedMemoryIndex extends Index<Integer> {
+    private static final String ID_FIELD = "_id";
+    private static final String GT = "$gt";
+    private static final String GTE = "$gte";
+    private static final String LT = "$lt";
+    private static final String LTE = "$lte";
+
+    //a bound sorts just before or just after every entry it is a prefix of, so a range never contains it
+    private static final int BEFORE = -1;
+    private static final int AFTER = 1;
+
+    private final NavigableMap<Entry, Integer> entries;
+    //set once any document is added under more than one entry, its documents could then come back more than once in order
+    private boolean multikey;
+
+    OrderedMemoryIndex(String name, List<IndexKey> keys, boolean sparse) {
+        super(name, keys, sparse);
+        this.entries = new TreeMap<>(entryOrder(keys));
+    }
+
+    @Override
+    public synchronized Integer getPosition(Document document) {
+        for (Entry entry : entriesOf(document)) {
+            Integer position = entries.get(entry);
+            if (position != null) {
+                return position;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void checkAdd(Document document, MongoCollection<Integer> collection) {
+    }
+
+    @Override
+    public synchronized void add(Document document, Integer position, MongoCollection<Integer> collection) {
+        List<Entry> documentEntries = entriesOf(document);
+        multikey |= documentEntries.size() > 1;
+        for (Entry entry : documentEntries) {
+            entries.put(entry, position);
+        }
+    }
+
+    @Override
+    public synchronized Integer remove(Document document) {
+        Integer position = null;
+        for (Entry entry : entriesOf(document)) {
+            Integer removed = entries.remove(entry);
+            if (removed != null) {
+                position = removed;
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public synchronized boolean canHandle(Document query) {
+        return !ranges(query).isEmpty();
+    }
+
+    //in position order, the order a scan of the collection would return them in
+    @Override
+    public synchronized Iterable<Integer> getPositions(Document query) {
+        Set<Integer> positions = new TreeSet<>();
+        for (Range range : ranges(query)) {
+            positions.addAll(slice(range));
+        }
+        return positions;
+    }
+
+    /**
+     * Number of leading fields the query fixes by equality, if the rest of the index starts with the fields of the sort
+     * in the same directions, or -1 if the index cannot return the query's documents in sorted order.
+     */
+    synchronized int sortedPrefix(Document query, Document orderBy) {
+        List<Range> ranges = ranges(query);
+        if (multikey || ranges.size() > 1) {
+            return -1;
+        }
+
+        int fixed = ranges.isEmpty() ? 0 : ranges.get(0).fixed;
+        List<IndexKey> keys = getKeys();
+        Set<String> fixedFields = new HashSet<>();
+        for (int i = 0; i < fixed; i++) {
+            fixedFields.add(keys.get(i).getKey());
+        }
+
+        //sorting on a field the query fixes to one value does not change the order
+        int i = fixed;
+        for (String field : orderBy.keySet()) {
+            if (fixedFields.contains(field)) {
+                continue;
+            }
+            if (i == keys.size()) {
+                return -1;
+            }
+
+            IndexKey key = keys.get(i++);
+            if (!key.getKey().equals(field) || !(orderBy.get(field) instanceof Number)
+                    || key.isAscending() != ((Number) orderBy.get(field)).intValue() > 0) {
+                return -1;
+            }
+        }
+        return fixed;
+    }
+
+    /**
+     * Positions of the documents that can match the query in the order of the index, read as they are consumed. Only
+     * valid while the collection holds its lock, and after {@link #sortedPrefix} accepted the query.
+     */
+    synchronized Iterable<Integer> getPositionsInOrder(Document query) {
+        List<Range> ranges = ranges(query);
+        if (ranges.isEmpty()) {
+            return entries.values();
+        }
+        return slice(ranges.get(0));
+    }
+
+    //a query whose bounds cross, such as $gt "b" with $lt "a", matches nothing
+    private Collection<Integer> slice(Range range) {
+        if (entries.comparator().compare(range.from, range.to) > 0) {
+            return List.of();
+        }
+        return entries.subMap(range.from, true, range.to, true).values();
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return entries.size();
+    }
+
+    @Override
+    public long getDataSize() {
+        return getCount();
+    }
+
+    @Override
+    public void checkUpdate(Document oldDocument, Document newDocument, MongoCollection<Integer> collection) {
+    }
+
+    @Override
+    public synchronized void updateInPlace(Document oldDocument, Document newDocument, Integer position, MongoCollection<Integer> collection) {
+        if (!entriesOf(oldDocument).equals(entriesOf(newDocument))) {
+            remove(oldDocument);
+            add(newDocument, position, collection);
+        }
+    }
+
+    @Override
+    public synchronized void drop() {
+        entries.clear();
+        multikey = false;
+    }
+
+    private List<Entry> entriesOf(Document document) {
+        List<Entry> documentEntries = new ArrayList<>();
+        if (isSparse() && !document.containsKey(keys().get(0))) {
+            return documentEntries;
+        }
+
+        Object id = document.get(ID_FIELD);
+        for (KeyValue keyValue : getKeyValues(document)) {
+            Object[] values = new Object[keyValue.size() + 1];
+            for (int i = 0; i < keyValue.size(); i++) {
+                values[i] = keyValue.get(i);
+            }
+            values[keyValue.size()] = id;
+            documentEntries.add(new Entry(values, 0));
+        }
+        return documentEntries;
+    }
+
+    //one range of the index per combination of the values the leading fields are fixed to, empty if the first is not
+    private List<Range> ranges(Document query) {
+        List<IndexKey> keys = getKeys();
+        List<Object[]> prefixes = new ArrayList<>();
+        prefixes.add(new Object[0]);
+
+        int fixed = 0;
+        while (fixed < keys.size() && query.containsKey(keys.get(fixed).getKey())) {
+            Collection<?> values = MemorySecondaryIndex.queriedValues(query.get(keys.get(fixed).getKey()));
+            if (values == null) {
+                break;
+            }
+
+            List<Object[]> extended = new ArrayList<>();
+            for (Object[] prefix : prefixes) {
+                for (Object value : values) {
+                    Object[] longer = Arrays.copyOf(prefix, prefix.length + 1);
+                    longer[prefix.length] = value;
+                    extended.add(longer);
+                }
+            }
+            prefixes = extended;
+            fixed++;
+        }
+
+        Object condition = fixed < keys.size() ? query.get(keys.get(fixed).getKey()) : null;
+        boolean bounded = isRange(condition);
+        if (fixed == 0 && !bounded) {
+            return List.of();
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        for (Object[] prefix : prefixes) {
+            ranges.add(bounded ? range(prefix, fixed, (Document) condition, keys.get(fixed).isAscending()) : range(prefix, fixed));
+        }
+        return ranges;
+    }
+
+    private static Range range(Object[] prefix, int fixed) {
+        return new Range(new Entry(prefix, BEFORE), new Entry(prefix, AFTER), fixed);
+    }
+
+    //any one lower and upper bound is enough, the collection checks the whole query against what the range returns
+    private static Range range(Object[] prefix, int fixed, Document condition, boolean ascending) {
+        Entry lower = condition.containsKey(GT) ? bound(prefix, condition.get(GT), AFTER)
+                : condition.containsKey(GTE) ? bound(prefix, condition.get(GTE), BEFORE)
+                : null;
+        Entry upper = condition.containsKey(LT) ? bound(prefix, condition.get(LT), BEFORE)
+                : condition.containsKey(LTE) ? bound(prefix, condition.get(LTE), AFTER)
+                : null;
+
+        //a descending field keeps its largest values first, so the bounds swap ends and sides
+        if (!ascending) {
+            Entry from = upper == null ? null : new Entry(upper.values, -upper.side);
+            upper = lower == null ? null : new Entry(lower.values, -lower.side);
+            lower = from;
+        }
+
+        return new Range(lower == null ? new Entry(prefix, BEFORE) : lower, upper == null ? new Entry(prefix, AFTER) : upper, fixed);
+    }
+
+    private static Entry bound(Object[] prefix, Object value, int side) {
+        Object[] values = Arrays.copyOf(prefix, prefix.length + 1);
+        values[prefix.length] = value;
+        return new Entry(values, side);
+    }
+
+    private static boolean isRange(Object condition) {
+        if (!(condition instanceof Document) || ((Document) condition).isEmpty()) {
+            return false;
+        }
+        for (String operator : ((Document) condition).keySet()) {
+            if (!GT.equals(operator) && !GTE.equals(operator) && !LT.equals(operator) && !LTE.equals(operator)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Comparator<Entry> entryOrder(List<IndexKey> keys) {
+        ValueComparator ascending = ValueComparator.asc();
+        return (a, b) -> {
+            int common = Math.min(a.values.length, b.values.length);
+            for (int i = 0; i < common; i++) {
+                int compared = ascending.compare(a.values[i], b.values[i]);
+                if (compared != 0) {
+                    //the last value of an entry is its _id, which only breaks ties and is always ascending
+                    return i < keys.size() && !keys.get(i).isAscending() ? -compared : compared;
+                }
+            }
+            if (a.values.length == b.values.length) {
+                return Integer.compare(a.side, b.side);
+            }
+            return a.values.length < b.values.length ? a.side : -b.side;
+        };
+    }
+
+    private static final class Entry {
+        private final Object[] values;
+        private final int side;
+
+        private Entry(Object[] values, int side) {
+            this.values = values;
+            this.side = side;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Entry)) {
+                return false;
+            }
+            Entry entry = (Entry) other;
+            return side == entry.side && Arrays.equals(values, entry.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(values) + side;
+        }
+    }
+
+    private static final class Range {
+        private final Entry from;
+        private final Entry to;
+        private final int fixed;
+
+        private Range(Entry from, Entry to, int fixed) {
+            this.from = from;
+            this.to = to;
+            this.fixed = fixed;
+        }
+    }
+}
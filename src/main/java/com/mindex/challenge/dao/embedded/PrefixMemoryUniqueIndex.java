@@ -0,0 +1,47 @@
+package com.mindex.challenge.dao.embedded;
+
+import de.bwaldvogel.mongo.backend.IndexKey;
+import de.bwaldvogel.mongo.backend.memory.index.MemoryUniqueIndex;
+import de.bwaldvogel.mongo.bson.Document;
+
+import java.util.List;
+
+/**
+ * Unique index that also answers queries with conditions on fields it does not cover, such as the employee ID and
+ * version of a versioned upsert. It finds the one candidate by the fields it covers and the collection checks the rest
+ * of the query against it.
+ */
+public class PrefixMemoryUniqueIndex extends MemoryUniqueIndex {
+
+    public PrefixMemoryUniqueIndex(String name, List<IndexKey> keys, boolean sparse) {
+        super(name, keys, sparse);
+    }
+
+    @Override
+    public synchronized boolean canHandle(Document query) {
+        if (super.canHandle(query)) {
+            return true;
+        }
+
+        Document indexed = indexedPart(query);
+        return indexed != null && super.canHandle(indexed);
+    }
+
+    @Override
+    public synchronized Iterable<Integer> getPositions(Document query) {
+        return super.getPositions(query.keySet().equals(keySet()) ? query : indexedPart(query));
+    }
+
+    //the conditions on the indexed fields, or null if the query leaves one of them out
+    private Document indexedPart(Document query) {
+        if (!query.keySet().containsAll(keySet())) {
+            return null;
+        }
+
+        Document indexed = new Document();
+        for (String key : keys()) {
+            indexed.put(key, query.get(key));
+        }
+        return indexed;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mindex.challenge.data;
+
+public class BatchItemResult {
+    private Integer index;
+    private String employeeId;
+    private Boolean success;
+    private String error;
+
+    public BatchItemResult() {
+
+    }
+
+    public BatchItemResult(Integer index, String employeeId, Boolean success, String error) {
+        this.index = index;
+        this.employeeId = employeeId;
+        this.success = success;
+        this.error = error;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(Boolean success) {
+        this.success = success;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+public class BatchResult {
+    private Integer succeeded;
+    private Integer failed;
+    private List<BatchItemResult> results;
+
+    public BatchResult() {
+
+    }
+
+    public BatchResult(List<BatchItemResult> results) {
+        this.results = results;
+        this.succeeded = (int) results.stream().filter(BatchItemResult::getSuccess).count();
+        this.failed = results.size() - succeeded;
+    }
+
+    public Integer getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(Integer succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public Integer getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
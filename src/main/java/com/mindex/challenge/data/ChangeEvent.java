@@ -0,0 +1,75 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * One write accepted by the service, in the order of the event log. An employee event carries the employee as written
+ * and a compensation event the entry that was appended, so a consumer can apply it without reading anything back.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+    public enum Type {
+        EMPLOYEE_CREATED,
+        EMPLOYEE_UPDATED,
+        COMPENSATION_SUBMITTED
+    }
+
+    private long sequence;
+    private Type type;
+    private Instant timestamp;
+    private Employee employee;
+    private Compensation compensation;
+
+    public ChangeEvent() {
+
+    }
+
+    public ChangeEvent(Type type, Employee employee, Compensation compensation) {
+        this.type = type;
+        this.employee = employee;
+        this.compensation = compensation;
+    }
+
+    //numbered from 1 in the order the writes were logged, without gaps
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(Employee employee) {
+        this.employee = employee;
+    }
+
+    public Compensation getCompensation() {
+        return compensation;
+    }
+
+    public void setCompensation(Compensation compensation) {
+        this.compensation = compensation;
+    }
+}
@@ -1,11 +1,11 @@
 package com.mindex.challenge.data;
 
-import java.text.NumberFormat;
 import java.time.LocalDate;
 
+//one entry in an employee's compensation history, entries are only ever inserted, never updated or deleted
 public class Compensation {
     String employeeCompensationId;
-    String salary;
+    Money salary;
     LocalDate effectiveDate;
 
     public Compensation() {
@@ -20,12 +20,13 @@ public class Compensation {
         this.employeeCompensationId = employeeCompensationId;
     }
 
-    public String getSalary() {
+    public Money getSalary() {
         return salary;
     }
 
-    public void setSalary(String salary) {
-        this.salary = NumberFormat.getCurrencyInstance().format(Double.valueOf(salary));
+    //kept in minor units, it is only formatted when written out as JSON
+    public void setSalary(Money salary) {
+        this.salary = salary;
     }
 
     public LocalDate getEffectiveDate() {
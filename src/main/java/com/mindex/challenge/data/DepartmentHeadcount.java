@@ -0,0 +1,31 @@
+package com.mindex.challenge.data;
+
+public class DepartmentHeadcount {
+    private String department;
+    private Integer headcount;
+
+    public DepartmentHeadcount() {
+
+    }
+
+    public DepartmentHeadcount(String department, Integer headcount) {
+        this.department = department;
+        this.headcount = headcount;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public Integer getHeadcount() {
+        return headcount;
+    }
+
+    public void setHeadcount(Integer headcount) {
+        this.headcount = headcount;
+    }
+}
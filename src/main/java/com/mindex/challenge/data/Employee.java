@@ -1,14 +1,26 @@
 package com.mindex.challenge.data;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.springframework.data.annotation.Version;
+
 import java.util.List;
 
+//fields a reporting request did not ask for are left out rather than written as null
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Employee {
     private String employeeId;
     private String firstName;
     private String lastName;
     private String position;
     private String department;
-    private List<Employee> directReports;
+    //only the IDs, so a stored employee is the same small document however large their subtree is
+    //the reporting structure expands them into an EmployeeView
+    @JsonDeserialize(contentUsing = ReportIdDeserializer.class)
+    private List<String> directReports;
+    //optional optimistic locking, an update carrying a stale version is rejected instead of overwriting a newer write
+    @Version
+    private Long version;
 
     public Employee() {
     }
@@ -53,11 +65,19 @@ public class Employee {
         this.department = department;
     }
 
-    public List<Employee> getDirectReports() {
+    public List<String> getDirectReports() {
         return directReports;
     }
 
-    public void setDirectReports(List<Employee> directReports) {
+    public void setDirectReports(List<String> directReports) {
         this.directReports = directReports;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
  }
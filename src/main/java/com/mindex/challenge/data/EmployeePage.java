@@ -0,0 +1,34 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+public class EmployeePage {
+    private List<Employee> employees;
+    private String next;
+
+    public EmployeePage() {
+
+    }
+
+    public EmployeePage(List<Employee> employees, String next) {
+        this.employees = employees;
+        this.next = next;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(List<Employee> employees) {
+        this.employees = employees;
+    }
+
+    //the cursor to pass as after for the next page, null on the last page
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,79 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Read-only view of an employee with their direct reports expanded, the shape of a reporting structure. A stored
+ * Employee only holds the IDs of its reports, a report that is not expanded here is a view with only its employeeId.
+ *
+ * Views are built for one response and never stored or cached, so nothing else can see one change.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class EmployeeView {
+    private final String employeeId;
+    private final String firstName;
+    private final String lastName;
+    private final String position;
+    private final String department;
+    private final List<EmployeeView> directReports;
+    private final Long version;
+
+    @JsonCreator
+    public EmployeeView(@JsonProperty("employeeId") String employeeId,
+                        @JsonProperty("firstName") String firstName,
+                        @JsonProperty("lastName") String lastName,
+                        @JsonProperty("position") String position,
+                        @JsonProperty("department") String department,
+                        @JsonProperty("directReports") List<EmployeeView> directReports,
+                        @JsonProperty("version") Long version) {
+        this.employeeId = employeeId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.position = position;
+        this.department = department;
+        this.directReports = directReports == null ? null : List.copyOf(directReports);
+        this.version = version;
+    }
+
+    public static EmployeeView of(Employee employee, List<EmployeeView> directReports) {
+        return new EmployeeView(employee.getEmployeeId(), employee.getFirstName(), employee.getLastName(),
+                employee.getPosition(), employee.getDepartment(), directReports, employee.getVersion());
+    }
+
+    //a direct report that was not expanded
+    public static EmployeeView stub(String employeeId) {
+        return new EmployeeView(employeeId, null, null, null, null, null, null);
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getPosition() {
+        return position;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public List<EmployeeView> getDirectReports() {
+        return directReports;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
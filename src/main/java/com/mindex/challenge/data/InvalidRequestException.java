@@ -0,0 +1,12 @@
+package com.mindex.challenge.data;
+
+/**
+ * A request parameter the client sent that cannot be served, such as a negative page size or a cursor this service did
+ * not hand out. The controllers answer it with 400 rather than a server error.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
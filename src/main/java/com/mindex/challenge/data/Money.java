@@ -0,0 +1,94 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.Objects;
+
+/**
+ * An amount of money held as a whole number of the currency's minor units (cents for USD), so sums are exact and the
+ * stored value never depends on how it was formatted.
+ *
+ * In JSON it is written as a formatted string such as "$123,456.30", and read back from that, a plain number or
+ * numeric string, or an object with "amount" and "currency".
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+public final class Money {
+    public static final String DEFAULT_CURRENCY = "USD";
+
+    private final long minorUnits;
+    private final String currency;
+
+    //formatted on first use and kept, a cached compensation is written out many times, not stored
+    private transient String formatted;
+
+    public Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency == null ? DEFAULT_CURRENCY : currency;
+    }
+
+    public static Money of(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Parses an amount in the default currency, with or without its symbol and grouping, e.g. "123456.3" or "$123,456.30".
+     */
+    public static Money parse(String amount) {
+        return parse(amount, DEFAULT_CURRENCY);
+    }
+
+    public static Money parse(String amount, String currency) {
+        MoneyFormat format = MoneyFormat.of(currency);
+        return new Money(format.parse(amount), format.getCurrency());
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Cannot add " + other.currency + " to " + currency);
+        }
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    //the display form, same as the JSON value
+    public String format() {
+        //a racing thread at worst formats the same immutable string twice
+        String formatted = this.formatted;
+        if (formatted == null) {
+            formatted = MoneyFormat.of(currency).format(minorUnits);
+            this.formatted = formatted;
+        }
+        return formatted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minorUnits, currency);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -0,0 +1,39 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+class MoneyDeserializer extends StdDeserializer<Money> {
+
+    MoneyDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        String amount;
+        String currency = Money.DEFAULT_CURRENCY;
+
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            JsonNode node = parser.readValueAsTree();
+            amount = node.path("amount").asText(null);
+            if (node.hasNonNull("currency")) {
+                currency = node.get("currency").asText();
+            }
+        } else {
+            //numbers are taken from their text, so a decimal amount never passes through a double
+            amount = parser.getText();
+        }
+
+        try {
+            return Money.parse(amount, currency);
+        } catch (IllegalArgumentException e) {
+            throw context.weirdStringException(amount, Money.class, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mindex.challenge.data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Formats and parses amounts for one currency, independent of the JVM's default locale. Instances are immutable and
+ * cached per currency, so formatting allocates nothing but the resulting string.
+ */
+final class MoneyFormat {
+    private static final ConcurrentMap<String, MoneyFormat> FORMATS = new ConcurrentHashMap<>();
+
+    private final String currency;
+    private final String prefix;
+    private final int fractionDigits;
+    private final long scale;
+
+    private MoneyFormat(Currency currency) {
+        this.currency = currency.getCurrencyCode();
+        //US dollars keep the "$123,456.30" form the API has always returned, other currencies lead with their code
+        this.prefix = "USD".equals(this.currency) ? "$" : this.currency + " ";
+        this.fractionDigits = Math.max(0, currency.getDefaultFractionDigits());
+
+        long scale = 1;
+        for (int i = 0; i < fractionDigits; i++) {
+            scale *= 10;
+        }
+        this.scale = scale;
+    }
+
+    static MoneyFormat of(String currencyCode) {
+        return FORMATS.computeIfAbsent(currencyCode, code -> new MoneyFormat(Currency.getInstance(code)));
+    }
+
+    String getCurrency() {
+        return currency;
+    }
+
+    String format(long minorUnits) {
+        StringBuilder formatted = new StringBuilder(24);
+        if (minorUnits < 0) {
+            formatted.append('-');
+        }
+        formatted.append(prefix);
+
+        //works on the magnitude as a negative number, so Long.MIN_VALUE does not overflow
+        long negative = minorUnits < 0 ? minorUnits : -minorUnits;
+        String whole = Long.toString(-(negative / scale));
+        int firstGroup = whole.length() % 3 == 0 ? 3 : whole.length() % 3;
+        formatted.append(whole, 0, firstGroup);
+        for (int i = firstGroup; i < whole.length(); i += 3) {
+            formatted.append(',').append(whole, i, i + 3);
+        }
+
+        if (fractionDigits > 0) {
+            String fraction = Long.toString(-(negative % scale));
+            formatted.append('.');
+            for (int i = fraction.length(); i < fractionDigits; i++) {
+                formatted.append('0');
+            }
+            formatted.append(fraction);
+        }
+
+        return formatted.toString();
+    }
+
+    //accepts the formatted form as well as plain numbers, sub-minor-unit digits are rounded half-even
+    long parse(String amount) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Missing amount");
+        }
+
+        String digits = amount.trim();
+        boolean negative = digits.startsWith("-");
+        if (negative) {
+            digits = digits.substring(1).trim();
+        }
+        if (digits.startsWith(prefix.trim())) {
+            digits = digits.substring(prefix.trim().length()).trim();
+        }
+        digits = digits.replace(",", "");
+
+        try {
+            BigDecimal value = new BigDecimal(digits).setScale(fractionDigits, RoundingMode.HALF_EVEN);
+            long minorUnits = value.unscaledValue().longValueExact();
+            return negative ? -minorUnits : minorUnits;
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + currency + " amount: " + amount, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+//formatting only happens here, at the edge of the API, the stored and computed value stays in minor units
+class MoneySerializer extends StdSerializer<Money> {
+
+    MoneySerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeString(money.format());
+    }
+}
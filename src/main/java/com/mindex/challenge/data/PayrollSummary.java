@@ -0,0 +1,93 @@
+package com.mindex.challenge.data;
+
+/**
+ * Salary totals and distribution for one department or manager subtree, in a single currency. Percentiles use the
+ * nearest-rank method, so each one is a salary someone in the group is actually paid.
+ */
+public class PayrollSummary {
+    private String group;
+    private Integer headcount;
+    private Money total;
+    private Money mean;
+    private Money min;
+    private Money median;
+    private Money p90;
+    private Money p99;
+    private Money max;
+
+    public PayrollSummary() {
+
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public Integer getHeadcount() {
+        return headcount;
+    }
+
+    public void setHeadcount(Integer headcount) {
+        this.headcount = headcount;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public void setTotal(Money total) {
+        this.total = total;
+    }
+
+    public Money getMean() {
+        return mean;
+    }
+
+    public void setMean(Money mean) {
+        this.mean = mean;
+    }
+
+    public Money getMin() {
+        return min;
+    }
+
+    public void setMin(Money min) {
+        this.min = min;
+    }
+
+    public Money getMedian() {
+        return median;
+    }
+
+    public void setMedian(Money median) {
+        this.median = median;
+    }
+
+    public Money getP90() {
+        return p90;
+    }
+
+    public void setP90(Money p90) {
+        this.p90 = p90;
+    }
+
+    public Money getP99() {
+        return p99;
+    }
+
+    public void setP99(Money p99) {
+        this.p99 = p99;
+    }
+
+    public Money getMax() {
+        return max;
+    }
+
+    public void setMax(Money max) {
+        this.max = max;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+//a direct report is accepted as its ID or, as the seed data and older clients send it, as {"employeeId": "..."}
+class ReportIdDeserializer extends StdDeserializer<String> {
+
+    ReportIdDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            JsonNode node = parser.readValueAsTree();
+            return node.path("employeeId").asText(null);
+        }
+        return parser.getValueAsString();
+    }
+}
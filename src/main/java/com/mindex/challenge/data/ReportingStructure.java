@@ -1,23 +1,27 @@
 package com.mindex.challenge.data;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+//the employee is left out of a count-only response
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ReportingStructure {
-    private Employee employee;
+    private EmployeeView employee;
     private Integer numberOfReports;
 
     public ReportingStructure() {
 
     }
 
-    public ReportingStructure(Employee employee, Integer numberOfReports) {
+    public ReportingStructure(EmployeeView employee, Integer numberOfReports) {
         this.employee = employee;
         this.numberOfReports = numberOfReports;
     }
 
-    public Employee getEmployee() {
+    public EmployeeView getEmployee() {
         return employee;
     }
 
-    public void setEmployee(Employee employee) {
+    public void setEmployee(EmployeeView employee) {
         this.employee = employee;
     }
 
@@ -1,14 +1,46 @@
 package com.mindex.challenge.service;
 
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.ChangeEvent;
 import com.mindex.challenge.data.Compensation;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
 import com.mindex.challenge.data.ReportingStructure;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
 public interface EmployeeService {
     Employee create(Employee employee);
+    BatchResult createBatch(List<Employee> employees);
     Employee read(String id);
     Employee update(Employee employee);
     ReportingStructure reports(String id);
+    //the tree stops depth levels below the employee, and each employee in it only has the requested fields filled in
+    //countOnly skips the tree altogether and returns only the number of reports
+    ReportingStructure reports(String id, Integer depth, Set<String> fields, boolean countOnly);
+    //the same, at least as new as the given reportsVersion(), a caller that tags the tree with it reads it first and
+    //passes it in here
+    ReportingStructure reports(String id, Integer depth, Set<String> fields, boolean countOnly, String reportsVersion);
+    //moves on with every write that may change the employee's tree, a caller that tags the tree with it reads it first
+    String reportsVersion(String id);
+    //the chain of command above the employee, direct manager first
+    List<Employee> managers(String id);
+    //one page of the directory, filtered and in last name order, continued with the cursor of the previous page
+    EmployeePage search(String department, String position, String q, String after, Integer limit);
     Compensation submitCompensation(String id, Compensation compensation);
+    BatchResult submitCompensationBatch(List<Compensation> compensations);
     Compensation readCompensation(String id);
+    Compensation readCompensationAsOf(String id, LocalDate asOf);
+    List<Compensation> readCompensationHistory(String id);
+    //the writes after the given sequence number in the order they were made, from the first one still retained when null
+    List<ChangeEvent> events(Long since, Integer limit);
+    //the sequence number of the last write, 0 before the first one since startup
+    long lastEventSequence();
+
+    //every record, straight from a database cursor, the caller closes the stream to release it
+    Stream<Employee> exportEmployees();
+    Stream<Compensation> exportCompensation();
 }
@@ -0,0 +1,15 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.DepartmentHeadcount;
+import com.mindex.challenge.data.PayrollSummary;
+
+import java.util.List;
+
+public interface PayrollService {
+    //one summary per department and currency
+    List<PayrollSummary> departments();
+    //every employee per department, whether or not they have a compensation
+    List<DepartmentHeadcount> headcounts();
+    //one summary per currency, covering the manager and everyone below them
+    List<PayrollSummary> managerSubtree(String id);
+}
@@ -0,0 +1,43 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of {@link EmployeeService}, every result is delivered without holding a thread while the
+ * database works.
+ */
+public interface ReactiveEmployeeService {
+    Mono<Employee> create(Employee employee);
+    Mono<BatchResult> createBatch(List<Employee> employees);
+    Mono<Employee> read(String id);
+    Mono<Employee> update(Employee employee);
+    Mono<ReportingStructure> reports(String id);
+    Mono<ReportingStructure> reports(String id, Integer depth, Set<String> fields, boolean countOnly);
+    Mono<ReportingStructure> reports(String id, Integer depth, Set<String> fields, boolean countOnly, String reportsVersion);
+    Mono<String> reportsVersion(String id);
+    Flux<Employee> managers(String id);
+    //one page of the directory, filtered and in last name order, continued with the cursor of the previous page
+    Mono<EmployeePage> search(String department, String position, String q, String after, Integer limit);
+    Mono<Compensation> submitCompensation(String id, Compensation compensation);
+    Mono<BatchResult> submitCompensationBatch(List<Compensation> compensations);
+    Mono<Compensation> readCompensation(String id);
+    Mono<Compensation> readCompensationAsOf(String id, LocalDate asOf);
+    Flux<Compensation> readCompensationHistory(String id);
+    Flux<ChangeEvent> events(Long since, Integer limit);
+    Mono<Long> lastEventSequence();
+
+    //every record, read from the cursor only as fast as the subscriber requests it
+    Flux<Employee> exportEmployees();
+    Flux<Compensation> exportCompensation();
+}
@@ -0,0 +1,19 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.ChangeEvent;
+
+/**
+ * A view kept up to date from the change event log. Events are handed over one at a time and in sequence order, under a
+ * lock the log keeps for this view alone, so a view never sees two at once or one out of order, and is never reloaded
+ * while it applies one. An employee event never carries an older version of the employee than one the view has already
+ * seen.
+ */
+interface ChangeEventListener {
+    void apply(ChangeEvent event);
+
+    /**
+     * Replaces everything the view holds with what is stored. Called when the view could not apply an event, by then
+     * the store holds that write and every one logged before it.
+     */
+    void reload();
+}
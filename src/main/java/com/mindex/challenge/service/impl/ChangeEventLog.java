@@ -0,0 +1,257 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.InvalidRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded, ordered log of every write the services accept, kept in memory.
+ *
+ * Each event is numbered and handed to every {@link ChangeEventListener} before the write returns, so the materialized
+ * views are never behind the request that changed them. The log keeps the latest events in a ring, a consumer tailing
+ * it asks for the events after the last sequence it has seen. One that falls further behind than the ring holds, or
+ * asks for a sequence from before a restart, is told so and has to start over from an export.
+ *
+ * The log's own lock is only held to number an event and put it in the ring. Every view is fed from the ring under a
+ * lock of its own, in sequence order, by whichever write gets to it first, which applies every event logged so far in
+ * one go. A write therefore waits on a view only for the events logged before it, and writers applying one view do not
+ * hold up those applying another.
+ *
+ * A write reaches the log after the database has taken it, so two writes to one employee can arrive in the opposite
+ * order. Each carries the whole employee at the version it wrote, so one older than what was already logged for the
+ * employee is dropped rather than handed to the views. The versions are only kept for the employees with an event
+ * still in the ring, so they take no more memory than the ring does. A write that arrives more than a ring's worth of
+ * events after a newer write to the same employee is therefore taken.
+ *
+ * A view that fails to apply an event, or falls so far behind that the ring no longer holds the events it needs, is
+ * reloaded from the store, which already holds every write logged so far. If the reload fails too, the write is
+ * reported as failed and the view is reloaded again on the next event.
+ */
+@Component
+public class ChangeEventLog {
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeEventLog.class);
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<ViewFeed> feeds = new ArrayList<>();
+    private final ChangeEvent[] events;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    //by employee ID, the version of the last event logged for them, for the employees with an event in the ring
+    private final Map<String, Long> employeeVersions = new HashMap<>();
+
+    //sequence of the last event appended, 0 before the first
+    private long lastSequence;
+    //sequence of the last event every listener has applied, read without the lock so the event loop never waits on it
+    private final AtomicLong appliedSequence = new AtomicLong();
+
+    public ChangeEventLog(List<ChangeEventListener> listeners, @Value("${challenge.events.capacity:10000}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalStateException("Invalid event log capacity: " + capacity);
+        }
+        for (ChangeEventListener listener : listeners) {
+            feeds.add(new ViewFeed(listener));
+        }
+        this.events = new ChangeEvent[capacity];
+    }
+
+    //null when a newer version of the employee has already been logged
+    public ChangeEvent employeeCreated(Employee employee) {
+        return append(new ChangeEvent(ChangeEvent.Type.EMPLOYEE_CREATED, employee, null));
+    }
+
+    //null when a newer version of the employee has already been logged
+    public ChangeEvent employeeUpdated(Employee employee) {
+        return append(new ChangeEvent(ChangeEvent.Type.EMPLOYEE_UPDATED, employee, null));
+    }
+
+    public ChangeEvent compensationSubmitted(Compensation compensation) {
+        return append(new ChangeEvent(ChangeEvent.Type.COMPENSATION_SUBMITTED, null, compensation));
+    }
+
+    private ChangeEvent append(ChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (isStale(event.getEmployee())) {
+                LOG.debug("Dropped stale change event for employee [{}] at version [{}]", event.getEmployee().getEmployeeId(), event.getEmployee().getVersion());
+                return null;
+            }
+
+            event.setSequence(++lastSequence);
+            event.setTimestamp(Instant.now());
+            int slot = (int) (event.getSequence() % events.length);
+            forgetVersion(events[slot]);
+            events[slot] = event;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        //the event is already numbered, so one view failing must not keep it from the rest
+        RuntimeException reloadFailure = null;
+        long applied = event.getSequence();
+        for (ViewFeed feed : feeds) {
+            try {
+                applied = Math.min(applied, feed.catchUp(event.getSequence()));
+            } catch (RuntimeException e) {
+                reloadFailure = e;
+            }
+        }
+        if (reloadFailure != null) {
+            throw new IllegalStateException("Change event " + event.getSequence() + " was logged but a view could not be reloaded", reloadFailure);
+        }
+
+        appliedSequence.accumulateAndGet(applied, Math::max);
+        return event;
+    }
+
+    //an employee written without a version cannot be ordered and is always taken
+    private boolean isStale(Employee employee) {
+        if (employee == null || employee.getVersion() == null) {
+            return false;
+        }
+
+        Long loggedVersion = employeeVersions.get(employee.getEmployeeId());
+        if (loggedVersion != null && employee.getVersion() <= loggedVersion) {
+            return true;
+        }
+        employeeVersions.put(employee.getEmployeeId(), employee.getVersion());
+        return false;
+    }
+
+    //the version is only remembered while the ring still holds the employee's last event, so the map is no larger than the ring
+    private void forgetVersion(ChangeEvent overwritten) {
+        if (overwritten != null && overwritten.getEmployee() != null && overwritten.getEmployee().getVersion() != null) {
+            employeeVersions.remove(overwritten.getEmployee().getEmployeeId(), overwritten.getEmployee().getVersion());
+        }
+    }
+
+    //every event logged after the given sequence, or null when the ring has already overwritten some of them
+    private List<ChangeEvent> eventsAfter(long after) {
+        lock.readLock().lock();
+        try {
+            if (after < lastSequence - events.length) {
+                return null;
+            }
+
+            List<ChangeEvent> page = new ArrayList<>((int) (lastSequence - after));
+            for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+                page.add(events[(int) (sequence % events.length)]);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long appendedSequence() {
+        lock.readLock().lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //moves on with every write, so it tells whether anything may have changed since it was last read
+    //only once the views have applied it, so whatever is read from them afterwards is at least that current
+    public long lastSequence() {
+        return appliedSequence.get();
+    }
+
+    /**
+     * The events after the given sequence, oldest first.
+     *
+     * @param since sequence of the last event the caller has seen, null for the oldest event the log still holds
+     * @param limit most events to return, {@link #DEFAULT_LIMIT} when null and at most {@link #MAX_LIMIT}
+     */
+    public List<ChangeEvent> since(Long since, Integer limit) {
+        if (limit == null) {
+            limit = DEFAULT_LIMIT;
+        } else if (limit < 1) {
+            throw new InvalidRequestException("Invalid limit: " + limit);
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+
+        lock.readLock().lock();
+        try {
+            //the ring has overwritten events the caller has not seen, or the caller has seen events this log never had
+            long oldestSequence = Math.max(1, lastSequence - events.length + 1);
+            long after = since == null ? oldestSequence - 1 : since;
+            if (after < oldestSequence - 1 || after > lastSequence) {
+                throw new InvalidRequestException("Invalid since: " + after);
+            }
+
+            int count = (int) Math.min(limit, lastSequence - after);
+            List<ChangeEvent> page = new ArrayList<>(count);
+            for (long sequence = after + 1; sequence <= after + count; sequence++) {
+                page.add(events[(int) (sequence % events.length)]);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //hands the events to one view in sequence order, the view's lock is only ever held by one write at a time
+    private final class ViewFeed {
+        private final ChangeEventListener listener;
+        //sequence of the last event the view has applied, or that its last reload already covered
+        private long applied;
+        //the view missed an event and has not been reloaded since
+        private boolean stale;
+
+        private ViewFeed(ChangeEventListener listener) {
+            this.listener = listener;
+        }
+
+        //applies every event logged so far, unless an earlier write already has, returns the last one applied
+        synchronized long catchUp(long sequence) {
+            if (applied >= sequence) {
+                return applied;
+            }
+
+            if (!stale) {
+                List<ChangeEvent> pending = eventsAfter(applied);
+                if (pending == null) {
+                    LOG.error("Change event listener [{}] fell behind the event log, reloading it", listener.getClass().getSimpleName());
+                    stale = true;
+                } else {
+                    for (ChangeEvent event : pending) {
+                        try {
+                            listener.apply(event);
+                        } catch (RuntimeException e) {
+                            LOG.error("Change event listener [{}] failed to apply event [{}], reloading it", listener.getClass().getSimpleName(), event.getSequence(), e);
+                            stale = true;
+                            break;
+                        }
+                        applied = event.getSequence();
+                    }
+                }
+            }
+
+            //a view that misses an event would stay wrong for good, so instead it is reloaded, here and on every later
+            //event until a reload succeeds, the store already holds every write logged up to now
+            if (stale) {
+                long covered = appendedSequence();
+                listener.reload();
+                applied = covered;
+                stale = false;
+            }
+            return applied;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.BatchItemResult;
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.Compensation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Validation and result bookkeeping for a compensation batch, shared by the blocking and reactive services. The caller
+ * looks up which employees exist, writes {@link #getValidCompensations()} and reports the write errors back.
+ */
+final class CompensationBatch {
+    private final List<Compensation> compensations;
+    private final BatchItemResult[] results;
+    private final List<Compensation> validCompensations = new ArrayList<>();
+    private final List<Integer> validIndexes = new ArrayList<>();
+
+    CompensationBatch(List<Compensation> compensations, Set<String> existingEmployeeIds) {
+        this.compensations = compensations;
+        this.results = new BatchItemResult[compensations.size()];
+
+        for (int i = 0; i < compensations.size(); i++) {
+            String employeeId = compensations.get(i).getEmployeeCompensationId();
+
+            if (!existingEmployeeIds.contains(employeeId)) {
+                results[i] = new BatchItemResult(i, employeeId, false, "Invalid employeeId: " + employeeId);
+            } else {
+                //every entry is appended to the history, several for one employee are kept in batch order
+                defaultEffectiveDate(compensations.get(i));
+                validCompensations.add(compensations.get(i));
+                validIndexes.add(i);
+            }
+        }
+    }
+
+    static Set<String> employeeIds(List<Compensation> compensations) {
+        Set<String> employeeIds = new HashSet<>();
+        for (Compensation compensation : compensations) {
+            if (compensation.getEmployeeCompensationId() != null) {
+                employeeIds.add(compensation.getEmployeeCompensationId());
+            }
+        }
+        return employeeIds;
+    }
+
+    //an entry submitted without an effective date takes effect the day it is submitted
+    static void defaultEffectiveDate(Compensation compensation) {
+        if (compensation.getEffectiveDate() == null) {
+            compensation.setEffectiveDate(LocalDate.now());
+        }
+    }
+
+    List<Compensation> getValidCompensations() {
+        return validCompensations;
+    }
+
+    //errors are keyed by position in the valid compensations, the callback runs for every compensation that was written
+    BatchResult complete(Map<Integer, String> errors, Consumer<Compensation> written) {
+        for (int j = 0; j < validIndexes.size(); j++) {
+            int i = validIndexes.get(j);
+            String employeeId = compensations.get(i).getEmployeeCompensationId();
+            String error = errors.get(j);
+
+            results[i] = new BatchItemResult(i, employeeId, error == null, error);
+            if (error == null) {
+                written.accept(compensations.get(i));
+            }
+        }
+
+        return new BatchResult(Arrays.asList(results));
+    }
+}
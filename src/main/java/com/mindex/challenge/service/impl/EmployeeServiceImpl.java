@@ -1,43 +1,107 @@
 package com.mindex.challenge.service.impl;
 
 import com.mindex.challenge.dao.CompensationRepository;
-import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeSearch;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.BatchItemResult;
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.ChangeEvent;
 import com.mindex.challenge.data.Compensation;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
 import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.EmployeeService;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+//every method is timed as employee.service, tagged with the method name
 @Service
+@Timed(value = "employee.service", histogram = true)
 public class EmployeeServiceImpl implements EmployeeService {
 
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeServiceImpl.class);
 
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private EmployeeStore employeeStore;
     @Autowired
     private CompensationRepository compensationRepository;
+    @Autowired
+    private OrgGraphIndex orgGraphIndex;
+    @Autowired
+    private EmployeeCache employeeCache;
+    @Autowired
+    private ReportMetrics reportMetrics;
+    //the org graph index and the payroll view follow every write through the log
+    @Autowired
+    private ChangeEventLog changeEventLog;
+
+    //caps the size of a single $in query when the whole subtree is fetched at once
+    private static final int REPORT_FETCH_BATCH_SIZE = 1000;
+
+    //identical reporting requests that arrive together share one fetch, reads of a single employee are already
+    //coalesced by the loading cache in front of the store
+    private final SingleFlight<List<Object>, ReportingStructure> reportFlights = new SingleFlight<>(() -> reportMetrics.coalesced());
 
     @Override
     public Employee create(Employee employee) {
         LOG.debug("Creating employee [{}]", employee);
 
         employee.setEmployeeId(UUID.randomUUID().toString());
-        employeeRepository.insert(employee);
+        employeeStore.insert(employee);
+        employeeCache.evictEmployee(employee.getEmployeeId());
+        changeEventLog.employeeCreated(employee);
 
         return employee;
     }
 
+    @Override
+    public BatchResult createBatch(List<Employee> employees) {
+        LOG.debug("Creating a batch of [{}] employees", employees.size());
+
+        for (Employee employee : employees) {
+            employee.setEmployeeId(UUID.randomUUID().toString());
+        }
+
+        //one unordered bulk write for the whole batch, a failed employee does not stop the rest from being inserted
+        Map<Integer, String> errors = employeeStore.bulkInsert(employees);
+
+        List<BatchItemResult> results = new ArrayList<>(employees.size());
+        for (int i = 0; i < employees.size(); i++) {
+            Employee employee = employees.get(i);
+            String error = errors.get(i);
+
+            if (error == null) {
+                employeeCache.evictEmployee(employee.getEmployeeId());
+                changeEventLog.employeeCreated(employee);
+            }
+            results.add(new BatchItemResult(i, employee.getEmployeeId(), error == null, error));
+        }
+
+        return new BatchResult(results);
+    }
+
     @Override
     public Employee read(String id) {
         //updated logger message, previously said 'creating'
         LOG.debug("Reading employee with id [{}]", id);
 
-        Employee employee = employeeRepository.findByEmployeeId(id);
+        Employee employee = employeeCache.findEmployee(id);
 
         if (employee == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
@@ -50,27 +114,106 @@ public class EmployeeServiceImpl implements EmployeeService {
     public Employee update(Employee employee) {
         LOG.debug("Updating employee [{}]", employee);
 
-        //added a delete method, was getting an error on updating then reading from same ID on the existing code
-        //new functionality, it  deletes the old employee from the DB, then adds in the new one
-        employeeRepository.deleteByEmployeeId(employee.getEmployeeId());
+        //replaces the stored employee in one atomic upsert, so concurrent readers never see it missing
+        //if the payload carries a version, the update is rejected when someone else has written the employee since
+        Employee updatedEmployee = employeeStore.upsert(employee);
+        employeeCache.evictEmployee(employee.getEmployeeId());
+        changeEventLog.employeeUpdated(updatedEmployee);
 
-        return employeeRepository.save(employee);
+        return updatedEmployee;
     }
 
     @Override
     public ReportingStructure reports(String id) {
-        LOG.debug("Generating number of reports for employee with id [{}]", id);
+        return reports(id, null, null, false);
+    }
+
+    @Override
+    public ReportingStructure reports(String id, Integer depth, Set<String> fields, boolean countOnly) {
+        return reports(id, depth, fields, countOnly, reportsVersion(id));
+    }
+
+    @Override
+    public ReportingStructure reports(String id, Integer depth, Set<String> fields, boolean countOnly, String reportsVersion) {
+        //guarded, so the hot path does not allocate the argument array while DEBUG is off
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Generating number of reports for employee with id [{}] to depth [{}] with fields [{}]", id, depth, fields);
+        }
 
-        Employee reportingEmployee = employeeRepository.findByEmployeeId(id);
+        int maxDepth = countOnly ? 0 : ReportTree.maxDepth(depth);
+        //without the tree only the IDs are needed to count the reports
+        Set<String> projection = countOnly ? Set.of() : ReportTree.projection(fields);
+
+        //the org graph index already knows the count, so a request for only the count never touches the database
+        Integer numberOfReports = orgGraphIndex.numberOfReports(id);
+        if (countOnly && numberOfReports != null) {
+            reportMetrics.queries(0);
+            return new ReportingStructure(null, numberOfReports);
+        }
+
+        //the tree returned is immutable, so every request that joined can be answered with it
+        return reportFlights.call(ReportTree.requestKey(id, maxDepth, projection, countOnly), reportsVersion,
+                () -> generateReports(id, numberOfReports, maxDepth, projection, countOnly));
+    }
+
+    private ReportingStructure generateReports(String id, Integer numberOfReports, int maxDepth, Set<String> projection, boolean countOnly) {
+        Employee reportingEmployee = fetchEmployee(id, projection);
 
         if (reportingEmployee == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
         }
 
-        //assigning the generated number of reports to its own method, due to utilizing recursion to increment effectively
-        ReportingStructure reportingStructure = new ReportingStructure(reportingEmployee, generateNumberOfReports(reportingEmployee, 0));
+        //the index also knows every ID down to the requested depth, so the tree is filled in from one batched fetch
+        List<String> reportIds = numberOfReports == null ? null : orgGraphIndex.reportIds(id, maxDepth);
+
+        ReportTree tree = new ReportTree(reportingEmployee);
+        if (reportIds == null) {
+            //not indexed yet, fall back to resolving the tree level by level
+            numberOfReports = generateNumberOfReports(tree, reportingEmployee, maxDepth, projection, !countOnly);
+            return new ReportingStructure(countOnly ? null : tree.view(), numberOfReports);
+        }
+
+        fillInReports(tree, reportIds, projection);
+
+        return new ReportingStructure(tree.view(), numberOfReports);
+    }
+
+    @Override
+    public String reportsVersion(String id) {
+        //an employee the index does not know yet is tagged by the last write anywhere, which has no dot in it
+        String subtreeVersion = orgGraphIndex.subtreeVersion(id);
+        return subtreeVersion != null ? subtreeVersion : Long.toString(changeEventLog.lastSequence());
+    }
+
+    @Override
+    public List<Employee> managers(String id) {
+        LOG.debug("Reading the chain of command for employee with id [{}]", id);
+
+        //the index holds the parent of every employee, so the walk up costs one step per level instead of a query
+        List<String> managerIds = orgGraphIndex.managerIds(id);
+        if (managerIds == null) {
+            throw new RuntimeException("Invalid employeeId: " + id);
+        }
+
+        //each manager is normally already cached, they sit on the chain of every employee below them, the rest are read in one query
+        Map<String, Employee> cached = employeeCache.findEmployees(managerIds);
+        List<Employee> managers = new ArrayList<>(managerIds.size());
+        for (String managerId : managerIds) {
+            Employee manager = cached.get(managerId);
+            if (manager != null) {
+                managers.add(manager);
+            }
+        }
+
+        return managers;
+    }
 
-        return reportingStructure;
+    @Override
+    public EmployeePage search(String department, String position, String q, String after, Integer limit) {
+        LOG.debug("Searching employees in department [{}] with position [{}] and name [{}] after [{}]", department, position, q, after);
+
+        EmployeeSearch search = EmployeeSearch.of(department, position, q, after, limit);
+        return search.page(employeeStore.search(search));
     }
 
     @Override
@@ -85,22 +228,38 @@ public class EmployeeServiceImpl implements EmployeeService {
         compensation.setEmployeeCompensationId(id);
 
         //checking to see if employee exists before creating/updating compensation data
-        if (employeeRepository.findByEmployeeId(id) == null) {
+        if (employeeCache.findEmployee(id) == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
         }
 
-        Compensation employeeCompensation = compensationRepository.findByEmployeeCompensationId(id);
+        //appends a new entry to the compensation history in a single insert, earlier entries are never touched
+        CompensationBatch.defaultEffectiveDate(compensation);
+        Compensation employeeCompensation = compensationRepository.insert(compensation);
+        employeeCache.evictCompensation(id);
+        changeEventLog.compensationSubmitted(employeeCompensation);
 
-        //if compensation info does not exist for this user, create it
-        if (employeeCompensation == null) {
-            return compensationRepository.insert(compensation);
+        return employeeCompensation;
+    }
+
+    @Override
+    public BatchResult submitCompensationBatch(List<Compensation> compensations) {
+        LOG.debug("Creating compensation for a batch of [{}] employees", compensations.size());
+
+        //checking that every employee in the batch exists with a single query, rather than one lookup per compensation
+        Set<String> existingEmployeeIds = new HashSet<>();
+        for (Employee employee : employeeStore.findByEmployeeIdIn(CompensationBatch.employeeIds(compensations))) {
+            existingEmployeeIds.add(employee.getEmployeeId());
         }
 
-        //if it exists, update the info. I am using the updated /update method that contains the fix mentioned above in the method
-        compensationRepository.deleteByEmployeeCompensationId(compensation.getEmployeeCompensationId());
+        CompensationBatch batch = new CompensationBatch(compensations, existingEmployeeIds);
 
-        return compensationRepository.save(compensation);
+        //one unordered bulk write appends the compensation for every valid employee
+        Map<Integer, String> errors = compensationRepository.bulkInsert(batch.getValidCompensations());
 
+        return batch.complete(errors, written -> {
+            employeeCache.evictCompensation(written.getEmployeeCompensationId());
+            changeEventLog.compensationSubmitted(written);
+        });
     }
 
     @Override
@@ -108,11 +267,12 @@ public class EmployeeServiceImpl implements EmployeeService {
         LOG.debug("Reading compensation for employee with id [{}]", id);
 
         //checking to see if employee exists, returns invalid employee message
-        if (employeeRepository.findByEmployeeId(id) == null) {
+        //both lookups go through the read-through cache, so a hot employee costs no database round trips
+        if (employeeCache.findEmployee(id) == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
         }
 
-        Compensation employeeCompensation = compensationRepository.findByEmployeeCompensationId(id);
+        Compensation employeeCompensation = employeeCache.findCompensation(id);
 
         //checking to see if employee compensation exists, returns no compensation found for this employee message
         if (employeeCompensation == null) {
@@ -122,23 +282,130 @@ public class EmployeeServiceImpl implements EmployeeService {
         return employeeCompensation;
     }
 
-    private Integer generateNumberOfReports(Employee employee, Integer numberOfReports) {
+    @Override
+    public Compensation readCompensationAsOf(String id, LocalDate asOf) {
+        LOG.debug("Reading compensation for employee with id [{}] as of [{}]", id, asOf);
+
+        if (employeeCache.findEmployee(id) == null) {
+            throw new RuntimeException("Invalid employeeId: " + id);
+        }
+
+        //past and future dates are rare enough that only the entry in effect today is cached
+        Compensation employeeCompensation = compensationRepository.findAsOf(id, asOf);
+
+        if (employeeCompensation == null) {
+            throw new RuntimeException("No compensation data found for employeeId: " + id + " as of " + asOf);
+        }
+
+        return employeeCompensation;
+    }
+
+    @Override
+    public List<Compensation> readCompensationHistory(String id) {
+        LOG.debug("Reading compensation history for employee with id [{}]", id);
+
+        if (employeeCache.findEmployee(id) == null) {
+            throw new RuntimeException("Invalid employeeId: " + id);
+        }
+
+        return compensationRepository.findHistory(id);
+    }
+
+    @Override
+    public List<ChangeEvent> events(Long since, Integer limit) {
+        LOG.debug("Reading change events since [{}]", since);
+
+        return changeEventLog.since(since, limit);
+    }
+
+    @Override
+    public long lastEventSequence() {
+        return changeEventLog.lastSequence();
+    }
+
+    @Override
+    public Stream<Employee> exportEmployees() {
+        LOG.debug("Exporting all employees");
+
+        return employeeStore.streamAllBy();
+    }
+
+    @Override
+    public Stream<Compensation> exportCompensation() {
+        LOG.debug("Exporting all compensation");
 
-        //once we reach an employee with no direct reports, we return out of the recursion
-        if(employee.getDirectReports() == null) {
-            return numberOfReports;
+        return compensationRepository.streamAllBy();
+    }
+
+    private void fillInReports(ReportTree tree, List<String> reportIds, Set<String> projection) {
+        List<List<String>> batches = ReportTree.batches(reportIds, REPORT_FETCH_BATCH_SIZE);
+        Map<String, Employee> fetchedReports = new HashMap<>();
+        for (List<String> batch : batches) {
+            for (Employee fetchedReport : fetchEmployees(batch, projection)) {
+                fetchedReports.put(fetchedReport.getEmployeeId(), fetchedReport);
+            }
         }
 
-        for(int i = 0; i < employee.getDirectReports().size(); i++) {
+        int treeDepth = tree.placeAllReports(fetchedReports);
+
+        reportMetrics.queries(1 + batches.size());
+        reportMetrics.tree(tree.size(), treeDepth);
+    }
 
-            //in the existing database, the directReport employee objects are blank, only containing employee ID
-            //by doing this call below, we can fill in those extra variables, most notably, the direct reports object within employee
-            employee.getDirectReports().set(i, employeeRepository.findByEmployeeId(employee.getDirectReports().get(i).getEmployeeId()));
+    private Integer generateNumberOfReports(ReportTree tree, Employee reportingEmployee, int maxDepth, Set<String> projection, boolean recordTree) {
+        //walks the org tree one level at a time, so the number of database round trips grows with the depth of the tree rather than the headcount
+        Set<String> visited = new HashSet<>();
+        visited.add(reportingEmployee.getEmployeeId());
+
+        List<Employee> level = Collections.singletonList(reportingEmployee);
+        int numberOfReports = 0;
+        int depth = 0;
+        int treeSize = 0;
+        int treeDepth = 0;
+
+        while (!level.isEmpty()) {
+            Set<String> reportIds = ReportTree.unvisitedReportIds(level, visited);
+            if (reportIds.isEmpty()) {
+                break;
+            }
+
+            //fetch the whole level with a single $in query
+            Map<String, Employee> fetchedReports = new HashMap<>();
+            for (Employee fetchedReport : fetchEmployees(reportIds, projection)) {
+                fetchedReports.put(fetchedReport.getEmployeeId(), fetchedReport);
+            }
+
+            //levels below the requested depth are still counted, but left out of the tree
+            if (++depth <= maxDepth) {
+                level = tree.placeReports(level, fetchedReports);
+                treeSize += level.size();
+                treeDepth += level.isEmpty() ? 0 : 1;
+            } else {
+                level = new ArrayList<>(fetchedReports.values());
+            }
+            numberOfReports += level.size();
+        }
 
-            //increment the number of reports value and then recursively call the generateNumberOfReports method with incremented value, and each directReport employee
-            numberOfReports++;
-            numberOfReports = generateNumberOfReports(employee.getDirectReports().get(i), numberOfReports);
+        //one query for the employee and one per level
+        reportMetrics.queries(1 + depth);
+        if (recordTree) {
+            reportMetrics.tree(treeSize, treeDepth);
         }
+
         return numberOfReports;
     }
+
+    private Employee fetchEmployee(String id, Set<String> projection) {
+        if (projection == null) {
+            return employeeStore.findByEmployeeId(id);
+        }
+
+        List<Employee> fetched = employeeStore.findByEmployeeIdIn(List.of(id), projection);
+        return fetched.isEmpty() ? null : fetched.get(0);
+    }
+
+    //reads only the projected fields, when there is a projection
+    private List<Employee> fetchEmployees(Collection<String> ids, Set<String> projection) {
+        return projection == null ? employeeStore.findByEmployeeIdIn(ids) : employeeStore.findByEmployeeIdIn(ids, projection);
+    }
 }
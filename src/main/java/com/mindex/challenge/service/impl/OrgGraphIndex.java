@@ -0,0 +1,580 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory copy of the reporting hierarchy, so report counts can be answered without going back to the database.
+ *
+ * Employee IDs are interned to dense ints and the edges are kept in primitive int arrays. The number of reports for
+ * every node is memoized, and a change to one employee's direct reports only invalidates that employee and its
+ * ancestors, which are then recomputed from their children's memoized counts on the next read. Every employee write
+ * reaches it through the change event log.
+ *
+ * An employee listed by more than one manager would be counted twice by a plain sum. Every such shared employee heads
+ * a region, itself and everyone below it reached without passing another shared employee, and every other employee
+ * sits in exactly one region. A node memoizes the size of the part of its own region below it and the set of shared
+ * employees it reaches, so its count is that size plus the sizes of those regions, all taken from one post-order pass.
+ */
+@Component
+public class OrgGraphIndex implements ChangeEventListener {
+    private static final Logger LOG = LoggerFactory.getLogger(OrgGraphIndex.class);
+
+    private static final int[] NO_NODES = new int[0];
+    private static final int STALE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    @Autowired
+    private EmployeeStore employeeStore;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private String[] employeeIds = new String[INITIAL_CAPACITY];
+    private boolean[] known = new boolean[INITIAL_CAPACITY];
+    private int[][] children = new int[INITIAL_CAPACITY][];
+    private int[][] parents = new int[INITIAL_CAPACITY][];
+    private int[] parentCounts = new int[INITIAL_CAPACITY];
+    private int[] reportCounts = new int[INITIAL_CAPACITY];
+    //by node, the sequence number of the last write to it the index was given, 0 for none since the last rebuild
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private int size;
+    //how many times the index was rebuilt, a rebuild forgets the sequence numbers
+    private long generation;
+
+    //by node, the number of reports reached without passing a shared node, valid while the report count is
+    private int[] treeCounts = new int[INITIAL_CAPACITY];
+    //by node, the slots of the shared nodes it reaches, null for none
+    private BitSet[] sharedBelow = new BitSet[INITIAL_CAPACITY];
+
+    //nodes that have ever had more than one parent get a slot in sharedBelow, kept until the next rebuild
+    private int[] sharedSlots = new int[INITIAL_CAPACITY];
+    private int[] slotNodes = new int[INITIAL_CAPACITY];
+    private int slotCount;
+
+    //nodes whose memoized count came from the post-order pass, counts that needed a distinct walk cannot be added up by their parents
+    private final BitSet summable = new BitSet();
+
+    public void rebuild(Iterable<Employee> employees) {
+        lock.writeLock().lock();
+        try {
+            nodeIds.clear();
+            Arrays.fill(employeeIds, 0, size, null);
+            size = 0;
+            slotCount = 0;
+            generation++;
+
+            for (Employee employee : employees) {
+                if (employee != null && employee.getEmployeeId() != null) {
+                    putInternal(employee, false);
+                }
+            }
+
+            //precompute every count in one pass, children are counted before their parents wherever there is no cycle
+            Arrays.fill(reportCounts, 0, size, STALE);
+            for (int node = 0; node < size; node++) {
+                count(node);
+            }
+
+            LOG.debug("Rebuilt org graph index with [{}] employees", size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        try (Stream<Employee> employees = employeeStore.streamAllBy()) {
+            rebuild(employees::iterator);
+        }
+    }
+
+    public void put(Employee employee) {
+        put(employee, 0);
+    }
+
+    private void put(Employee employee, long sequence) {
+        if (employee == null || employee.getEmployeeId() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int node = putInternal(employee, true);
+            sequences[node] = Math.max(sequences[node], sequence);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void apply(ChangeEvent event) {
+        if (event.getType() == ChangeEvent.Type.EMPLOYEE_CREATED || event.getType() == ChangeEvent.Type.EMPLOYEE_UPDATED) {
+            put(event.getEmployee(), event.getSequence());
+        }
+    }
+
+    /**
+     * Returns the number of distinct employees reporting to the given employee, or null when the employee is not indexed.
+     */
+    public Integer numberOfReports(String employeeId) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeIds.get(employeeId);
+            if (node == null || !known[node]) {
+                return null;
+            }
+
+            if (reportCounts[node] != STALE) {
+                return reportCounts[node];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        //the count was invalidated by a write, recompute it under the write lock
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeIds.get(employeeId);
+            return node == null || !known[node] ? null : count(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a value that moves on with every write to the given employee or anyone below them, or null when the
+     * employee is not indexed. A write that moves an employee into or out of the subtree changes the direct reports of
+     * someone who stays in it, so it moves the value on as well. Writes anywhere else leave it as it is.
+     */
+    public String subtreeVersion(String employeeId) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeIds.get(employeeId);
+            if (node == null || !known[node]) {
+                return null;
+            }
+
+            //the sequence numbers only ever grow until the next rebuild, so the highest one in the subtree is enough
+            long sequence = sequences[node];
+            BitSet visited = new BitSet(size);
+            visited.set(node);
+
+            int[] stack = new int[INITIAL_CAPACITY];
+            int top = 0;
+            stack[top++] = node;
+
+            while (top > 0) {
+                for (int child : children[stack[--top]]) {
+                    if (visited.get(child) || !known[child]) {
+                        continue;
+                    }
+
+                    visited.set(child);
+                    sequence = Math.max(sequence, sequences[child]);
+
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+
+            return generation + "." + sequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of every distinct employee below the given employee in breadth-first order, or null when the
+     * employee is not indexed.
+     */
+    public List<String> reportIds(String employeeId) {
+        return reportIds(employeeId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the IDs of the distinct employees at most maxDepth levels below the given employee in breadth-first
+     * order, or null when the employee is not indexed. Each employee is placed at the shallowest level it appears on.
+     */
+    public List<String> reportIds(String employeeId, int maxDepth) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeIds.get(employeeId);
+            if (node == null || !known[node]) {
+                return null;
+            }
+
+            List<String> reportIds = new ArrayList<>();
+            BitSet visited = new BitSet(size);
+            visited.set(node);
+
+            int[] queue = new int[INITIAL_CAPACITY];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = node;
+
+            //the queue holds one level after another, levelEnd marks where the level being expanded stops
+            int levelEnd = tail;
+            int depth = 0;
+
+            while (head < tail) {
+                if (head == levelEnd) {
+                    depth++;
+                    levelEnd = tail;
+                }
+                if (depth == maxDepth) {
+                    break;
+                }
+
+                for (int child : children[queue[head++]]) {
+                    if (visited.get(child) || !known[child]) {
+                        continue;
+                    }
+
+                    visited.set(child);
+                    reportIds.add(employeeIds[child]);
+
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = child;
+                }
+            }
+
+            return reportIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of every distinct employee above the given employee, nearest first: the direct manager, their
+     * manager and so on up to the top of the org. Returns null when the employee is not indexed. An employee listed by
+     * more than one manager gets the chains above each of them, a level at a time.
+     */
+    public List<String> managerIds(String employeeId) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeIds.get(employeeId);
+            if (node == null || !known[node]) {
+                return null;
+            }
+
+            //a chain of command is normally a single path, so the queue rarely grows past the depth of the org
+            List<String> managerIds = new ArrayList<>();
+            BitSet visited = new BitSet();
+            visited.set(node);
+
+            int[] queue = new int[INITIAL_CAPACITY];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = node;
+
+            while (head < tail) {
+                int current = queue[head++];
+                for (int i = 0; i < parentCounts[current]; i++) {
+                    int parent = parents[current][i];
+                    if (visited.get(parent)) {
+                        continue;
+                    }
+
+                    visited.set(parent);
+                    managerIds.add(employeeIds[parent]);
+
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = parent;
+                }
+            }
+
+            return managerIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int putInternal(Employee employee, boolean invalidate) {
+        int node = intern(employee.getEmployeeId());
+        known[node] = true;
+
+        for (int child : children[node]) {
+            removeParent(child, node);
+
+            //and back into the region of the parent it has left
+            if (invalidate && parentCounts[child] == 1) {
+                invalidate(child);
+            }
+        }
+
+        int[] newChildren = NO_NODES;
+        if (employee.getDirectReports() != null) {
+            newChildren = new int[employee.getDirectReports().size()];
+            int childCount = 0;
+
+            for (String reportId : employee.getDirectReports()) {
+                if (reportId == null) {
+                    continue;
+                }
+
+                //duplicates and self references add no new reports
+                int child = intern(reportId);
+                if (child != node && !contains(newChildren, childCount, child)) {
+                    newChildren[childCount++] = child;
+                    addParent(child, node);
+
+                    //the child now heads a region of its own, which moves it out of the counts above its other parent
+                    if (invalidate && parentCounts[child] == 2) {
+                        invalidate(child);
+                    }
+                }
+            }
+
+            newChildren = Arrays.copyOf(newChildren, childCount);
+        }
+        children[node] = newChildren;
+
+        if (invalidate) {
+            invalidate(node);
+        }
+        return node;
+    }
+
+    private int intern(String employeeId) {
+        Integer existing = nodeIds.get(employeeId);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == employeeIds.length) {
+            int capacity = size * 2;
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            known = Arrays.copyOf(known, capacity);
+            children = Arrays.copyOf(children, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            parentCounts = Arrays.copyOf(parentCounts, capacity);
+            reportCounts = Arrays.copyOf(reportCounts, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+            treeCounts = Arrays.copyOf(treeCounts, capacity);
+            sharedBelow = Arrays.copyOf(sharedBelow, capacity);
+            sharedSlots = Arrays.copyOf(sharedSlots, capacity);
+        }
+
+        int node = size++;
+        nodeIds.put(employeeId, node);
+        employeeIds[node] = employeeId;
+        known[node] = false;
+        children[node] = NO_NODES;
+        parents[node] = NO_NODES;
+        parentCounts[node] = 0;
+        reportCounts[node] = 0;
+        sequences[node] = 0;
+        treeCounts[node] = 0;
+        sharedBelow[node] = null;
+        sharedSlots[node] = -1;
+        summable.set(node);
+
+        return node;
+    }
+
+    private void addParent(int node, int parent) {
+        if (parentCounts[node] == parents[node].length) {
+            parents[node] = Arrays.copyOf(parents[node], Math.max(2, parentCounts[node] * 2));
+        }
+        parents[node][parentCounts[node]++] = parent;
+
+        if (parentCounts[node] == 2 && sharedSlots[node] == -1) {
+            if (slotCount == slotNodes.length) {
+                slotNodes = Arrays.copyOf(slotNodes, slotCount * 2);
+            }
+            sharedSlots[node] = slotCount;
+            slotNodes[slotCount++] = node;
+        }
+    }
+
+    private void removeParent(int node, int parent) {
+        int[] nodeParents = parents[node];
+        for (int i = 0; i < parentCounts[node]; i++) {
+            if (nodeParents[i] == parent) {
+                nodeParents[i] = nodeParents[--parentCounts[node]];
+                return;
+            }
+        }
+    }
+
+    //marks the node and everyone above it as needing a recount
+    private void invalidate(int node) {
+        BitSet visited = new BitSet();
+        int[] stack = new int[INITIAL_CAPACITY];
+        int top = 0;
+        stack[top++] = node;
+        visited.set(node);
+
+        while (top > 0) {
+            int current = stack[--top];
+            reportCounts[current] = STALE;
+
+            for (int i = 0; i < parentCounts[current]; i++) {
+                int parent = parents[current][i];
+                if (!visited.get(parent)) {
+                    visited.set(parent);
+
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = parent;
+                }
+            }
+        }
+    }
+
+    private int count(int node) {
+        if (reportCounts[node] != STALE) {
+            return reportCounts[node];
+        }
+
+        if (countSubtree(node)) {
+            return reportCounts[node];
+        }
+
+        reportCounts[node] = countDistinct(node);
+        summable.clear(node);
+        return reportCounts[node];
+    }
+
+    //post-order pass over the subtree, memoizing every node it completes
+    //returns false if the walk runs into a cycle, in which case the caller falls back to a distinct count
+    private boolean countSubtree(int root) {
+        BitSet onStack = new BitSet();
+        int[] stack = new int[INITIAL_CAPACITY];
+        int[] nextChild = new int[INITIAL_CAPACITY];
+        int top = 0;
+
+        stack[top] = root;
+        nextChild[top++] = 0;
+        onStack.set(root);
+
+        while (top > 0) {
+            int current = stack[top - 1];
+            int[] currentChildren = children[current];
+
+            if (nextChild[top - 1] < currentChildren.length) {
+                int child = currentChildren[nextChild[top - 1]++];
+
+                if (onStack.get(child) || (reportCounts[child] != STALE && !summable.get(child))) {
+                    return false;
+                }
+
+                if (reportCounts[child] == STALE) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                        nextChild = Arrays.copyOf(nextChild, nextChild.length * 2);
+                    }
+                    stack[top] = child;
+                    nextChild[top++] = 0;
+                    onStack.set(child);
+                }
+                continue;
+            }
+
+            countNode(current);
+            onStack.clear(current);
+            top--;
+        }
+
+        return true;
+    }
+
+    //counts a node whose children are all counted, a shared child adds its region and an unshared one its tree count
+    private void countNode(int node) {
+        int treeCount = 0;
+        BitSet below = null;
+
+        for (int child : children[node]) {
+            if (!known[child]) {
+                continue;
+            }
+
+            boolean shared = parentCounts[child] > 1;
+            if (shared || sharedBelow[child] != null) {
+                below = below == null ? new BitSet() : below;
+                if (shared) {
+                    below.set(sharedSlots[child]);
+                }
+                if (sharedBelow[child] != null) {
+                    below.or(sharedBelow[child]);
+                }
+            }
+            if (!shared) {
+                treeCount += 1 + treeCounts[child];
+            }
+        }
+
+        int numberOfReports = treeCount;
+        if (below != null) {
+            for (int slot = below.nextSetBit(0); slot >= 0; slot = below.nextSetBit(slot + 1)) {
+                numberOfReports += 1 + treeCounts[slotNodes[slot]];
+            }
+        }
+
+        treeCounts[node] = treeCount;
+        sharedBelow[node] = below;
+        reportCounts[node] = numberOfReports;
+        summable.set(node);
+    }
+
+    private int countDistinct(int root) {
+        BitSet visited = new BitSet(size);
+        visited.set(root);
+
+        int[] queue = new int[INITIAL_CAPACITY];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        int numberOfReports = 0;
+
+        while (head < tail) {
+            for (int child : children[queue[head++]]) {
+                if (visited.get(child) || !known[child]) {
+                    continue;
+                }
+
+                visited.set(child);
+                numberOfReports++;
+
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, queue.length * 2);
+                }
+                queue[tail++] = child;
+            }
+        }
+
+        return numberOfReports;
+    }
+
+    private static boolean contains(int[] nodes, int length, int node) {
+        for (int i = 0; i < length; i++) {
+            if (nodes[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.DepartmentHeadcount;
+import com.mindex.challenge.data.Money;
+import com.mindex.challenge.data.PayrollSummary;
+import com.mindex.challenge.service.PayrollService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class PayrollServiceImpl implements PayrollService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PayrollServiceImpl.class);
+
+    @Autowired
+    private OrgGraphIndex orgGraphIndex;
+    @Autowired
+    private PayrollView payrollView;
+
+    @Override
+    public List<PayrollSummary> departments() {
+        LOG.debug("Summarizing payroll by department");
+
+        //kept up to date by every write, so the read only collects the summaries of the groups
+        return payrollView.departments();
+    }
+
+    @Override
+    public List<DepartmentHeadcount> headcounts() {
+        LOG.debug("Counting employees by department");
+
+        return payrollView.headcounts();
+    }
+
+    @Override
+    public List<PayrollSummary> managerSubtree(String id) {
+        LOG.debug("Summarizing payroll for the subtree of employee with id [{}]", id);
+
+        //the org graph index already knows everyone below the manager, so the hierarchy costs no database reads
+        List<String> reportIds = orgGraphIndex.reportIds(id);
+        if (reportIds == null) {
+            throw new RuntimeException("Invalid employeeId: " + id);
+        }
+
+        List<String> subtreeIds = new ArrayList<>(reportIds.size() + 1);
+        subtreeIds.add(id);
+        subtreeIds.addAll(reportIds);
+
+        //the salary in effect for each of them is held by the payroll view, so the subtree costs no database reads either
+        Map<String, SalaryAccumulator> accumulators = new TreeMap<>();
+        for (Money salary : payrollView.salaries(subtreeIds)) {
+            accumulators.computeIfAbsent(salary.getCurrency(), currency -> new SalaryAccumulator()).add(salary.getMinorUnits());
+        }
+
+        List<PayrollSummary> summaries = new ArrayList<>();
+        for (Map.Entry<String, SalaryAccumulator> entry : accumulators.entrySet()) {
+            summaries.add(entry.getValue().summary(id, entry.getKey()));
+        }
+        return summaries;
+    }
+
+    //the first count salaries are the group's, in ascending order, the array is only read
+    static PayrollSummary summarize(String group, String currency, long total, long[] sortedSalaries, int count) {
+        PayrollSummary summary = new PayrollSummary();
+        summary.setGroup(group);
+        summary.setHeadcount(count);
+        summary.setTotal(new Money(total, currency));
+
+        if (count > 0) {
+            long mean = BigDecimal.valueOf(total)
+                    .divide(BigDecimal.valueOf(count), 0, RoundingMode.HALF_EVEN)
+                    .longValueExact();
+            summary.setMean(new Money(mean, currency));
+            summary.setMin(new Money(sortedSalaries[0], currency));
+            summary.setMedian(new Money(percentile(sortedSalaries, count, 50), currency));
+            summary.setP90(new Money(percentile(sortedSalaries, count, 90), currency));
+            summary.setP99(new Money(percentile(sortedSalaries, count, 99), currency));
+            summary.setMax(new Money(sortedSalaries[count - 1], currency));
+        }
+
+        return summary;
+    }
+
+    //nearest-rank percentile of salaries already in ascending order
+    private static long percentile(long[] sortedSalaries, int count, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sortedSalaries[Math.max(0, rank - 1)];
+    }
+
+    //a growable array of primitive salaries, a subtree of a million employees never boxes a million Longs
+    private static final class SalaryAccumulator {
+        private long[] salaries = new long[16];
+        private int size;
+        private long total;
+
+        void add(long salary) {
+            if (size == salaries.length) {
+                salaries = Arrays.copyOf(salaries, size * 2);
+            }
+            salaries[size++] = salary;
+            total = Math.addExact(total, salary);
+        }
+
+        PayrollSummary summary(String group, String currency) {
+            Arrays.sort(salaries, 0, size);
+            return summarize(group, currency, total, salaries, size);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.DepartmentHeadcount;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.Money;
+import com.mindex.challenge.data.PayrollSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Materialized payroll and headcount per department, kept up to date from the change event log instead of being
+ * aggregated from the database on every read.
+ *
+ * Every department and currency keeps the salaries in effect today sorted in a primitive array, so a write moves one
+ * salary in or out of one group and the summary of a group, percentiles included, is only worked out again on the
+ * first read after it changed. Entries dated in the future are held back until their date, the first read or write
+ * on or after it puts them in effect.
+ */
+@Component
+public class PayrollView implements ChangeEventListener {
+    private static final Logger LOG = LoggerFactory.getLogger(PayrollView.class);
+
+    //an employee without a department is a group of its own, listed first
+    private static final Comparator<String> DEPARTMENT_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @Autowired
+    private EmployeeStore employeeStore;
+
+    @Autowired
+    private CompensationRepository compensationRepository;
+
+    private final Map<String, Payee> payees = new HashMap<>();
+    //by department, then by currency
+    private final Map<String, Map<String, SalaryDistribution>> departments = new TreeMap<>(DEPARTMENT_ORDER);
+    private final Map<String, Integer> headcounts = new TreeMap<>(DEPARTMENT_ORDER);
+    //employees with an entry still to take effect, by the date of that entry
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(Comparator.comparing(entry -> entry.effectiveDate));
+
+    /**
+     * Replaces the view with the given employees and compensation history. The history is read in the order it is
+     * stored, so of two entries for the same employee and date the later one wins, as it does in the history queries.
+     */
+    public synchronized void rebuild(Iterable<Employee> employees, Iterable<Compensation> compensations) {
+        payees.clear();
+        departments.clear();
+        headcounts.clear();
+        pending.clear();
+
+        LocalDate today = LocalDate.now();
+        for (Employee employee : employees) {
+            if (employee != null && employee.getEmployeeId() != null) {
+                Payee payee = payee(employee.getEmployeeId());
+                payee.employed = true;
+                payee.department = employee.getDepartment();
+                headcounts.merge(payee.department, 1, Integer::sum);
+            }
+        }
+        for (Compensation compensation : compensations) {
+            if (compensation != null && compensation.getEmployeeCompensationId() != null) {
+                record(payee(compensation.getEmployeeCompensationId()), compensation, today);
+            }
+        }
+
+        //appended in any order and sorted once per group, rather than inserted one at a time
+        for (Payee payee : payees.values()) {
+            if (payee.employed && payee.salary != null) {
+                distribution(payee).append(payee.salary.getMinorUnits());
+            }
+        }
+        for (Map<String, SalaryDistribution> currencies : departments.values()) {
+            for (SalaryDistribution distribution : currencies.values()) {
+                distribution.sort();
+            }
+        }
+
+        LOG.debug("Rebuilt payroll view with [{}] employees", payees.size());
+    }
+
+    @Override
+    public void reload() {
+        try (Stream<Employee> employees = employeeStore.streamAllBy();
+             Stream<Compensation> compensations = compensationRepository.streamAllBy()) {
+            rebuild(employees::iterator, compensations::iterator);
+        }
+    }
+
+    @Override
+    public synchronized void apply(ChangeEvent event) {
+        LocalDate today = LocalDate.now();
+        advance(today);
+
+        switch (event.getType()) {
+            case EMPLOYEE_CREATED:
+            case EMPLOYEE_UPDATED:
+                Employee employee = event.getEmployee();
+                if (employee != null && employee.getEmployeeId() != null) {
+                    employeeWritten(employee);
+                }
+                break;
+            case COMPENSATION_SUBMITTED:
+                Compensation compensation = event.getCompensation();
+                if (compensation != null && compensation.getEmployeeCompensationId() != null) {
+                    Payee payee = payee(compensation.getEmployeeCompensationId());
+                    leave(payee);
+                    record(payee, compensation, today);
+                    join(payee);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    //one summary per department and currency with a salary in effect, in department then currency order
+    public synchronized List<PayrollSummary> departments() {
+        advance(LocalDate.now());
+
+        List<PayrollSummary> summaries = new ArrayList<>();
+        for (Map.Entry<String, Map<String, SalaryDistribution>> department : departments.entrySet()) {
+            for (Map.Entry<String, SalaryDistribution> currency : department.getValue().entrySet()) {
+                summaries.add(currency.getValue().summary(department.getKey(), currency.getKey()));
+            }
+        }
+        return summaries;
+    }
+
+    //every employee, with or without a compensation, per department in department order
+    public synchronized List<DepartmentHeadcount> headcounts() {
+        List<DepartmentHeadcount> headcounts = new ArrayList<>(this.headcounts.size());
+        for (Map.Entry<String, Integer> headcount : this.headcounts.entrySet()) {
+            headcounts.add(new DepartmentHeadcount(headcount.getKey(), headcount.getValue()));
+        }
+        return headcounts;
+    }
+
+    //the salaries in effect today of the given employees, leaving out the ones without one
+    public synchronized List<Money> salaries(Collection<String> employeeIds) {
+        advance(LocalDate.now());
+
+        List<Money> salaries = new ArrayList<>(employeeIds.size());
+        for (String employeeId : employeeIds) {
+            Payee payee = payees.get(employeeId);
+            if (payee != null && payee.salary != null) {
+                salaries.add(payee.salary);
+            }
+        }
+        return salaries;
+    }
+
+    private void employeeWritten(Employee employee) {
+        Payee payee = payee(employee.getEmployeeId());
+        leave(payee);
+        if (payee.employed) {
+            headcounts.computeIfPresent(payee.department, (department, headcount) -> headcount == 1 ? null : headcount - 1);
+        }
+
+        payee.employed = true;
+        payee.department = employee.getDepartment();
+        headcounts.merge(payee.department, 1, Integer::sum);
+        join(payee);
+    }
+
+    //an entry dated today or earlier replaces the one in effect unless that one is newer, a later one waits for its date
+    private void record(Payee payee, Compensation compensation, LocalDate today) {
+        LocalDate effectiveDate = compensation.getEffectiveDate();
+        if (compensation.getSalary() == null || effectiveDate == null) {
+            return;
+        }
+
+        if (effectiveDate.isAfter(today)) {
+            if (payee.pending == null) {
+                payee.pending = new TreeMap<>();
+            }
+            payee.pending.put(effectiveDate, compensation.getSalary());
+            pending.add(new Pending(effectiveDate, payee));
+        } else if (payee.effectiveDate == null || !effectiveDate.isBefore(payee.effectiveDate)) {
+            payee.effectiveDate = effectiveDate;
+            payee.salary = compensation.getSalary();
+        }
+    }
+
+    //puts every entry whose date has come into effect
+    private void advance(LocalDate today) {
+        while (!pending.isEmpty() && !pending.peek().effectiveDate.isAfter(today)) {
+            Payee payee = pending.poll().payee;
+            if (payee.pending == null) {
+                continue;
+            }
+
+            Map.Entry<LocalDate, Money> latest = payee.pending.floorEntry(today);
+            if (latest == null) {
+                continue;
+            }
+
+            leave(payee);
+            payee.effectiveDate = latest.getKey();
+            payee.salary = latest.getValue();
+            payee.pending.headMap(today, true).clear();
+            if (payee.pending.isEmpty()) {
+                payee.pending = null;
+            }
+            join(payee);
+        }
+    }
+
+    private void leave(Payee payee) {
+        if (!payee.employed || payee.salary == null) {
+            return;
+        }
+
+        Map<String, SalaryDistribution> currencies = departments.get(payee.department);
+        SalaryDistribution distribution = currencies.get(payee.salary.getCurrency());
+        distribution.remove(payee.salary.getMinorUnits());
+        if (distribution.size == 0) {
+            currencies.remove(payee.salary.getCurrency());
+            if (currencies.isEmpty()) {
+                departments.remove(payee.department);
+            }
+        }
+    }
+
+    private void join(Payee payee) {
+        if (payee.employed && payee.salary != null) {
+            distribution(payee).add(payee.salary.getMinorUnits());
+        }
+    }
+
+    private Payee payee(String employeeId) {
+        return payees.computeIfAbsent(employeeId, id -> new Payee());
+    }
+
+    private SalaryDistribution distribution(Payee payee) {
+        return departments.computeIfAbsent(payee.department, department -> new TreeMap<>())
+                .computeIfAbsent(payee.salary.getCurrency(), currency -> new SalaryDistribution());
+    }
+
+    //what the view knows about one employee, a compensation can arrive for an ID no employee event has named yet
+    private static final class Payee {
+        private boolean employed;
+        private String department;
+        private LocalDate effectiveDate;
+        private Money salary;
+        //entries dated after today, at most one per date
+        private TreeMap<LocalDate, Money> pending;
+    }
+
+    private static final class Pending {
+        private final LocalDate effectiveDate;
+        private final Payee payee;
+
+        private Pending(LocalDate effectiveDate, Payee payee) {
+            this.effectiveDate = effectiveDate;
+            this.payee = payee;
+        }
+    }
+
+    //the salaries of one group in ascending order, with the summary of the last read kept until the next change
+    private static final class SalaryDistribution {
+        private long[] salaries = new long[16];
+        private int size;
+        private long total;
+        private PayrollSummary summary;
+
+        void add(long salary) {
+            int index = Arrays.binarySearch(salaries, 0, size, salary);
+            insert(index < 0 ? -index - 1 : index, salary);
+        }
+
+        void append(long salary) {
+            insert(size, salary);
+        }
+
+        private void insert(int index, long salary) {
+            if (size == salaries.length) {
+                salaries = Arrays.copyOf(salaries, size * 2);
+            }
+            System.arraycopy(salaries, index, salaries, index + 1, size - index);
+            salaries[index] = salary;
+            size++;
+            total = Math.addExact(total, salary);
+            summary = null;
+        }
+
+        //a salary the group does not hold means the view has lost track of a payee, it cannot be patched up from here
+        void remove(long salary) {
+            int index = Arrays.binarySearch(salaries, 0, size, salary);
+            if (index < 0) {
+                throw new IllegalStateException("Salary " + salary + " is not in the distribution");
+            }
+            System.arraycopy(salaries, index + 1, salaries, index, size - index - 1);
+            size--;
+            total -= salary;
+            summary = null;
+        }
+
+        void sort() {
+            Arrays.sort(salaries, 0, size);
+        }
+
+        PayrollSummary summary(String department, String currency) {
+            if (summary == null) {
+                summary = PayrollServiceImpl.summarize(department, currency, total, salaries, size);
+            }
+            return summary;
+        }
+    }
+}
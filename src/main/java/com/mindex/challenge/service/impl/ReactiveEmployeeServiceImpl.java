@@ -0,0 +1,363 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeSearch;
+import com.mindex.challenge.dao.ReactiveCompensationRepository;
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mindex.challenge.data.BatchItemResult;
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+@Service
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEmployeeServiceImpl.class);
+
+    @Autowired
+    private ReactiveEmployeeRepository employeeRepository;
+    @Autowired
+    private ReactiveCompensationRepository compensationRepository;
+    @Autowired
+    private OrgGraphIndex orgGraphIndex;
+    //not read from here, but writes still evict it so the blocking service never serves what this one replaced
+    @Autowired
+    private EmployeeCache employeeCache;
+    //the org graph index and the payroll view follow every write through the log
+    @Autowired
+    private ChangeEventLog changeEventLog;
+    @Autowired
+    private ReportMetrics reportMetrics;
+
+    //smaller than the blocking service's batches, so a large subtree is spread over several queries in flight at once
+    private static final int REPORT_FETCH_BATCH_SIZE = 250;
+
+    //caps how many report queries one request has in flight, so a huge subtree cannot take every pooled connection
+    @Value("${challenge.reactive.report-fetch-concurrency:8}")
+    private int reportFetchConcurrency;
+
+    //identical reporting requests that arrive together subscribe to one fetch, as in the blocking service
+    private final SingleFlight<List<Object>, ReportingStructure> reportFlights = new SingleFlight<>(() -> reportMetrics.coalesced());
+
+    @Override
+    public Mono<Employee> create(Employee employee) {
+        LOG.debug("Creating employee [{}]", employee);
+
+        employee.setEmployeeId(UUID.randomUUID().toString());
+        return employeeRepository.insert(employee)
+                .flatMap(inserted -> offloaded(() -> created(inserted)));
+    }
+
+    @Override
+    public Mono<BatchResult> createBatch(List<Employee> employees) {
+        LOG.debug("Creating a batch of [{}] employees", employees.size());
+
+        for (Employee employee : employees) {
+            employee.setEmployeeId(UUID.randomUUID().toString());
+        }
+
+        return employeeRepository.bulkInsert(employees).flatMap(errors -> offloaded(() -> {
+            List<BatchItemResult> results = new ArrayList<>(employees.size());
+            for (int i = 0; i < employees.size(); i++) {
+                Employee employee = employees.get(i);
+                String error = errors.get(i);
+
+                if (error == null) {
+                    created(employee);
+                }
+                results.add(new BatchItemResult(i, employee.getEmployeeId(), error == null, error));
+            }
+
+            return new BatchResult(results);
+        }));
+    }
+
+    @Override
+    public Mono<Employee> read(String id) {
+        LOG.debug("Reading employee with id [{}]", id);
+
+        return employeeRepository.findByEmployeeId(id)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Invalid employeeId: " + id)));
+    }
+
+    @Override
+    public Mono<Employee> update(Employee employee) {
+        LOG.debug("Updating employee [{}]", employee);
+
+        return employeeRepository.upsert(employee)
+                .flatMap(upserted -> offloaded(() -> updated(upserted)));
+    }
+
+    @Override
+    public Mono<ReportingStructure> reports(String id) {
+        return reports(id, null, null, false);
+    }
+
+    @Override
+    public Mono<ReportingStructure> reports(String id, Integer depth, Set<String> fields, boolean countOnly) {
+        return reportsVersion(id).flatMap(reportsVersion -> reports(id, depth, fields, countOnly, reportsVersion));
+    }
+
+    @Override
+    public Mono<ReportingStructure> reports(String id, Integer depth, Set<String> fields, boolean countOnly, String reportsVersion) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Generating number of reports for employee with id [{}] to depth [{}] with fields [{}]", id, depth, fields);
+        }
+
+        int maxDepth = countOnly ? 0 : ReportTree.maxDepth(depth);
+        Set<String> projection = countOnly ? Set.of() : ReportTree.projection(fields);
+
+        return offloaded(() -> Optional.ofNullable(orgGraphIndex.numberOfReports(id))).flatMap(indexed -> {
+            Integer numberOfReports = indexed.orElse(null);
+            if (countOnly && numberOfReports != null) {
+                reportMetrics.queries(0);
+                return Mono.just(new ReportingStructure(null, numberOfReports));
+            }
+
+            return reportFlights.mono(ReportTree.requestKey(id, maxDepth, projection, countOnly), reportsVersion,
+                    () -> generateReports(id, numberOfReports, maxDepth, projection, countOnly));
+        });
+    }
+
+    private Mono<ReportingStructure> generateReports(String id, Integer numberOfReports, int maxDepth, Set<String> projection, boolean countOnly) {
+        return fetchEmployee(id, projection).flatMap(reportingEmployee -> {
+            Mono<Optional<List<String>>> indexedReportIds = numberOfReports == null ? Mono.just(Optional.empty())
+                    : offloaded(() -> Optional.ofNullable(orgGraphIndex.reportIds(id, maxDepth)));
+
+            return indexedReportIds.flatMap(reportIds -> {
+                ReportTree tree = new ReportTree(reportingEmployee);
+
+                if (reportIds.isEmpty()) {
+                    //not indexed yet, fall back to resolving the tree level by level
+                    Set<String> visited = new HashSet<>();
+                    visited.add(reportingEmployee.getEmployeeId());
+
+                    return countReports(tree, Collections.singletonList(reportingEmployee), visited, 0, 0, 1, maxDepth, projection, !countOnly)
+                            .map(count -> new ReportingStructure(countOnly ? null : tree.view(), count));
+                }
+
+                return fetchReports(reportIds.get(), projection).map(fetchedReports -> {
+                    int treeDepth = tree.placeAllReports(fetchedReports);
+
+                    reportMetrics.queries(1 + fetchBatches(reportIds.get().size()));
+                    reportMetrics.tree(tree.size(), treeDepth);
+                    return new ReportingStructure(tree.view(), numberOfReports);
+                });
+            });
+        });
+    }
+
+    @Override
+    public Mono<String> reportsVersion(String id) {
+        //an employee the index does not know yet is tagged by the last write anywhere, which has no dot in it
+        return offloaded(() -> Optional.ofNullable(orgGraphIndex.subtreeVersion(id)))
+                .map(subtreeVersion -> subtreeVersion.orElseGet(() -> Long.toString(changeEventLog.lastSequence())));
+    }
+
+    @Override
+    public Flux<Employee> managers(String id) {
+        LOG.debug("Reading the chain of command for employee with id [{}]", id);
+
+        return offloaded(() -> Optional.ofNullable(orgGraphIndex.managerIds(id))).flatMapMany(indexed -> {
+            List<String> managerIds = indexed.orElse(null);
+            if (managerIds == null) {
+                return Flux.error(new RuntimeException("Invalid employeeId: " + id));
+            }
+            if (managerIds.isEmpty()) {
+                return Flux.empty();
+            }
+
+            //one query for the whole chain, put back in order from the direct manager up
+            return employeeRepository.findByEmployeeIdIn(managerIds)
+                    .collectMap(Employee::getEmployeeId)
+                    .flatMapIterable(managers -> managerIds.stream()
+                            .map(managers::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList()));
+        });
+    }
+
+    @Override
+    public Mono<EmployeePage> search(String department, String position, String q, String after, Integer limit) {
+        LOG.debug("Searching employees in department [{}] with position [{}] and name [{}] after [{}]", department, position, q, after);
+
+        return Mono.defer(() -> {
+            EmployeeSearch search = EmployeeSearch.of(department, position, q, after, limit);
+            return employeeRepository.search(search).collectList().map(search::page);
+        });
+    }
+
+    @Override
+    public Mono<Compensation> submitCompensation(String id, Compensation compensation) {
+        LOG.debug("Creating compensation for employee with id [{}]", id);
+
+        compensation.setEmployeeCompensationId(id);
+        CompensationBatch.defaultEffectiveDate(compensation);
+
+        return read(id)
+                .then(Mono.defer(() -> compensationRepository.insert(compensation)))
+                .flatMap(inserted -> offloaded(() -> compensationWritten(inserted)));
+    }
+
+    @Override
+    public Mono<BatchResult> submitCompensationBatch(List<Compensation> compensations) {
+        LOG.debug("Creating compensation for a batch of [{}] employees", compensations.size());
+
+        return employeeRepository.findByEmployeeIdIn(CompensationBatch.employeeIds(compensations))
+                .map(Employee::getEmployeeId)
+                .collect(HashSet<String>::new, Set::add)
+                .flatMap(existingEmployeeIds -> {
+                    CompensationBatch batch = new CompensationBatch(compensations, existingEmployeeIds);
+
+                    return compensationRepository.bulkInsert(batch.getValidCompensations())
+                            .flatMap(errors -> offloaded(() -> batch.complete(errors, this::compensationWritten)));
+                });
+    }
+
+    @Override
+    public Mono<Compensation> readCompensation(String id) {
+        LOG.debug("Reading compensation for employee with id [{}]", id);
+
+        return read(id)
+                .then(Mono.defer(() -> compensationRepository.findAsOf(id, LocalDate.now())))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("No compensation data found for employeeId: " + id)));
+    }
+
+    @Override
+    public Mono<Compensation> readCompensationAsOf(String id, LocalDate asOf) {
+        LOG.debug("Reading compensation for employee with id [{}] as of [{}]", id, asOf);
+
+        return read(id)
+                .then(Mono.defer(() -> compensationRepository.findAsOf(id, asOf)))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("No compensation data found for employeeId: " + id + " as of " + asOf)));
+    }
+
+    @Override
+    public Flux<Compensation> readCompensationHistory(String id) {
+        LOG.debug("Reading compensation history for employee with id [{}]", id);
+
+        return read(id).thenMany(Flux.defer(() -> compensationRepository.findHistory(id)));
+    }
+
+    @Override
+    public Flux<ChangeEvent> events(Long since, Integer limit) {
+        LOG.debug("Reading change events since [{}]", since);
+
+        //the log is in memory, but a page waits on the lock while a write is being applied
+        return offloaded(() -> changeEventLog.since(since, limit)).flatMapIterable(page -> page);
+    }
+
+    @Override
+    public Mono<Long> lastEventSequence() {
+        return Mono.fromSupplier(changeEventLog::lastSequence);
+    }
+
+    @Override
+    public Flux<Employee> exportEmployees() {
+        LOG.debug("Exporting all employees");
+
+        return employeeRepository.findAll();
+    }
+
+    @Override
+    public Flux<Compensation> exportCompensation() {
+        LOG.debug("Exporting all compensation");
+
+        return compensationRepository.findAll();
+    }
+
+    private Employee created(Employee employee) {
+        employeeCache.evictEmployee(employee.getEmployeeId());
+        changeEventLog.employeeCreated(employee);
+        return employee;
+    }
+
+    private Employee updated(Employee employee) {
+        employeeCache.evictEmployee(employee.getEmployeeId());
+        changeEventLog.employeeUpdated(employee);
+        return employee;
+    }
+
+    private Compensation compensationWritten(Compensation compensation) {
+        employeeCache.evictCompensation(compensation.getEmployeeCompensationId());
+        changeEventLog.compensationSubmitted(compensation);
+        return compensation;
+    }
+
+    //the org graph index, the cache and the event log take locks, and the index walks whole subtrees under them, so they
+    //are called on a worker thread rather than holding up the event loop
+    //the rest of the request moves off the worker again, cancelling it interrupts its thread, which would otherwise break
+    //a response still being written from it
+    private static <T> Mono<T> offloaded(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic()).publishOn(Schedulers.parallel());
+    }
+
+    //resolves one level of the org tree per step, the tree and visited set are only touched between steps so they need no locking
+    //levels below maxDepth are still counted, but left out of the tree
+    private Mono<Integer> countReports(ReportTree tree, List<Employee> level, Set<String> visited, int numberOfReports, int depth, int queries,
+                                       int maxDepth, Set<String> projection, boolean recordTree) {
+        Set<String> reportIds = ReportTree.unvisitedReportIds(level, visited);
+        if (reportIds.isEmpty()) {
+            //the employee's own query and every batch of every level
+            reportMetrics.queries(queries);
+            if (recordTree) {
+                reportMetrics.tree(tree.size(), Math.min(depth, maxDepth));
+            }
+            return Mono.just(numberOfReports);
+        }
+
+        return fetchReports(reportIds, projection).flatMap(fetchedReports -> {
+            List<Employee> nextLevel = depth < maxDepth ? tree.placeReports(level, fetchedReports) : new ArrayList<>(fetchedReports.values());
+            return countReports(tree, nextLevel, visited, numberOfReports + nextLevel.size(), nextLevel.isEmpty() ? depth : depth + 1,
+                    queries + fetchBatches(reportIds.size()), maxDepth, projection, recordTree);
+        });
+    }
+
+    private Mono<Employee> fetchEmployee(String id, Set<String> projection) {
+        if (projection == null) {
+            return read(id);
+        }
+
+        return employeeRepository.findByEmployeeIdIn(List.of(id), projection)
+                .next()
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Invalid employeeId: " + id)));
+    }
+
+    private static int fetchBatches(int reportIds) {
+        return (reportIds + REPORT_FETCH_BATCH_SIZE - 1) / REPORT_FETCH_BATCH_SIZE;
+    }
+
+    //fans the IDs out over concurrent $in queries, bounded so one request cannot flood the connection pool
+    private Mono<Map<String, Employee>> fetchReports(Collection<String> reportIds, Set<String> projection) {
+        return Flux.fromIterable(ReportTree.batches(new ArrayList<>(reportIds), REPORT_FETCH_BATCH_SIZE))
+                .flatMap(batch -> projection == null ? employeeRepository.findByEmployeeIdIn(batch) : employeeRepository.findByEmployeeIdIn(batch, projection),
+                        reportFetchConcurrency)
+                .collectMap(Employee::getEmployeeId);
+    }
+}
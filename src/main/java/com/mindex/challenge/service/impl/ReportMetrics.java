@@ -0,0 +1,56 @@
+package com.mindex.challenge.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Distributions describing the work behind each reporting request: how many employee queries it took, and how large and
+ * deep the returned tree was. Published as employee.reports.queries, employee.reports.tree.size and
+ * employee.reports.tree.depth, beside a count of the requests that shared one already in flight as
+ * employee.reports.coalesced, which record none of the distributions as they did none of the work.
+ */
+@Component
+public class ReportMetrics {
+
+    private final DistributionSummary queries;
+    private final DistributionSummary treeSize;
+    private final DistributionSummary treeDepth;
+    private final Counter coalesced;
+
+    public ReportMetrics(MeterRegistry registry) {
+        this.queries = DistributionSummary.builder("employee.reports.queries")
+                .description("Employee repository queries made to answer one reporting request")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.treeSize = DistributionSummary.builder("employee.reports.tree.size")
+                .description("Employees placed in the returned reporting tree, not counting the employee at its root")
+                .baseUnit("employees")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.treeDepth = DistributionSummary.builder("employee.reports.tree.depth")
+                .description("Levels below the root of the returned reporting tree")
+                .baseUnit("levels")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.coalesced = Counter.builder("employee.reports.coalesced")
+                .description("Reporting requests answered by an identical request already in flight")
+                .baseUnit("requests")
+                .register(registry);
+    }
+
+    void queries(int count) {
+        queries.record(count);
+    }
+
+    //only recorded when a tree is returned, a count-only request has none
+    void tree(int size, int depth) {
+        treeSize.record(size);
+        treeDepth.record(depth);
+    }
+
+    void coalesced() {
+        coalesced.increment();
+    }
+}
@@ -0,0 +1,169 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeView;
+import com.mindex.challenge.data.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Steps shared by the blocking and reactive report traversals. Neither touches the database, so each implementation
+ * decides how the reports for a level are fetched and only hands the fetched employees back in here.
+ *
+ * An instance is the tree of one request. The fetched employees only hold the IDs of their reports and are never
+ * changed, the tree records where each one is placed and builds the immutable response from that at the end.
+ */
+final class ReportTree {
+
+    //the employee fields a reporting request can ask for
+    private static final Set<String> EMPLOYEE_FIELDS = Set.of("employeeId", "firstName", "lastName", "position", "department", "directReports", "version");
+
+    //every employee in the tree in the order it was placed, level by level, starting with the root
+    private final List<Employee> placed = new ArrayList<>();
+    //by employee ID, the employee placed under each of their report IDs, or null where the report is left as a stub
+    private final Map<String, Employee[]> placedReports = new HashMap<>();
+
+    ReportTree(Employee root) {
+        placed.add(root);
+    }
+
+    //no depth means the whole subtree
+    static int maxDepth(Integer depth) {
+        if (depth == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (depth < 0) {
+            throw new InvalidRequestException("Invalid depth: " + depth);
+        }
+        return depth;
+    }
+
+    //the fields to read from the database, or null when every field is wanted
+    static Set<String> projection(Set<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+
+        for (String field : fields) {
+            if (!EMPLOYEE_FIELDS.contains(field)) {
+                throw new InvalidRequestException("Invalid field: " + field);
+            }
+        }
+        return fields;
+    }
+
+    //what concurrent reporting requests are coalesced on, the same key always gets the same answer
+    //writes are not part of it, a request joins a read in flight only if that read saw the same reports version, so
+    //writes outside the tree do not split a burst and the tree a request gets is never older than its tag
+    static List<Object> requestKey(String id, int maxDepth, Set<String> projection, boolean countOnly) {
+        return Arrays.asList(id, maxDepth, projection, countOnly);
+    }
+
+    //gathers every report ID on this level that has not been seen yet, marking it as seen
+    //the visited set guards against cycles and duplicate report IDs, so nobody is fetched or counted twice
+    static Set<String> unvisitedReportIds(List<Employee> level, Set<String> visited) {
+        Set<String> reportIds = new LinkedHashSet<>();
+        for (Employee employee : level) {
+            if (employee.getDirectReports() == null) {
+                continue;
+            }
+
+            for (String reportId : employee.getDirectReports()) {
+                if (reportId != null && visited.add(reportId)) {
+                    reportIds.add(reportId);
+                }
+            }
+        }
+        return reportIds;
+    }
+
+    //places the whole tree below the root from reports that were already fetched, returning its number of levels
+    int placeAllReports(Map<String, Employee> fetchedReports) {
+        List<Employee> level = Collections.singletonList(placed.get(0));
+        int depth = -1;
+        while (!level.isEmpty()) {
+            level = placeReports(level, fetchedReports);
+            depth++;
+        }
+        return depth;
+    }
+
+    //records which fetched employee goes under each report ID of this level, the employees themselves are not changed
+    //each fetched employee is placed once, so a duplicate or cyclic reference is left as a stub with only the ID
+    List<Employee> placeReports(List<Employee> level, Map<String, Employee> fetchedReports) {
+        List<Employee> nextLevel = new ArrayList<>();
+        for (Employee employee : level) {
+            List<String> reportIds = employee.getDirectReports();
+            if (reportIds == null) {
+                continue;
+            }
+
+            Employee[] reports = new Employee[reportIds.size()];
+            for (int i = 0; i < reports.length; i++) {
+                String reportId = reportIds.get(i);
+                reports[i] = reportId == null ? null : fetchedReports.remove(reportId);
+
+                if (reports[i] != null) {
+                    nextLevel.add(reports[i]);
+                }
+            }
+            placedReports.put(employee.getEmployeeId(), reports);
+        }
+
+        placed.addAll(nextLevel);
+        return nextLevel;
+    }
+
+    //number of reports placed in the tree, the root not included
+    int size() {
+        return placed.size() - 1;
+    }
+
+    /**
+     * The response for the tree, built bottom up without recursion: the employees were placed level by level, so in
+     * reverse every report's view exists before its manager's. Each view is handed to its manager once and then
+     * dropped, so only the views of the level being built and the one below it are held on the side.
+     */
+    EmployeeView view() {
+        Map<String, EmployeeView> views = new HashMap<>();
+        for (int i = placed.size() - 1; i >= 0; i--) {
+            Employee employee = placed.get(i);
+            views.put(employee.getEmployeeId(), EmployeeView.of(employee, reportViews(employee, views)));
+        }
+        return views.get(placed.get(0).getEmployeeId());
+    }
+
+    private List<EmployeeView> reportViews(Employee employee, Map<String, EmployeeView> views) {
+        List<String> reportIds = employee.getDirectReports();
+        if (reportIds == null) {
+            return null;
+        }
+
+        //a level below the requested depth was never placed, it is all stubs
+        Employee[] reports = placedReports.get(employee.getEmployeeId());
+        List<EmployeeView> reportViews = new ArrayList<>(reportIds.size());
+        for (int i = 0; i < reportIds.size(); i++) {
+            String reportId = reportIds.get(i);
+            if (reportId == null) {
+                continue;
+            }
+            reportViews.add(reports != null && reports[i] != null ? views.remove(reportId) : EmployeeView.stub(reportId));
+        }
+        return reportViews;
+    }
+
+    static <T> List<List<T>> batches(List<T> items, int batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            batches.add(items.subList(from, Math.min(from + batchSize, items.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mindex.challenge.service.impl;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: while a call is in flight, every other call for its key waits for it and
+ * gets its result, or its exception, instead of running it again. Nothing is kept once the call is done, so this is not
+ * a cache, a call that starts afterwards runs again and sees whatever was written in between.
+ *
+ * Each call carries the version of the data it has to see, read before the call. A call only joins a flight started
+ * with the same version. One with another version starts a flight of its own, which takes the key over for every call
+ * after it, while the callers already waiting on the older flight still get its result. So writes that leave the
+ * version alone do not split a burst of calls into separate flights.
+ *
+ * The result is handed to every caller that joined, so it must not be changed by any of them.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    //run for every call that joined one already in flight rather than running its own
+    private final Runnable onShared;
+
+    SingleFlight(Runnable onShared) {
+        this.onShared = onShared;
+    }
+
+    //runs the call on the calling thread, or blocks it until the one already in flight for the key and version is done
+    V call(K key, Object version, Supplier<V> call) {
+        Flight<V> flight = new Flight<>(version);
+        Flight<V> inFlight = takeOff(key, flight);
+        if (inFlight != flight) {
+            onShared.run();
+            return join(inFlight.result);
+        }
+
+        try {
+            V value = call.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    //subscribes to the call once per flight, a subscriber that cancels leaves it running for the others
+    Mono<V> mono(K key, Object version, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> {
+            Flight<V> flight = new Flight<>(version);
+            Flight<V> inFlight = takeOff(key, flight);
+            if (inFlight != flight) {
+                onShared.run();
+                return Mono.fromFuture(inFlight.result, true);
+            }
+
+            Mono.defer(call).toFuture().whenComplete((value, error) -> {
+                flights.remove(key, flight);
+                if (error != null) {
+                    flight.result.completeExceptionally(error);
+                } else {
+                    flight.result.complete(value);
+                }
+            });
+            return Mono.fromFuture(flight.result, true);
+        });
+    }
+
+    //returns the flight in the air for the key and version, or the given one once it has taken the key
+    private Flight<V> takeOff(K key, Flight<V> flight) {
+        while (true) {
+            Flight<V> inFlight = flights.putIfAbsent(key, flight);
+            if (inFlight == null) {
+                return flight;
+            }
+            if (Objects.equals(inFlight.version, flight.version)) {
+                return inFlight;
+            }
+            if (flights.replace(key, inFlight, flight)) {
+                return flight;
+            }
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            //rethrown as the caller that ran it saw it, so errors are handled the same for everyone
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Flight<V> {
+        private final Object version;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        Flight(Object version) {
+            this.version = version;
+        }
+    }
+}
@@ -1,23 +1,53 @@
 package com.mindex.challenge;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.config.BootstrapGateConfig;
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeStore;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+import com.mindex.challenge.service.impl.PayrollView;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyList;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest
+//the same configuration as the other web tests, so all of them run against one cached context
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 public class DataBootstrapTest {
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     public void test() {
         Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
@@ -27,4 +57,99 @@ public class DataBootstrapTest {
         assertEquals("Development Manager", employee.getPosition());
         assertEquals("Engineering", employee.getDepartment());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoadInsertsInBatches() throws Exception {
+        EmployeeStore mockEmployeeStore = Mockito.mock(EmployeeStore.class);
+
+        DataBootstrap dataBootstrap = new DataBootstrap();
+        ReflectionTestUtils.setField(dataBootstrap, "employeeStore", mockEmployeeStore);
+        ReflectionTestUtils.setField(dataBootstrap, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(dataBootstrap, "batchSize", 2);
+        ReflectionTestUtils.setField(dataBootstrap, "writerThreads", 2);
+        ReflectionTestUtils.setField(dataBootstrap, "queueCapacity", 1);
+
+        String json = "[{\"employeeId\":\"1\"},{\"employeeId\":\"2\"},{\"employeeId\":\"3\",\"directReports\":[{\"employeeId\":\"1\"}]}," +
+                "{\"employeeId\":\"4\"},{\"employeeId\":\"5\"}]";
+        int loaded = dataBootstrap.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, loaded);
+        Mockito.verify(mockEmployeeStore, Mockito.times(3)).insert(anyList());
+    }
+
+    @Test
+    public void testBackgroundLoadDoesNotHoldStartup() throws Exception {
+        EmployeeStore mockEmployeeStore = Mockito.mock(EmployeeStore.class);
+        CompensationRepository mockCompensationRepository = Mockito.mock(CompensationRepository.class);
+        Mockito.when(mockEmployeeStore.streamAllBy()).thenAnswer(invocation -> Stream.empty());
+        Mockito.when(mockCompensationRepository.streamAllBy()).thenAnswer(invocation -> Stream.empty());
+
+        //holds the insert back, so the load is still running when startup moves on
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(mockEmployeeStore).insert(anyList());
+
+        OrgGraphIndex orgGraphIndex = new OrgGraphIndex();
+        ReflectionTestUtils.setField(orgGraphIndex, "employeeStore", mockEmployeeStore);
+        PayrollView payrollView = new PayrollView();
+        ReflectionTestUtils.setField(payrollView, "employeeStore", mockEmployeeStore);
+        ReflectionTestUtils.setField(payrollView, "compensationRepository", mockCompensationRepository);
+
+        DataBootstrap dataBootstrap = new DataBootstrap();
+        ReflectionTestUtils.setField(dataBootstrap, "employeeStore", mockEmployeeStore);
+        ReflectionTestUtils.setField(dataBootstrap, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(dataBootstrap, "orgGraphIndex", orgGraphIndex);
+        ReflectionTestUtils.setField(dataBootstrap, "payrollView", payrollView);
+        ReflectionTestUtils.setField(dataBootstrap, "batchSize", 1000);
+        ReflectionTestUtils.setField(dataBootstrap, "writerThreads", 1);
+        ReflectionTestUtils.setField(dataBootstrap, "queueCapacity", 1);
+        ReflectionTestUtils.setField(dataBootstrap, "background", true);
+
+        dataBootstrap.afterSingletonsInstantiated();
+        assertFalse(dataBootstrap.ready().isDone());
+
+        release.countDown();
+        dataBootstrap.ready().get(30, TimeUnit.SECONDS);
+        Mockito.verify(mockEmployeeStore, Mockito.times(1)).insert(anyList());
+    }
+
+    @Test
+    public void testGateAnswers503OnceItHasWaitedLongEnough() throws Exception {
+        //a load that never finishes
+        DataBootstrap mockDataBootstrap = Mockito.mock(DataBootstrap.class);
+        Mockito.when(mockDataBootstrap.ready()).thenReturn(new CompletableFuture<>());
+
+        BootstrapGateConfig bootstrapGateConfig = new BootstrapGateConfig();
+        ReflectionTestUtils.setField(bootstrapGateConfig, "gateTimeout", Duration.ofMillis(50));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        bootstrapGateConfig.bootstrapGateFilter(mockDataBootstrap)
+                .doFilter(new MockHttpServletRequest("GET", "/employee/1"), response, filterChain);
+
+        assertEquals(503, response.getStatus());
+        assertNull(filterChain.getRequest());
+    }
+
+    @Test
+    public void testBackgroundLoadThatDiesStillCompletesReady() throws Exception {
+        EmployeeStore mockEmployeeStore = Mockito.mock(EmployeeStore.class);
+        //not a RuntimeException, the gate would wait on ready() for good if only those were caught
+        Mockito.when(mockEmployeeStore.count()).thenThrow(new NoClassDefFoundError("com/mindex/challenge/Missing"));
+
+        DataBootstrap dataBootstrap = new DataBootstrap();
+        ReflectionTestUtils.setField(dataBootstrap, "employeeStore", mockEmployeeStore);
+        ReflectionTestUtils.setField(dataBootstrap, "background", true);
+
+        dataBootstrap.afterSingletonsInstantiated();
+
+        try {
+            dataBootstrap.ready().get(30, TimeUnit.SECONDS);
+            fail("ready() completed normally after the load failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoClassDefFoundError);
+        }
+    }
+}
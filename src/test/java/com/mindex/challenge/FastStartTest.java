@@ -0,0 +1,83 @@
+package com.mindex.challenge;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Starts the application with the fast profile in a JVM of its own, so nothing is already loaded or compiled, and
+ * measures the time from launching it to the first answered request for a seed employee. The target defaults to one
+ * that holds on a single slow core and can be tightened with -Dchallenge.startup.target-ms.
+ */
+public class FastStartTest {
+    private static final long DEFAULT_TARGET_MILLIS = 15000;
+
+    //John Lennon in the seed data
+    private static final String SEED_EMPLOYEE_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+    @Test
+    public void testTimeToFirstRequest() throws Exception {
+        long targetMillis = Long.getLong("challenge.startup.target-ms", DEFAULT_TARGET_MILLIS);
+        int port = freePort();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/employee/" + SEED_EMPLOYEE_ID)).build();
+
+        long start = System.nanoTime();
+        Process application = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-XX:TieredStopAtLevel=1",
+                "-cp", System.getProperty("java.class.path"),
+                ChallengeApplication.class.getName(),
+                "--spring.profiles.active=fast",
+                "--server.port=" + port,
+                "--logging.level.root=WARN")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        try {
+            //give up well after the target, so a miss reports the time it took rather than a timeout
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(targetMillis * 4);
+            HttpResponse<String> response = null;
+            while (response == null && application.isAlive() && System.nanoTime() < deadline) {
+                try {
+                    response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                } catch (ConnectException e) {
+                    Thread.sleep(20);
+                }
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue("No response after " + elapsedMillis + " ms", response != null);
+            //the web server is up before the seed data is loaded, the first request waits for it instead of missing it
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"firstName\":\"John\""));
+            assertTrue("First request answered after " + elapsedMillis + " ms, the target is " + targetMillis + " ms",
+                    elapsedMillis <= targetMillis);
+        } finally {
+            application.destroy();
+            if (!application.waitFor(30, TimeUnit.SECONDS)) {
+                application.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mindex.challenge.controller;
 
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Money;
 import com.mindex.challenge.service.EmployeeService;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,7 +45,7 @@ public class EmployeeControllerTest {
 
         assertNotNull(test);
         assertEquals("12345", test.getEmployeeCompensationId());
-        assertEquals("$123,456.30", test.getSalary());
+        assertEquals("$123,456.30", test.getSalary().format());
         assertEquals(LocalDate.parse("2025-08-24"), test.getEffectiveDate());
     }
 
@@ -52,18 +53,18 @@ public class EmployeeControllerTest {
     public void testReadCompensation() {
         Mockito.when(mockEmployeeService.readCompensation(any(String.class))).thenReturn(createTestCompensation());
 
-        Compensation test = employeeController.readCompensation("1");
+        Compensation test = employeeController.readCompensation("1", null);
 
         assertNotNull(test);
         assertEquals("12345", test.getEmployeeCompensationId());
-        assertEquals("$123,456.30", test.getSalary());
+        assertEquals("$123,456.30", test.getSalary().format());
         assertEquals(LocalDate.parse("2025-08-24"), test.getEffectiveDate());
     }
 
     private static Compensation createTestCompensation() {
         Compensation testCompensation = new Compensation();
         testCompensation.setEmployeeCompensationId("12345");
-        testCompensation.setSalary("123456.3");
+        testCompensation.setSalary(Money.parse("123456.3"));
         testCompensation.setEffectiveDate(LocalDate.parse("2025-08-24"));
         return testCompensation;
     }
@@ -0,0 +1,140 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.mindex.challenge.data.TestEmployees.createFullTestEmployee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class CachedEmployeeStoreTest {
+
+    private EmployeeRepository mockEmployeeRepository;
+    private CachedEmployeeStore employeeStore;
+
+    @Before
+    public void setup() {
+        //the repository accepts every write as is, the store only keeps what it returns
+        mockEmployeeRepository = Mockito.mock(EmployeeRepository.class);
+        Mockito.when(mockEmployeeRepository.insert(any(Employee.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.when(mockEmployeeRepository.insert(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.when(mockEmployeeRepository.upsert(any(Employee.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        employeeStore = new CachedEmployeeStore(mockEmployeeRepository);
+    }
+
+    @Test
+    public void testInsertAndFind() {
+        //enough employees to grow the table past its initial capacity several times
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            employees.add(createFullTestEmployee("employee-" + i));
+        }
+        employeeStore.insert(employees);
+        employeeStore.insert(createFullTestEmployee("john", "paul", "ringo"));
+
+        assertEquals(5001, employeeStore.size());
+        assertEquals("employee-4321", employeeStore.findByEmployeeId("employee-4321").getEmployeeId());
+        assertEquals("First john", employeeStore.findByEmployeeId("john").getFirstName());
+        assertNull(employeeStore.findByEmployeeId("unknown"));
+        assertNull(employeeStore.findByEmployeeId(null));
+
+        assertEquals(List.of("employee-1", "john"),
+                employeeStore.findByEmployeeIdIn(List.of("employee-1", "unknown", "john")).stream()
+                        .map(Employee::getEmployeeId)
+                        .collect(Collectors.toList()));
+
+        try (Stream<Employee> all = employeeStore.streamAllBy()) {
+            assertEquals(5001, all.count());
+        }
+    }
+
+    @Test
+    public void testReadsAreCopies() {
+        Employee john = createFullTestEmployee("john", "paul");
+        employeeStore.insert(john);
+        john.setFirstName("Changed after insert");
+
+        Employee read = employeeStore.findByEmployeeId("john");
+        assertEquals("First john", read.getFirstName());
+
+        read.getDirectReports().set(0, "pete");
+        read.setLastName("Changed after read");
+
+        Employee reread = employeeStore.findByEmployeeId("john");
+        assertEquals("Last john", reread.getLastName());
+        assertEquals(List.of("paul"), reread.getDirectReports());
+    }
+
+    @Test
+    public void testUpsertReplaces() {
+        employeeStore.insert(createFullTestEmployee("john", "paul"));
+
+        Employee update = createFullTestEmployee("john", "ringo", "george");
+        update.setPosition("Manager");
+        employeeStore.upsert(update);
+
+        Employee read = employeeStore.findByEmployeeId("john");
+        assertEquals("Manager", read.getPosition());
+        assertEquals(List.of("ringo", "george"), read.getDirectReports());
+        assertEquals(1, employeeStore.size());
+    }
+
+    @Test
+    public void testOlderUpsertDoesNotReplaceNewer() {
+        employeeStore.insert(createFullTestEmployee("john"));
+
+        //two updates without a version, the database applied the second one last but it reached the store first
+        Employee second = createFullTestEmployee("john");
+        second.setPosition("Manager");
+        second.setVersion(2L);
+        Employee first = createFullTestEmployee("john");
+        first.setPosition("Lead");
+        first.setVersion(1L);
+        employeeStore.upsert(second);
+        employeeStore.upsert(first);
+
+        Employee read = employeeStore.findByEmployeeId("john");
+        assertEquals("Manager", read.getPosition());
+        assertEquals(Long.valueOf(2), read.getVersion());
+    }
+
+    @Test
+    public void testBulkInsertSkipsFailedPositions() {
+        Mockito.when(mockEmployeeRepository.bulkInsert(anyList())).thenReturn(Map.of(1, "E11000 duplicate key error"));
+
+        Map<Integer, String> errors = employeeStore.bulkInsert(List.of(
+                createFullTestEmployee("john"), createFullTestEmployee("paul"), createFullTestEmployee("ringo")));
+
+        assertEquals(Set.of(1), errors.keySet());
+        assertEquals("john", employeeStore.findByEmployeeId("john").getEmployeeId());
+        assertNull(employeeStore.findByEmployeeId("paul"));
+        assertEquals("ringo", employeeStore.findByEmployeeId("ringo").getEmployeeId());
+    }
+
+    @Test
+    public void testProjectedFind() {
+        employeeStore.insert(createFullTestEmployee("john", "paul"));
+
+        Employee projected = employeeStore.findByEmployeeIdIn(List.of("john"), Set.of("firstName")).get(0);
+        assertEquals("john", projected.getEmployeeId());
+        assertEquals("First john", projected.getFirstName());
+        assertNull(projected.getLastName());
+        assertNull(projected.getPosition());
+        assertNull(projected.getDepartment());
+
+        //like the database projection, the direct report IDs are always read
+        assertEquals(List.of("paul"), projected.getDirectReports());
+    }
+}
@@ -0,0 +1,273 @@
+package com.mindex.challenge.dao.durable;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.ArrayFilters;
+import de.bwaldvogel.mongo.exception.MongoServerException;
+import de.bwaldvogel.mongo.oplog.NoopOplog;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.bson.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DurableMemoryBackendTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRestartFromSnapshot() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+
+        MongoServer server = new MongoServer(DurableMemoryBackend.open(directory, false));
+        try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+            MongoCollection<Document> employees = employees(client);
+            List<Document> documents = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                documents.add(new Document("employeeId", "employee-" + i).append("firstName", "First " + i));
+            }
+            employees.insertMany(documents);
+            employees.updateOne(Filters.eq("employeeId", "employee-1"), Updates.set("firstName", "Changed"));
+            employees.deleteOne(Filters.eq("employeeId", "employee-2"));
+        } finally {
+            server.shutdownNow();
+        }
+
+        //a clean shutdown leaves everything in the snapshot and nothing to replay
+        assertTrue(Files.size(directory.resolve(DurableMemoryBackend.SNAPSHOT_FILE)) > 0);
+        assertEquals(0, Files.size(directory.resolve(DurableMemoryBackend.LOG_FILE)));
+
+        server = new MongoServer(DurableMemoryBackend.open(directory, false));
+        try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+            MongoCollection<Document> employees = employees(client);
+            assertEquals(999, employees.countDocuments());
+            assertEquals("Changed", employees.find(Filters.eq("employeeId", "employee-1")).first().getString("firstName"));
+            assertEquals("First 3", employees.find(Filters.eq("employeeId", "employee-3")).first().getString("firstName"));
+            assertEquals(0, employees.countDocuments(Filters.eq("employeeId", "employee-2")));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRecoveryFromLog() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+
+        //a snapshot from an earlier clean shutdown, with writes after it that only reached the log
+        MongoServer server = new MongoServer(DurableMemoryBackend.open(directory, false));
+        try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+            employees(client).insertOne(new Document("employeeId", "john").append("position", "Developer"));
+        } finally {
+            server.shutdownNow();
+        }
+
+        MongoServer crashed = new MongoServer(DurableMemoryBackend.open(directory, false));
+        try {
+            try (MongoClient client = MongoClients.create(crashed.bindAndGetConnectionString())) {
+                MongoCollection<Document> employees = employees(client);
+                employees.insertOne(new Document("employeeId", "paul"));
+                employees.insertOne(new Document("employeeId", "ringo"));
+                employees.updateOne(Filters.eq("employeeId", "john"), Updates.set("position", "Manager"));
+                employees.deleteOne(Filters.eq("employeeId", "ringo"));
+            }
+
+            //the first server is never shut down, as if the process had been killed
+            server = new MongoServer(DurableMemoryBackend.open(directory, false));
+            try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+                MongoCollection<Document> employees = employees(client);
+                assertEquals(Set.of("john", "paul"), employeeIds(employees));
+                assertEquals("Manager", employees.find(Filters.eq("employeeId", "john")).first().getString("position"));
+            } finally {
+                server.shutdownNow();
+            }
+        } finally {
+            crashed.stopListening();
+        }
+    }
+
+    @Test
+    public void testSnapshotOnceLogGrows() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        Path log = directory.resolve(DurableMemoryBackend.LOG_FILE);
+
+        MongoServer crashed = new MongoServer(DurableMemoryBackend.open(directory, false, 16 * 1024));
+        try {
+            try (MongoClient client = MongoClients.create(crashed.bindAndGetConnectionString())) {
+                MongoCollection<Document> employees = employees(client);
+                for (int i = 0; i < 500; i++) {
+                    employees.insertOne(new Document("employeeId", "employee-" + i).append("firstName", "First " + i));
+                }
+
+                //the log is emptied in the background, long before the server is shut down
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (!Files.exists(directory.resolve(DurableMemoryBackend.SNAPSHOT_FILE)) || Files.size(log) >= 16 * 1024) {
+                    assertTrue("no snapshot was written", System.currentTimeMillis() < deadline);
+                    Thread.sleep(10);
+                }
+                employees.updateOne(Filters.eq("employeeId", "employee-1"), Updates.set("firstName", "Changed"));
+            }
+
+            //killed, the snapshot and what was logged after it are read back
+            MongoServer server = new MongoServer(DurableMemoryBackend.open(directory, false));
+            try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+                MongoCollection<Document> employees = employees(client);
+                assertEquals(500, employees.countDocuments());
+                assertEquals("Changed", employees.find(Filters.eq("employeeId", "employee-1")).first().getString("firstName"));
+            } finally {
+                server.shutdownNow();
+            }
+        } finally {
+            crashed.stopListening();
+        }
+    }
+
+    @Test
+    public void testUpdateThatFailsToLogIsNotApplied() throws IOException {
+        DurableMemoryBackend backend = DurableMemoryBackend.open(temporaryFolder.getRoot().toPath(), false);
+        try {
+            de.bwaldvogel.mongo.MongoCollection<?> employees = backend.resolveDatabase("test").createCollectionOrThrowIfExists("employee");
+            employees.addDocument(new de.bwaldvogel.mongo.bson.Document("_id", 1).append("position", "Developer"));
+
+            //an interrupted thread's write closes the log's channel and fails
+            Thread.currentThread().interrupt();
+            try {
+                employees.updateDocuments(new de.bwaldvogel.mongo.bson.Document("_id", 1),
+                        new de.bwaldvogel.mongo.bson.Document("$set", new de.bwaldvogel.mongo.bson.Document("position", "Manager")),
+                        ArrayFilters.empty(), false, false, NoopOplog.get());
+                fail("the update was applied without being logged");
+            } catch (MongoServerException e) {
+                //expected
+            } finally {
+                Thread.interrupted();
+            }
+
+            assertEquals("Developer", employees.queryAll().iterator().next().get("position"));
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotReadsEachDocumentStoredAtTheCutOnce() throws IOException {
+        DurableMemoryBackend backend = DurableMemoryBackend.open(temporaryFolder.getRoot().toPath(), false);
+        try {
+            DurableMemoryCollection employees = (DurableMemoryCollection) backend.resolveDatabase("test").createCollectionOrThrowIfExists("employee");
+            for (int id = 1; id <= 3; id++) {
+                employees.addDocument(new de.bwaldvogel.mongo.bson.Document("_id", id));
+            }
+
+            int positions;
+            synchronized (employees) {
+                positions = employees.startSnapshot();
+            }
+            assertEquals(3, positions);
+
+            ByteBuf batch = Unpooled.buffer();
+            assertEquals(1, employees.encodeDocuments(0, 1, batch));
+
+            //1 was read already, it is deleted and added again in the position 3 had, which the snapshot has not reached
+            employees.updateDocuments(new de.bwaldvogel.mongo.bson.Document("_id", 2),
+                    new de.bwaldvogel.mongo.bson.Document("$set", new de.bwaldvogel.mongo.bson.Document("position", "Manager")),
+                    ArrayFilters.empty(), false, false, NoopOplog.get());
+            employees.deleteDocuments(new de.bwaldvogel.mongo.bson.Document("_id", 3), 1, NoopOplog.get());
+            employees.deleteDocuments(new de.bwaldvogel.mongo.bson.Document("_id", 1), 1, NoopOplog.get());
+            employees.addDocument(new de.bwaldvogel.mongo.bson.Document("_id", 1));
+
+            //only 2, as it is now, the rest is in the log after the cut
+            assertEquals(1, employees.encodeDocuments(1, positions, batch));
+            employees.endSnapshot();
+
+            //the next snapshot reads it again
+            synchronized (employees) {
+                positions = employees.startSnapshot();
+            }
+            assertEquals(2, employees.encodeDocuments(0, positions, Unpooled.buffer()));
+            employees.endSnapshot();
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    public void testDiscardingTheLogKeepsTheRecordsAfterTheCut() throws IOException {
+        Path file = temporaryFolder.getRoot().toPath().resolve(DurableMemoryBackend.LOG_FILE);
+        try (WriteAheadLog log = WriteAheadLog.open(file, 0, false)) {
+            log.append(new de.bwaldvogel.mongo.bson.Document("n", 1));
+            long cut = log.length();
+            log.append(new de.bwaldvogel.mongo.bson.Document("n", 2));
+
+            log.discardBefore(cut);
+            log.append(new de.bwaldvogel.mongo.bson.Document("n", 3));
+        }
+
+        List<Object> replayed = new ArrayList<>();
+        WriteAheadLog.replay(file, record -> replayed.add(record.get("n")));
+        assertEquals(List.of(2, 3), replayed);
+    }
+
+    @Test
+    public void testTornLogTail() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+
+        MongoServer crashed = new MongoServer(DurableMemoryBackend.open(directory, false));
+        try {
+            try (MongoClient client = MongoClients.create(crashed.bindAndGetConnectionString())) {
+                employees(client).insertOne(new Document("employeeId", "john"));
+            }
+
+            //half of a record header, as a crash in the middle of an append leaves it
+            Files.write(directory.resolve(DurableMemoryBackend.LOG_FILE), new byte[]{42, 0}, StandardOpenOption.APPEND);
+
+            MongoServer server = new MongoServer(DurableMemoryBackend.open(directory, false));
+            try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+                MongoCollection<Document> employees = employees(client);
+                assertEquals(Set.of("john"), employeeIds(employees));
+
+                //the torn bytes are cut off, so writes after the restart are read back as well
+                employees.insertOne(new Document("employeeId", "paul"));
+            } finally {
+                server.shutdownNow();
+            }
+
+            server = new MongoServer(DurableMemoryBackend.open(directory, false));
+            try (MongoClient client = MongoClients.create(server.bindAndGetConnectionString())) {
+                assertEquals(Set.of("john", "paul"), employeeIds(employees(client)));
+            } finally {
+                server.shutdownNow();
+            }
+        } finally {
+            crashed.stopListening();
+        }
+    }
+
+    private static MongoCollection<Document> employees(MongoClient client) {
+        return client.getDatabase("test").getCollection("employee");
+    }
+
+    private static Set<String> employeeIds(MongoCollection<Document> employees) {
+        Set<String> employeeIds = new TreeSet<>();
+        for (Document employee : employees.find()) {
+            employeeIds.add(employee.getString("employeeId"));
+        }
+        return employeeIds;
+    }
+}
@@ -0,0 +1,191 @@
+package com.mindex.challenge.dao.embedded;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.IndexKey;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedMemoryBackendTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private MongoCollection<Document> employees;
+
+    @Before
+    public void setup() {
+        server = new MongoServer(new IndexedMemoryBackend());
+        client = MongoClients.create(server.bindAndGetConnectionString());
+        employees = client.getDatabase("test").getCollection("employee");
+
+        employees.createIndex(Indexes.ascending("employeeId"), new IndexOptions().unique(true));
+        employees.createIndex(Indexes.ascending("department"));
+        employees.createIndex(Indexes.ascending("directReports"));
+
+        employees.insertMany(List.of(
+                employee("john", "Engineering", 0, "paul", "ringo"),
+                employee("paul", "Engineering", 0),
+                employee("ringo", "Engineering", 0, "pete"),
+                employee("pete", "Sales", 0),
+                employee("george", "Sales", 0)));
+    }
+
+    @After
+    public void teardown() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void testSecondaryIndexQueries() {
+        assertEquals(List.of("john", "paul", "ringo"), employeeIds(Filters.eq("department", "Engineering")));
+        assertEquals(List.of("john", "paul", "ringo", "pete", "george"), employeeIds(Filters.in("department", "Engineering", "Sales")));
+        assertEquals(List.of("pete"), employeeIds(Filters.and(Filters.eq("department", "Sales"), Filters.eq("employeeId", "pete"))));
+        assertEquals(List.of(), employeeIds(Filters.eq("department", "Marketing")));
+
+        //multikey, each direct report ID finds the manager that lists it
+        assertEquals(List.of("john"), employeeIds(Filters.eq("directReports", "ringo")));
+        assertEquals(List.of("ringo"), employeeIds(Filters.eq("directReports", "pete")));
+        assertEquals(List.of(), employeeIds(Filters.eq("directReports", "john")));
+
+        //conditions the hash cannot answer fall back to a scan and still match
+        assertEquals(List.of("pete", "george"), employeeIds(Filters.regex("department", "^Sa")));
+        assertEquals(List.of("john", "paul", "ringo", "pete", "george"), employeeIds(Filters.exists("department")));
+    }
+
+    @Test
+    public void testIndexFollowsWrites() {
+        employees.updateOne(Filters.eq("employeeId", "paul"), Updates.set("department", "Sales"));
+        employees.updateOne(Filters.eq("employeeId", "ringo"), Updates.set("directReports", List.of()));
+        employees.updateOne(Filters.eq("employeeId", "george"), Updates.set("directReports", List.of("pete")));
+        employees.deleteOne(Filters.eq("employeeId", "john"));
+
+        assertEquals(List.of("ringo"), employeeIds(Filters.eq("department", "Engineering")));
+        assertEquals(List.of("paul", "pete", "george"), employeeIds(Filters.eq("department", "Sales")));
+        assertEquals(List.of("george"), employeeIds(Filters.eq("directReports", "pete")));
+        assertEquals(List.of(), employeeIds(Filters.eq("directReports", "ringo")));
+
+        //a document added back in a freed position is found under its own values only
+        employees.insertOne(employee("stuart", "Marketing", 0, "paul"));
+        assertEquals(List.of("stuart"), employeeIds(Filters.eq("department", "Marketing")));
+        assertEquals(List.of("stuart"), employeeIds(Filters.eq("directReports", "paul")));
+    }
+
+    @Test
+    public void testUniqueIndexWithExtraConditions() {
+        //the shape of a versioned upsert, which the stock unique index would answer with a scan
+        assertEquals(List.of("paul"), employeeIds(Filters.and(Filters.eq("employeeId", "paul"), Filters.eq("version", 0))));
+        assertEquals(List.of(), employeeIds(Filters.and(Filters.eq("employeeId", "paul"), Filters.eq("version", 1))));
+
+        employees.updateOne(Filters.and(Filters.eq("employeeId", "paul"), Filters.eq("version", 0)), Updates.inc("version", 1));
+        assertEquals(1, employees.find(Filters.eq("employeeId", "paul")).first().getInteger("version").intValue());
+    }
+
+    @Test
+    public void testCanHandle() {
+        PrefixMemoryUniqueIndex unique = new PrefixMemoryUniqueIndex("employeeId_1", List.of(new IndexKey("employeeId", true)), false);
+        assertTrue(unique.canHandle(new de.bwaldvogel.mongo.bson.Document("employeeId", "john")));
+        assertTrue(unique.canHandle(new de.bwaldvogel.mongo.bson.Document("employeeId", "john").append("version", 0)));
+        assertFalse(unique.canHandle(new de.bwaldvogel.mongo.bson.Document("version", 0)));
+
+        MemorySecondaryIndex secondary = new MemorySecondaryIndex("department_1", List.of(new IndexKey("department", true)), false);
+        assertTrue(secondary.canHandle(new de.bwaldvogel.mongo.bson.Document("department", "Sales")));
+        assertTrue(secondary.canHandle(new de.bwaldvogel.mongo.bson.Document("department",
+                new de.bwaldvogel.mongo.bson.Document("$in", List.of("Sales", "Engineering")))));
+        assertFalse(secondary.canHandle(new de.bwaldvogel.mongo.bson.Document("department",
+                new de.bwaldvogel.mongo.bson.Document("$gt", "Sales"))));
+        assertFalse(secondary.canHandle(new de.bwaldvogel.mongo.bson.Document("department", null)));
+        assertFalse(secondary.canHandle(new de.bwaldvogel.mongo.bson.Document("lastName", "Lennon")));
+    }
+
+    @Test
+    public void testCompoundIndexLeadingField() {
+        MongoCollection<Document> compensation = client.getDatabase("test").getCollection("compensation");
+        compensation.createIndex(Indexes.compoundIndex(Indexes.ascending("employeeCompensationId"), Indexes.descending("effectiveDate")));
+        compensation.insertMany(List.of(
+                new Document("employeeCompensationId", "john").append("effectiveDate", "2024-01-01"),
+                new Document("employeeCompensationId", "paul").append("effectiveDate", "2024-06-01"),
+                new Document("employeeCompensationId", "john").append("effectiveDate", "2025-01-01")));
+
+        Document latest = compensation.find(Filters.and(Filters.eq("employeeCompensationId", "john"), Filters.lte("effectiveDate", "2024-12-31")))
+                .sort(Sorts.descending("effectiveDate"))
+                .first();
+        assertEquals("2024-01-01", latest.getString("effectiveDate"));
+        assertEquals(2, compensation.countDocuments(Filters.eq("employeeCompensationId", "john")));
+    }
+
+    @Test
+    public void testOrderedIndexPagesInSortOrder() {
+        employees.createIndex(Indexes.compoundIndex(Indexes.ascending("department"), Indexes.ascending("employeeId")));
+
+        Bson sort = Sorts.ascending("employeeId");
+        assertEquals(List.of("john", "paul"), employeeIds(Filters.eq("department", "Engineering"), sort, 2));
+        assertEquals(List.of("ringo"), employeeIds(Filters.and(Filters.eq("department", "Engineering"), Filters.gt("employeeId", "paul")), sort, 2));
+        assertEquals(List.of("paul", "ringo"), employeeIds(Filters.and(Filters.eq("department", "Engineering"),
+                Filters.gte("employeeId", "p"), Filters.lt("employeeId", "s")), sort, 5));
+        assertEquals(List.of("ringo", "paul", "john"), employeeIds(Filters.eq("department", "Engineering"), Sorts.descending("employeeId"), 5));
+        assertEquals(List.of(), employeeIds(Filters.and(Filters.eq("department", "Sales"),
+                Filters.gt("employeeId", "z"), Filters.lt("employeeId", "a")), sort, 5));
+
+        //the order follows writes that move a document within the index
+        employees.updateOne(Filters.eq("employeeId", "pete"), Updates.set("department", "Engineering"));
+        assertEquals(List.of("pete", "ringo"), employeeIds(Filters.and(Filters.eq("department", "Engineering"), Filters.gt("employeeId", "paul")), sort, 2));
+    }
+
+    @Test
+    public void testSortedPrefix() {
+        OrderedMemoryIndex index = new OrderedMemoryIndex("department_1_lastName_1_employeeId_1", List.of(
+                new IndexKey("department", true), new IndexKey("lastName", true), new IndexKey("employeeId", true)), false);
+        de.bwaldvogel.mongo.bson.Document byName = new de.bwaldvogel.mongo.bson.Document("lastName", 1).append("employeeId", 1);
+
+        assertEquals(1, index.sortedPrefix(new de.bwaldvogel.mongo.bson.Document("department", "Sales"), byName));
+        assertEquals(1, index.sortedPrefix(new de.bwaldvogel.mongo.bson.Document("department", "Sales"),
+                new de.bwaldvogel.mongo.bson.Document("department", 1).append("lastName", 1)));
+        assertEquals(-1, index.sortedPrefix(new de.bwaldvogel.mongo.bson.Document("department", "Sales"),
+                new de.bwaldvogel.mongo.bson.Document("lastName", -1)));
+        assertEquals(-1, index.sortedPrefix(new de.bwaldvogel.mongo.bson.Document(), byName));
+        assertEquals(-1, index.sortedPrefix(new de.bwaldvogel.mongo.bson.Document("department",
+                new de.bwaldvogel.mongo.bson.Document("$in", List.of("Sales", "Engineering"))), byName));
+        assertEquals(0, index.sortedPrefix(new de.bwaldvogel.mongo.bson.Document(), new de.bwaldvogel.mongo.bson.Document("department", 1)));
+    }
+
+    private List<String> employeeIds(Bson filter, Bson sort, int limit) {
+        List<String> employeeIds = new ArrayList<>();
+        for (Document employee : employees.find(filter).sort(sort).limit(limit)) {
+            employeeIds.add(employee.getString("employeeId"));
+        }
+        return employeeIds;
+    }
+
+    private List<String> employeeIds(Bson filter) {
+        List<String> employeeIds = new ArrayList<>();
+        for (Document employee : employees.find(filter)) {
+            employeeIds.add(employee.getString("employeeId"));
+        }
+        return employeeIds;
+    }
+
+    private static Document employee(String employeeId, String department, int version, String... directReports) {
+        return new Document("employeeId", employeeId)
+                .append("department", department)
+                .append("version", version)
+                .append("directReports", List.of(directReports));
+    }
+}
@@ -0,0 +1,71 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void testFormat() {
+        assertEquals("$123,456.30", Money.of(12345630).format());
+        assertEquals("$0.05", Money.of(5).format());
+        assertEquals("$100.00", Money.of(10000).format());
+        assertEquals("-$1,000,000.01", Money.of(-100000001).format());
+        assertEquals("JPY 1,234", new Money(1234, "JPY").format());
+    }
+
+    @Test
+    public void testFormatIgnoresDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            assertEquals("$123,456.30", Money.of(12345630).format());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(Money.of(12345630), Money.parse("123456.3"));
+        assertEquals(Money.of(12345630), Money.parse("$123,456.30"));
+        assertEquals(Money.of(-250), Money.parse("-$2.50"));
+        //sub-cent digits round half-even rather than drifting like a double would
+        assertEquals(Money.of(2), Money.parse("0.025"));
+        assertEquals(new Money(123450, "EUR"), Money.parse("EUR 1,234.50", "EUR"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseRejectsGarbage() {
+        Money.parse("lots");
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        Compensation compensation = objectMapper.readValue(
+                "{\"employeeCompensationId\":\"1\",\"salary\":123456.3,\"effectiveDate\":\"2025-08-24\"}", Compensation.class);
+        assertEquals(Money.of(12345630), compensation.getSalary());
+        assertEquals(LocalDate.parse("2025-08-24"), compensation.getEffectiveDate());
+
+        //the formatted value written out reads back to the same amount
+        String json = objectMapper.writeValueAsString(compensation);
+        assertEquals(true, json.contains("\"salary\":\"$123,456.30\""));
+        assertEquals(compensation.getSalary(), objectMapper.readValue(json, Compensation.class).getSalary());
+
+        Compensation euros = objectMapper.readValue("{\"salary\":{\"amount\":\"99.9\",\"currency\":\"EUR\"}}", Compensation.class);
+        assertEquals(new Money(9990, "EUR"), euros.getSalary());
+    }
+
+    @Test(expected = InvalidFormatException.class)
+    public void testJsonRejectsInvalidAmount() throws Exception {
+        objectMapper.readValue("{\"salary\":\"lots\"}", Compensation.class);
+    }
+}
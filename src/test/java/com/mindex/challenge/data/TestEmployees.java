@@ -0,0 +1,52 @@
+package com.mindex.challenge.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Employees for the tests, built in one place so every test means the same thing by them.
+ */
+public final class TestEmployees {
+
+    private TestEmployees() {
+    }
+
+    /**
+     * An employee with only an ID and its direct reports, all the org graph and the reporting tree look at.
+     */
+    public static Employee createTestEmployee(String employeeId, String... directReportIds) {
+        Employee testEmployee = new Employee();
+        testEmployee.setEmployeeId(employeeId);
+
+        testEmployee.setDirectReports(new ArrayList<>(List.of(directReportIds)));
+
+        return testEmployee;
+    }
+
+    /**
+     * An employee with every field filled in, as stored ones are, and direct reports only when it has any.
+     */
+    public static Employee createFullTestEmployee(String employeeId, String... directReportIds) {
+        Employee testEmployee = new Employee();
+        testEmployee.setEmployeeId(employeeId);
+        testEmployee.setFirstName("First " + employeeId);
+        testEmployee.setLastName("Last " + employeeId);
+        testEmployee.setPosition("Developer");
+        testEmployee.setDepartment("Engineering");
+
+        if (directReportIds.length > 0) {
+            testEmployee.setDirectReports(new ArrayList<>(List.of(directReportIds)));
+        }
+        return testEmployee;
+    }
+
+    /**
+     * An employee with only an ID and a department, all the payroll view looks at.
+     */
+    public static Employee createTestEmployeeInDepartment(String employeeId, String department) {
+        Employee testEmployee = new Employee();
+        testEmployee.setEmployeeId(employeeId);
+        testEmployee.setDepartment(department);
+        return testEmployee;
+    }
+}
@@ -0,0 +1,393 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.DepartmentHeadcount;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.Money;
+import com.mindex.challenge.data.PayrollSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mindex.challenge.data.TestEmployees.createTestEmployeeInDepartment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChangeEventLogTest {
+
+    private List<ChangeEvent> applied;
+    private PayrollView payrollView;
+    private ChangeEventLog changeEventLog;
+
+    @Before
+    public void setup() {
+        applied = new ArrayList<>();
+        payrollView = new PayrollView();
+        changeEventLog = new ChangeEventLog(List.of(new RecordingListener(applied), payrollView), 3);
+    }
+
+    @Test
+    public void testEventsAreNumberedAndAppliedInOrder() {
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("john", "Engineering"));
+        changeEventLog.compensationSubmitted(createTestCompensation("john", 1000, LocalDate.now()));
+        changeEventLog.employeeUpdated(createTestEmployeeInDepartment("john", "Sales"));
+
+        List<ChangeEvent> events = changeEventLog.since(null, null);
+        assertEquals(applied, events);
+        assertEquals(List.of(1L, 2L, 3L), sequences(events));
+        assertEquals(ChangeEvent.Type.EMPLOYEE_CREATED, events.get(0).getType());
+        assertEquals(ChangeEvent.Type.COMPENSATION_SUBMITTED, events.get(1).getType());
+        assertEquals(ChangeEvent.Type.EMPLOYEE_UPDATED, events.get(2).getType());
+
+        assertEquals(List.of(2L, 3L), sequences(changeEventLog.since(1L, null)));
+        assertEquals(List.of(2L), sequences(changeEventLog.since(1L, 1)));
+        assertTrue(changeEventLog.since(3L, null).isEmpty());
+    }
+
+    @Test
+    public void testOverwrittenEventsAreRejected() {
+        for (int i = 0; i < 5; i++) {
+            changeEventLog.employeeCreated(createTestEmployeeInDepartment("employee" + i, "Engineering"));
+        }
+
+        //the ring holds the last three, a caller that saw up to 2 can still continue
+        assertEquals(List.of(3L, 4L, 5L), sequences(changeEventLog.since(null, null)));
+        assertEquals(List.of(3L, 4L, 5L), sequences(changeEventLog.since(2L, null)));
+        assertInvalid(1L, null);
+        assertInvalid(6L, null);
+        assertInvalid(2L, 0);
+    }
+
+    @Test
+    public void testStaleEmployeeEventsAreDropped() {
+        Employee created = createTestEmployeeInDepartment("john", "Engineering");
+        created.setVersion(0L);
+        Employee moved = createTestEmployeeInDepartment("john", "Sales");
+        moved.setVersion(2L);
+        Employee promoted = createTestEmployeeInDepartment("john", "Marketing");
+        promoted.setVersion(1L);
+
+        changeEventLog.employeeCreated(created);
+        changeEventLog.employeeUpdated(moved);
+        //written before the move but logged after it, the views must keep the move
+        assertNull(changeEventLog.employeeUpdated(promoted));
+
+        assertEquals(List.of(1L, 2L), sequences(applied));
+        assertEquals(2L, changeEventLog.lastSequence());
+        assertEquals("Sales", payrollView.headcounts().get(0).getDepartment());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testVersionsAreOnlyKeptForTheRing() {
+        for (int i = 0; i < 10; i++) {
+            Employee employee = createTestEmployeeInDepartment("employee" + i, "Engineering");
+            employee.setVersion(0L);
+            changeEventLog.employeeCreated(employee);
+        }
+        Employee moved = createTestEmployeeInDepartment("employee9", "Sales");
+        moved.setVersion(1L);
+        changeEventLog.employeeUpdated(moved);
+
+        //employee9 has two events in the ring of three but is remembered once, at the version of the newer one
+        Map<String, Long> employeeVersions = (Map<String, Long>) ReflectionTestUtils.getField(changeEventLog, "employeeVersions");
+        assertEquals(Map.of("employee8", 0L, "employee9", 1L), employeeVersions);
+
+        Employee stale = createTestEmployeeInDepartment("employee9", "Marketing");
+        stale.setVersion(0L);
+        assertNull(changeEventLog.employeeUpdated(stale));
+    }
+
+    @Test
+    public void testFailingListenerIsReloaded() {
+        AtomicInteger reloads = new AtomicInteger();
+        ChangeEventListener failing = new RecordingListener(new ArrayList<>()) {
+            @Override
+            public void apply(ChangeEvent event) {
+                if (event.getSequence() == 1) {
+                    throw new ArithmeticException("integer overflow");
+                }
+            }
+
+            @Override
+            public void reload() {
+                reloads.incrementAndGet();
+            }
+        };
+        changeEventLog = new ChangeEventLog(List.of(failing, new RecordingListener(applied), payrollView), 3);
+
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("john", "Engineering"));
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("paul", "Engineering"));
+
+        //reloaded once, straight after the event it missed
+        assertEquals(1, reloads.get());
+        assertEquals(List.of(1L, 2L), sequences(applied));
+        assertEquals(2L, changeEventLog.lastSequence());
+        assertEquals(Integer.valueOf(2), payrollView.headcounts().get(0).getHeadcount());
+    }
+
+    @Test
+    public void testFailedReloadFailsTheWriteUntilOneSucceeds() {
+        AtomicInteger reloads = new AtomicInteger();
+        ChangeEventListener failing = new RecordingListener(new ArrayList<>()) {
+            @Override
+            public void apply(ChangeEvent event) {
+                throw new ArithmeticException("integer overflow");
+            }
+
+            @Override
+            public void reload() {
+                if (reloads.incrementAndGet() == 1) {
+                    throw new IllegalStateException("store unavailable");
+                }
+            }
+        };
+        changeEventLog = new ChangeEventLog(List.of(failing, new RecordingListener(applied)), 3);
+
+        try {
+            changeEventLog.employeeCreated(createTestEmployeeInDepartment("john", "Engineering"));
+            fail("Expected the write to fail while the view cannot be reloaded");
+        } catch (IllegalStateException e) {
+            assertEquals(0L, changeEventLog.lastSequence());
+        }
+
+        //the view is still stale, so it is reloaded rather than handed the next event
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("paul", "Engineering"));
+        assertEquals(2, reloads.get());
+        assertEquals(List.of(1L, 2L), sequences(applied));
+        assertEquals(2L, changeEventLog.lastSequence());
+    }
+
+    @Test
+    public void testViewsApplyOutsideTheLogLock() throws Exception {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ChangeEventListener slow = new RecordingListener(applied) {
+            @Override
+            public void apply(ChangeEvent event) {
+                applying.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.apply(event);
+            }
+        };
+        ChangeEventLog slowLog = new ChangeEventLog(List.of(slow), 3);
+
+        Thread writer = new Thread(() -> slowLog.employeeCreated(createTestEmployeeInDepartment("john", "Engineering")));
+        writer.start();
+        assertTrue(applying.await(30, TimeUnit.SECONDS));
+
+        //the event is logged and readable while the view is still applying it, only the view's own lock is held
+        assertEquals(List.of(1L), sequences(slowLog.since(null, null)));
+        assertEquals(0L, slowLog.lastSequence());
+
+        release.countDown();
+        writer.join(30_000);
+        assertEquals(1L, slowLog.lastSequence());
+        assertEquals(List.of(1L), sequences(applied));
+    }
+
+    @Test
+    public void testViewBehindTheRingIsReloaded() throws Exception {
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reloads = new AtomicInteger();
+        ChangeEventListener slow = new RecordingListener(applied) {
+            @Override
+            public void apply(ChangeEvent event) {
+                applying.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.apply(event);
+            }
+
+            @Override
+            public void reload() {
+                reloads.incrementAndGet();
+            }
+        };
+        ChangeEventLog slowLog = new ChangeEventLog(List.of(slow), 3);
+
+        //the first write holds the view while four more are logged, more than the ring keeps
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> written = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String employeeId = "employee" + i;
+                written.add(executor.submit(() -> slowLog.employeeCreated(createTestEmployeeInDepartment(employeeId, "Engineering"))));
+                if (i == 0) {
+                    assertTrue(applying.await(30, TimeUnit.SECONDS));
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!sequences(slowLog.since(null, null)).contains(5L)) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+
+            release.countDown();
+            for (Future<?> result : written) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //the first event was applied, the ones overwritten before the view got to them came back through the reload
+        assertEquals(List.of(1L), sequences(applied));
+        assertEquals(1, reloads.get());
+        assertEquals(5L, slowLog.lastSequence());
+    }
+
+    @Test
+    public void testConcurrentWritesReachEveryViewInOrder() throws Exception {
+        int writers = 8;
+        int writesPerWriter = 200;
+        List<ChangeEvent> first = Collections.synchronizedList(new ArrayList<>());
+        List<ChangeEvent> second = Collections.synchronizedList(new ArrayList<>());
+        ChangeEventLog concurrentLog = new ChangeEventLog(List.of(new RecordingListener(first), new RecordingListener(second)), writers * writesPerWriter);
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> written = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                int writer = i;
+                written.add(executor.submit(() -> {
+                    for (int j = 0; j < writesPerWriter; j++) {
+                        ChangeEvent event = concurrentLog.employeeCreated(createTestEmployeeInDepartment("employee" + writer + "-" + j, "Engineering"));
+                        //every view has the write by the time it returns
+                        assertTrue(concurrentLog.lastSequence() >= event.getSequence());
+                    }
+                }));
+            }
+            for (Future<?> result : written) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (long sequence = 1; sequence <= writers * writesPerWriter; sequence++) {
+            expected.add(sequence);
+        }
+        assertEquals(expected, sequences(first));
+        assertEquals(expected, sequences(second));
+        assertEquals(writers * writesPerWriter, concurrentLog.lastSequence());
+    }
+
+    @Test
+    public void testPayrollViewFollowsEvents() {
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("john", "Engineering"));
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("paul", "Engineering"));
+        changeEventLog.employeeCreated(createTestEmployeeInDepartment("ringo", null));
+        changeEventLog.compensationSubmitted(createTestCompensation("john", 1000, LocalDate.now().minusDays(1)));
+        changeEventLog.compensationSubmitted(createTestCompensation("paul", 3000, LocalDate.now()));
+        //older than the entry in effect and still to come, so neither counts
+        changeEventLog.compensationSubmitted(createTestCompensation("john", 500, LocalDate.now().minusYears(1)));
+        changeEventLog.compensationSubmitted(createTestCompensation("john", 9000, LocalDate.now().plusDays(1)));
+
+        List<PayrollSummary> departments = payrollView.departments();
+        assertEquals(1, departments.size());
+        assertEquals("Engineering", departments.get(0).getGroup());
+        assertEquals(Integer.valueOf(2), departments.get(0).getHeadcount());
+        assertEquals(Money.of(4000), departments.get(0).getTotal());
+        assertEquals(List.of(Money.of(1000), Money.of(3000)), payrollView.salaries(List.of("john", "paul", "ringo")));
+
+        //a move takes the salary in effect along to the new department
+        changeEventLog.employeeUpdated(createTestEmployeeInDepartment("paul", "Sales"));
+        departments = payrollView.departments();
+        assertEquals(2, departments.size());
+        assertEquals(Money.of(1000), departments.get(0).getTotal());
+        assertEquals("Sales", departments.get(1).getGroup());
+        assertEquals(Money.of(3000), departments.get(1).getTotal());
+
+        List<DepartmentHeadcount> headcounts = payrollView.headcounts();
+        assertEquals(3, headcounts.size());
+        assertNull(headcounts.get(0).getDepartment());
+        assertEquals(Integer.valueOf(1), headcounts.get(0).getHeadcount());
+        assertEquals("Engineering", headcounts.get(1).getDepartment());
+        assertEquals(Integer.valueOf(1), headcounts.get(1).getHeadcount());
+        assertEquals("Sales", headcounts.get(2).getDepartment());
+    }
+
+    @Test
+    public void testRebuildMatchesEvents() {
+        List<Employee> employees = List.of(createTestEmployeeInDepartment("john", "Engineering"), createTestEmployeeInDepartment("paul", "Engineering"));
+        List<Compensation> compensations = List.of(
+                createTestCompensation("john", 2000, LocalDate.now().minusDays(1)),
+                createTestCompensation("paul", 1000, LocalDate.now()),
+                createTestCompensation("paul", 5000, LocalDate.now().plusDays(1)));
+        payrollView.rebuild(employees, compensations);
+
+        PayrollSummary summary = payrollView.departments().get(0);
+        assertEquals(Integer.valueOf(2), summary.getHeadcount());
+        assertEquals(Money.of(3000), summary.getTotal());
+        assertEquals(Money.of(1000), summary.getMin());
+        assertEquals(Money.of(2000), summary.getMax());
+    }
+
+    private void assertInvalid(Long since, Integer limit) {
+        try {
+            changeEventLog.since(since, limit);
+        } catch (RuntimeException e) {
+            return;
+        }
+        throw new AssertionError("Expected since " + since + " with limit " + limit + " to be rejected");
+    }
+
+    private static class RecordingListener implements ChangeEventListener {
+        private final List<ChangeEvent> applied;
+
+        RecordingListener(List<ChangeEvent> applied) {
+            this.applied = applied;
+        }
+
+        @Override
+        public void apply(ChangeEvent event) {
+            applied.add(event);
+        }
+
+        @Override
+        public void reload() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static List<Long> sequences(List<ChangeEvent> events) {
+        List<Long> sequences = new ArrayList<>();
+        for (ChangeEvent event : events) {
+            sequences.add(event.getSequence());
+        }
+        return sequences;
+    }
+
+    private static Compensation createTestCompensation(String employeeId, long salary, LocalDate effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setEmployeeCompensationId(employeeId);
+        compensation.setSalary(Money.of(salary));
+        compensation.setEffectiveDate(effectiveDate);
+        return compensation;
+    }
+}
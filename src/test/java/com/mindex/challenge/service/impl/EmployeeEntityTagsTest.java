@@ -0,0 +1,146 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.Employee;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeEntityTagsTest {
+
+    private String employeeUrl;
+    private String employeeIdUrl;
+    private String employeeBatchUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        employeeUrl = "http://localhost:" + port + "/employee";
+        employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
+        employeeBatchUrl = "http://localhost:" + port + "/employees:batch";
+    }
+
+    @Test
+    public void testReadsRevalidateWithEntityTags() throws Exception {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Polled");
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+        URI uri = URI.create("http://localhost:" + port + "/employee/" + createdEmployee.getEmployeeId());
+
+        HttpResponse<byte[]> first = send(uri, null, null);
+        String eTag = first.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertEquals(200, first.statusCode());
+        assertEquals("no-cache", first.headers().firstValue(HttpHeaders.CACHE_CONTROL).orElse(null));
+
+        //the client's copy is current, so it gets the tag back and no body
+        HttpResponse<byte[]> unchanged = send(uri, null, eTag);
+        assertEquals(304, unchanged.statusCode());
+        assertEquals(0, unchanged.body().length);
+        assertEquals(eTag, unchanged.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+
+        createdEmployee.setPosition("Polled again");
+        restTemplate.put(employeeIdUrl, createdEmployee, createdEmployee.getEmployeeId());
+        HttpResponse<byte[]> changed = send(uri, null, eTag);
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(eTag, changed.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+
+        //a batch insert gives its employees the same first version as a single one, so they are tagged the same way
+        BatchResult created = restTemplate.postForEntity(employeeBatchUrl, List.of(new Employee()), BatchResult.class).getBody();
+        String batchId = created.getResults().get(0).getEmployeeId();
+        assertEquals(Long.valueOf(0), restTemplate.getForEntity(employeeIdUrl, Employee.class, batchId).getBody().getVersion());
+        URI batchUri = URI.create("http://localhost:" + port + "/employee/" + batchId);
+        String batchTag = send(batchUri, null, null).headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertTrue(batchTag, batchTag.endsWith("-0\""));
+        assertEquals(304, send(batchUri, null, batchTag).statusCode());
+    }
+
+    @Test
+    public void testLargeReportsAreGzippedAndRevalidated() throws Exception {
+        List<Employee> reports = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Employee report = new Employee();
+            report.setFirstName("Report " + i);
+            report.setDepartment("Engineering");
+            reports.add(report);
+        }
+        BatchResult created = restTemplate.postForEntity(employeeBatchUrl, reports, BatchResult.class).getBody();
+        Employee manager = new Employee();
+        manager.setFirstName("Manager");
+        manager.setDirectReports(new ArrayList<>());
+        created.getResults().forEach(result -> manager.getDirectReports().add(result.getEmployeeId()));
+        String managerId = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody().getEmployeeId();
+        URI uri = URI.create("http://localhost:" + port + "/reporting/" + managerId);
+
+        HttpResponse<byte[]> plain = send(uri, null, null);
+        String eTag = plain.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertTrue(plain.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+
+        //the same tree, gzipped and told apart by its tag
+        HttpResponse<byte[]> gzipped = send(uri, "gzip", null);
+        String gzipTag = gzipped.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertEquals(eTag.substring(0, eTag.length() - 1) + "-gzip\"", gzipTag);
+        assertTrue(gzipped.headers().allValues(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        assertTrue(gzipped.body().length * 2 < plain.body().length);
+        try (GZIPInputStream gunzipped = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            assertArrayEquals(plain.body(), gunzipped.readAllBytes());
+        }
+
+        assertEquals(304, send(uri, null, eTag).statusCode());
+        HttpResponse<byte[]> unchanged = send(uri, "gzip", gzipTag);
+        assertEquals(304, unchanged.statusCode());
+        assertEquals(gzipTag, unchanged.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+
+        //too small to be worth compressing
+        HttpResponse<byte[]> countOnly = send(URI.create(uri + "?countOnly=true"), "gzip", null);
+        assertTrue(countOnly.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+        assertArrayEquals(send(URI.create(uri + "?countOnly=true"), null, null).body(), countOnly.body());
+
+        //a write outside the tree leaves its tag as it is, one to anyone in it moves the tag on
+        restTemplate.postForEntity(employeeUrl, new Employee(), Employee.class);
+        assertEquals(304, send(uri, "gzip", gzipTag).statusCode());
+        Employee report = restTemplate.getForEntity(employeeIdUrl, Employee.class, created.getResults().get(99).getEmployeeId()).getBody();
+        report.setPosition("Moved on");
+        restTemplate.put(employeeIdUrl, report, report.getEmployeeId());
+        assertEquals(200, send(uri, "gzip", gzipTag).statusCode());
+    }
+
+    //a plain client, so the bytes and headers are the ones the server sent
+    private static HttpResponse<byte[]> send(URI uri, String acceptEncoding, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,93 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.Money;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeEventsTest {
+
+    private String employeeUrl;
+    private String employeeIdUrl;
+    private String eventsUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        employeeUrl = "http://localhost:" + port + "/employee";
+        employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
+        eventsUrl = "http://localhost:" + port + "/events?since={since}&limit={limit}";
+    }
+
+    @Test
+    public void testEventsFollowWritesInOrder() {
+        long since = lastEventSequence();
+
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Logged");
+        testEmployee.setDepartment("Engineering");
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+        restTemplate.postForEntity("http://localhost:" + port + "/submit-compensation/{id}", createTestCompensation(),
+                Compensation.class, createdEmployee.getEmployeeId());
+        createdEmployee.setDepartment("Sales");
+        restTemplate.put(employeeIdUrl, createdEmployee, createdEmployee.getEmployeeId());
+
+        ChangeEvent[] events = restTemplate.getForObject(eventsUrl, ChangeEvent[].class, since, 10);
+        assertEquals(3, events.length);
+        assertEquals(ChangeEvent.Type.EMPLOYEE_CREATED, events[0].getType());
+        assertEquals(createdEmployee.getEmployeeId(), events[0].getEmployee().getEmployeeId());
+        assertEquals(ChangeEvent.Type.COMPENSATION_SUBMITTED, events[1].getType());
+        assertEquals(createdEmployee.getEmployeeId(), events[1].getCompensation().getEmployeeCompensationId());
+        assertEquals(ChangeEvent.Type.EMPLOYEE_UPDATED, events[2].getType());
+        assertEquals("Sales", events[2].getEmployee().getDepartment());
+        for (int i = 0; i < events.length; i++) {
+            assertEquals(since + i + 1, events[i].getSequence());
+            assertNotNull(events[i].getTimestamp());
+        }
+
+        //a sequence the log has not reached yet cannot be continued from
+        ResponseEntity<String> invalid = restTemplate.getForEntity(eventsUrl, String.class, since + 100, 10);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    //pages through the log from the oldest event it holds, the other tests write to the same log
+    private long lastEventSequence() {
+        long since = 0;
+        ChangeEvent[] events = restTemplate.getForObject("http://localhost:" + port + "/events?limit={limit}", ChangeEvent[].class, 1000);
+        while (events.length > 0) {
+            since = events[events.length - 1].getSequence();
+            events = restTemplate.getForObject(eventsUrl, ChangeEvent[].class, since, 1000);
+        }
+        return since;
+    }
+
+    private static Compensation createTestCompensation() {
+        Compensation testCompensation = new Compensation();
+        testCompensation.setEmployeeCompensationId("12345");
+        testCompensation.setSalary(Money.parse("123456.3"));
+        testCompensation.setEffectiveDate(LocalDate.parse("2025-08-24"));
+        return testCompensation;
+    }
+}
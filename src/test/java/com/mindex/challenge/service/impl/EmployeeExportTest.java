@@ -0,0 +1,84 @@
+package com.mindex.challenge.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.Money;
+import com.mindex.challenge.service.EmployeeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeExportTest {
+
+    private String employeeExportUrl;
+    private String compensationExportUrl;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setup() {
+        employeeExportUrl = "http://localhost:" + port + "/employees/export";
+        compensationExportUrl = "http://localhost:" + port + "/compensation/export";
+    }
+
+    @Test
+    public void testExportAsNdjson() throws Exception {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Exported");
+        String createdId = employeeService.create(testEmployee).getEmployeeId();
+
+        Compensation testCompensation = createTestCompensation();
+        employeeService.submitCompensation(createdId, testCompensation);
+
+        ResponseEntity<String> employees = restTemplate.getForEntity(employeeExportUrl, String.class);
+        assertEquals(MediaType.APPLICATION_NDJSON, employees.getHeaders().getContentType());
+
+        //one employee per line, every line a complete JSON object
+        String[] employeeLines = employees.getBody().split("\n");
+        assertTrue(employeeLines.length > 1);
+        List<String> exportedIds = new ArrayList<>();
+        for (String line : employeeLines) {
+            exportedIds.add(objectMapper.readValue(line, Employee.class).getEmployeeId());
+        }
+        assertTrue(exportedIds.contains(createdId));
+
+        String compensation = restTemplate.getForObject(compensationExportUrl, String.class);
+        assertTrue(compensation.endsWith("\n"));
+        assertTrue(compensation.contains("\"employeeCompensationId\":\"" + createdId + "\""));
+    }
+
+    private static Compensation createTestCompensation() {
+        Compensation testCompensation = new Compensation();
+        testCompensation.setEmployeeCompensationId("12345");
+        testCompensation.setSalary(Money.parse("123456.3"));
+        testCompensation.setEffectiveDate(LocalDate.parse("2025-08-24"));
+        return testCompensation;
+    }
+}
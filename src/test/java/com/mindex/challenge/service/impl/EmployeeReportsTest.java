@@ -0,0 +1,365 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeView;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mindex.challenge.data.TestEmployees.createTestEmployee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+//metrics export is off in tests by default, the prometheus endpoint is checked here
+@AutoConfigureObservability(tracing = false)
+public class EmployeeReportsTest {
+
+    private String employeeReportingStructureUrl;
+
+    @Mock
+    private EmployeeStore mockEmployeeStore;
+    @Mock
+    private CompensationRepository mockCompensationRepository;
+    @Mock
+    private OrgGraphIndex mockOrgGraphIndex;
+    @Mock
+    private ChangeEventLog mockChangeEventLog;
+
+    @InjectMocks
+    private EmployeeService testEmployeeService = new EmployeeServiceImpl();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        employeeReportingStructureUrl = "http://localhost:" + port + "/reporting/{id}";
+
+        mockEmployeeStore = Mockito.mock(EmployeeStore.class);
+        mockCompensationRepository = Mockito.mock(CompensationRepository.class);
+        mockOrgGraphIndex = Mockito.mock(OrgGraphIndex.class);
+        mockChangeEventLog = Mockito.mock(ChangeEventLog.class);
+
+        MockitoAnnotations.openMocks(this);
+
+        //a real cache in front of the mocked repositories, so each test still sees what its mocks return
+        ReflectionTestUtils.setField(testEmployeeService, "employeeCache",
+                new EmployeeCache(mockEmployeeStore, mockCompensationRepository, 100, Duration.ofMinutes(1)));
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void testReportsWithDepthFieldsAndCountOnly() {
+        //John Lennon from the seed data, Ringo is his second direct report and has three of his own
+        String johnId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+        ReportingStructure countOnly = restTemplate.getForEntity(employeeReportingStructureUrl + "?countOnly=true", ReportingStructure.class, johnId).getBody();
+        assertEquals(Integer.valueOf(6), countOnly.getNumberOfReports());
+        assertEquals(null, countOnly.getEmployee());
+
+        ReportingStructure projected = restTemplate.getForEntity(employeeReportingStructureUrl + "?depth=1&fields=firstName", ReportingStructure.class, johnId).getBody();
+        assertEquals(Integer.valueOf(6), projected.getNumberOfReports());
+        assertEquals("John", projected.getEmployee().getFirstName());
+        assertEquals(null, projected.getEmployee().getLastName());
+
+        EmployeeView ringo = projected.getEmployee().getDirectReports().get(1);
+        assertEquals("Ringo", ringo.getFirstName());
+        assertEquals(null, ringo.getPosition());
+        //the level below the requested depth is left as the stored ID stubs
+        assertEquals(3, ringo.getDirectReports().size());
+        assertEquals(null, ringo.getDirectReports().get(0).getFirstName());
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(employeeReportingStructureUrl + "?fields=salary", String.class, johnId).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity(employeeReportingStructureUrl + "?depth=-1", String.class, johnId).getStatusCode());
+    }
+
+    @Test
+    public void testReportsPublishesMetrics() {
+        String johnId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+        restTemplate.getForEntity(employeeReportingStructureUrl, ReportingStructure.class, johnId);
+
+        String scrape = restTemplate.getForObject("http://localhost:" + port + "/actuator/prometheus", String.class);
+
+        assertTrue(scrape.contains("employee_service_seconds_count{class=\"com.mindex.challenge.service.impl.EmployeeServiceImpl\",exception=\"none\",method=\"reports\""));
+        assertTrue(scrape.contains("method=\"findByEmployeeId\",repository=\"EmployeeRepository\",state=\"SUCCESS\""));
+        assertTrue(scrape.contains("employee_reports_queries_count"));
+        assertTrue(scrape.contains("employee_reports_tree_depth_levels_max"));
+        assertTrue(scrape.contains("mongodb_driver_commands_seconds_count"));
+    }
+
+    @Test
+    public void testReportsFetchesOneLevelPerQueryAndSkipsCyclesAndDuplicates() {
+        //root reports to itself and lists the same direct report twice, the direct report lists root again as its own report
+        Employee root = createTestEmployee("root", "report", "report", "root");
+        Employee report = createTestEmployee("report", "root", "leaf");
+        Employee leaf = createTestEmployee("leaf");
+
+        Mockito.when(mockEmployeeStore.findByEmployeeId("root")).thenReturn(root);
+        //not indexed, so the tree is resolved level by level
+        Mockito.when(mockOrgGraphIndex.numberOfReports(any())).thenReturn(null);
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(any())).thenAnswer(invocation -> {
+            List<Employee> fetched = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                fetched.add("report".equals(id) ? report : leaf);
+            }
+            return fetched;
+        });
+
+        ReportingStructure test = testEmployeeService.reports("root");
+
+        assertEquals(Integer.valueOf(2), test.getNumberOfReports());
+        assertEquals("leaf", test.getEmployee().getDirectReports().get(0).getDirectReports().get(1).getEmployeeId());
+        Mockito.verify(mockEmployeeStore, Mockito.times(2)).findByEmployeeIdIn(any());
+        Mockito.verify(mockEmployeeStore, Mockito.never()).findByEmployeeId("report");
+    }
+
+    @Test
+    public void testReportsUsesOrgGraphIndex() {
+        Employee root = createTestEmployee("root", "report");
+        Employee report = createTestEmployee("report", "leaf");
+        Employee leaf = createTestEmployee("leaf");
+
+        Mockito.when(mockEmployeeStore.findByEmployeeId("root")).thenReturn(root);
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenReturn(2);
+        Mockito.when(mockOrgGraphIndex.reportIds("root", Integer.MAX_VALUE)).thenReturn(List.of("report", "leaf"));
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(any())).thenReturn(List.of(report, leaf));
+
+        ReportingStructure test = testEmployeeService.reports("root");
+
+        assertEquals(Integer.valueOf(2), test.getNumberOfReports());
+        assertEquals("leaf", test.getEmployee().getDirectReports().get(0).getDirectReports().get(0).getEmployeeId());
+        Mockito.verify(mockEmployeeStore, Mockito.times(1)).findByEmployeeIdIn(any());
+
+        //the tree is built beside the fetched employees, which may be cached and still only hold the report IDs
+        assertEquals(List.of("report"), root.getDirectReports());
+        assertEquals(List.of("leaf"), report.getDirectReports());
+    }
+
+    @Test
+    public void testReportsFallbackStopsTreeAtDepthButCountsEveryLevel() {
+        Employee root = createTestEmployee("root", "report");
+        Employee report = createTestEmployee("report", "leaf");
+        Employee leaf = createTestEmployee("leaf");
+
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(Mockito.eq(List.of("root")), any())).thenReturn(List.of(root));
+        Mockito.when(mockOrgGraphIndex.numberOfReports(any())).thenReturn(null);
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(Mockito.eq(Set.of("report")), any())).thenReturn(List.of(report));
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(Mockito.eq(Set.of("leaf")), any())).thenReturn(List.of(leaf));
+
+        ReportingStructure test = testEmployeeService.reports("root", 1, Set.of("firstName"), false);
+
+        assertEquals(Integer.valueOf(2), test.getNumberOfReports());
+        EmployeeView placed = test.getEmployee().getDirectReports().get(0);
+        assertEquals("report", placed.getEmployeeId());
+        assertEquals("leaf", placed.getDirectReports().get(0).getEmployeeId());
+        assertNull(placed.getDirectReports().get(0).getDirectReports());
+        Mockito.verify(mockEmployeeStore, Mockito.never()).findByEmployeeIdIn(any());
+    }
+
+    @Test
+    public void testReportsCountOnlyAnsweredFromIndex() {
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenReturn(2);
+
+        ReportingStructure test = testEmployeeService.reports("root", null, null, true);
+
+        assertEquals(Integer.valueOf(2), test.getNumberOfReports());
+        assertEquals(null, test.getEmployee());
+        Mockito.verifyNoInteractions(mockEmployeeStore);
+    }
+
+    @Test
+    public void testConcurrentReportsShareOneFetch() throws Exception {
+        Employee root = createTestEmployee("root", "report");
+        Employee report = createTestEmployee("report");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(registry));
+
+        AtomicInteger queries = new AtomicInteger();
+        AtomicReference<CountDownLatch> release = new AtomicReference<>(new CountDownLatch(0));
+        Mockito.when(mockEmployeeStore.findByEmployeeId("root")).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            release.get().await();
+            return root;
+        });
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenReturn(1);
+        Mockito.when(mockOrgGraphIndex.reportIds("root", Integer.MAX_VALUE)).thenReturn(List.of("report"));
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(any())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return List.of(report);
+        });
+
+        //however many callers ask for the same tree at once, the store sees the two queries of one request
+        for (int callers : new int[]{1, 10, 100, 1000}) {
+            release.set(new CountDownLatch(1));
+            queries.set(0);
+            double coalesced = registry.counter("employee.reports.coalesced").count();
+
+            ExecutorService executor = Executors.newFixedThreadPool(callers);
+            List<Future<ReportingStructure>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> testEmployeeService.reports("root")));
+            }
+
+            //held until every other caller has joined the one in flight
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (registry.counter("employee.reports.coalesced").count() - coalesced < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.get().countDown();
+
+            ReportingStructure first = futures.get(0).get(60, TimeUnit.SECONDS);
+            for (Future<ReportingStructure> future : futures) {
+                assertSame(first, future.get(60, TimeUnit.SECONDS));
+            }
+            executor.shutdown();
+
+            assertEquals(Integer.valueOf(1), first.getNumberOfReports());
+            assertEquals(2, queries.get());
+            assertEquals(callers - 1, registry.counter("employee.reports.coalesced").count() - coalesced, 0);
+        }
+
+        //nothing is kept once the flight is done, the next request reads again
+        testEmployeeService.reports("root");
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    public void testReportsAfterWriteDoNotJoinEarlierRead() throws Exception {
+        Employee before = createTestEmployee("root");
+        before.setFirstName("Before");
+        Employee after = createTestEmployee("root");
+        after.setFirstName("After");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(registry));
+
+        AtomicLong lastSequence = new AtomicLong(5);
+        Mockito.when(mockChangeEventLog.lastSequence()).thenAnswer(invocation -> lastSequence.get());
+        Mockito.when(mockChangeEventLog.employeeUpdated(any())).thenAnswer(invocation -> {
+            lastSequence.incrementAndGet();
+            return null;
+        });
+
+        //the first read takes the employee as it was before the write, then is held open across it
+        AtomicReference<Employee> stored = new AtomicReference<>(before);
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(mockEmployeeStore.findByEmployeeId("root")).thenAnswer(invocation -> {
+            Employee read = stored.get();
+            if (queries.incrementAndGet() == 1) {
+                started.countDown();
+                release.await();
+            }
+            return read;
+        });
+        Mockito.when(mockEmployeeStore.upsert(any())).thenAnswer(invocation -> {
+            stored.set(after);
+            return after;
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<ReportingStructure> earlier = executor.submit(() -> testEmployeeService.reports("root"));
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+
+        testEmployeeService.update(after);
+
+        //the write moved the version on, so it must read the tree again rather than join the read from before it
+        ReportingStructure later = testEmployeeService.reports("root", null, null, false, testEmployeeService.reportsVersion("root"));
+        assertEquals("After", later.getEmployee().getFirstName());
+
+        release.countDown();
+        assertEquals("Before", earlier.get(60, TimeUnit.SECONDS).getEmployee().getFirstName());
+        executor.shutdown();
+
+        assertEquals(2, queries.get());
+        assertEquals(0, registry.counter("employee.reports.coalesced").count(), 0);
+    }
+
+    @Test
+    public void testReportsDuringWritesOutsideTheTreeShareOneFetch() throws Exception {
+        Employee root = createTestEmployee("root");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(registry));
+
+        AtomicLong lastSequence = new AtomicLong(5);
+        Mockito.when(mockChangeEventLog.lastSequence()).thenAnswer(invocation -> lastSequence.get());
+        Mockito.when(mockChangeEventLog.employeeUpdated(any())).thenAnswer(invocation -> {
+            lastSequence.incrementAndGet();
+            return null;
+        });
+        Mockito.when(mockOrgGraphIndex.subtreeVersion("root")).thenReturn("0.5");
+        Mockito.when(mockEmployeeStore.upsert(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(mockEmployeeStore.findByEmployeeId("root")).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            started.countDown();
+            release.await();
+            return root;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<ReportingStructure> earlier = executor.submit(() -> testEmployeeService.reports("root"));
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+
+        //a write to someone outside the tree leaves its version alone, so the next request still joins
+        testEmployeeService.update(createTestEmployee("other"));
+        Future<ReportingStructure> later = executor.submit(() -> testEmployeeService.reports("root"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (registry.counter("employee.reports.coalesced").count() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertSame(earlier.get(60, TimeUnit.SECONDS), later.get(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(6, lastSequence.get());
+        assertEquals(1, queries.get());
+        assertEquals(1, registry.counter("employee.reports.coalesced").count(), 0);
+    }
+}
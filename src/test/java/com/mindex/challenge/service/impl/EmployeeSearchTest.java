@@ -0,0 +1,74 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeSearchTest {
+
+    private String employeeBatchUrl;
+    private String employeeSearchUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        employeeBatchUrl = "http://localhost:" + port + "/employees:batch";
+        employeeSearchUrl = "http://localhost:" + port + "/employees?department={department}&q={q}&after={after}&limit={limit}";
+    }
+
+    @Test
+    public void testSearchPagesThroughDirectory() {
+        List<Employee> employees = new ArrayList<>();
+        for (String lastName : List.of("Starr", "Lennon", "Best", "McCartney", "Harrison")) {
+            Employee employee = new Employee();
+            employee.setLastName(lastName);
+            employee.setDepartment("Directory");
+            employees.add(employee);
+        }
+        restTemplate.postForEntity(employeeBatchUrl, employees, BatchResult.class);
+
+        //every page picks up after the last employee of the one before, until there is no next cursor
+        List<String> lastNames = new ArrayList<>();
+        String after = "";
+        int pages = 0;
+        do {
+            EmployeePage page = restTemplate.getForObject(employeeSearchUrl, EmployeePage.class, "Directory", "", after, 2);
+            page.getEmployees().forEach(employee -> lastNames.add(employee.getLastName()));
+            after = page.getNext();
+            pages++;
+        } while (after != null);
+
+        assertEquals(List.of("Best", "Harrison", "Lennon", "McCartney", "Starr"), lastNames);
+        assertEquals(3, pages);
+
+        EmployeePage prefixed = restTemplate.getForObject(employeeSearchUrl, EmployeePage.class, "Directory", "L", "", 10);
+        assertEquals(1, prefixed.getEmployees().size());
+        assertEquals("Lennon", prefixed.getEmployees().get(0).getLastName());
+        assertEquals(null, prefixed.getNext());
+
+        ResponseEntity<String> invalid = restTemplate.getForEntity(employeeSearchUrl, String.class, "Directory", "", "not a cursor", 2);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+}
@@ -1,11 +1,17 @@
 package com.mindex.challenge.service.impl;
 
+import com.mindex.challenge.config.MongoIndexes;
 import com.mindex.challenge.dao.CompensationRepository;
-import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeStore;
+import com.mindex.challenge.data.BatchResult;
 import com.mindex.challenge.data.Compensation;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.Money;
 import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.EmployeeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -17,19 +23,33 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.mindex.challenge.data.TestEmployees.createTestEmployee;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
 @RunWith(SpringRunner.class)
@@ -39,11 +59,17 @@ public class EmployeeServiceImplTest {
     private String employeeUrl;
     private String employeeIdUrl;
     private String employeeReportingStructureUrl;
+    private String employeeBatchUrl;
+    private String compensationBatchUrl;
 
     @Mock
-    private EmployeeRepository mockEmployeeRepository;
+    private EmployeeStore mockEmployeeStore;
     @Mock
     private CompensationRepository mockCompensationRepository;
+    @Mock
+    private OrgGraphIndex mockOrgGraphIndex;
+    @Mock
+    private ChangeEventLog mockChangeEventLog;
 
     //didn't remove existing test service
     @Autowired
@@ -59,17 +85,32 @@ public class EmployeeServiceImplTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexes mongoIndexes;
+
     @Before
     public void setup() {
         employeeUrl = "http://localhost:" + port + "/employee";
         employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
         employeeReportingStructureUrl = "http://localhost:" + port + "/reporting/{id}";
+        employeeBatchUrl = "http://localhost:" + port + "/employees:batch";
+        compensationBatchUrl = "http://localhost:" + port + "/compensation:batch";
 
         //utilizing mockito for compensation implementation
-        mockEmployeeRepository = Mockito.mock(EmployeeRepository.class);
+        mockEmployeeStore = Mockito.mock(EmployeeStore.class);
         mockCompensationRepository = Mockito.mock(CompensationRepository.class);
+        mockOrgGraphIndex = Mockito.mock(OrgGraphIndex.class);
+        mockChangeEventLog = Mockito.mock(ChangeEventLog.class);
 
         MockitoAnnotations.openMocks(this);
+
+        //a real cache in front of the mocked repositories, so each test still sees what its mocks return
+        ReflectionTestUtils.setField(testEmployeeService, "employeeCache",
+                new EmployeeCache(mockEmployeeStore, mockCompensationRepository, 100, Duration.ofMinutes(1)));
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(new SimpleMeterRegistry()));
     }
 
     @Test
@@ -109,6 +150,59 @@ public class EmployeeServiceImplTest {
         assertEmployeeEquivalence(readEmployee, updatedEmployee);
     }
 
+    @Test
+    public void testCreateBatchAndSubmitCompensationBatch() {
+        Employee testEmployee1 = new Employee();
+        testEmployee1.setFirstName("Jane");
+        Employee testEmployee2 = new Employee();
+        testEmployee2.setFirstName("Jim");
+
+        BatchResult createdEmployees = restTemplate.postForEntity(employeeBatchUrl, List.of(testEmployee1, testEmployee2), BatchResult.class).getBody();
+
+        assertNotNull(createdEmployees);
+        assertEquals(Integer.valueOf(2), createdEmployees.getSucceeded());
+        String createdId = createdEmployees.getResults().get(0).getEmployeeId();
+        assertEquals("Jane", restTemplate.getForEntity(employeeIdUrl, Employee.class, createdId).getBody().getFirstName());
+
+        //second compensation targets an employee that does not exist
+        Map<String, String> validCompensation = Map.of("employeeCompensationId", createdId, "salary", "123456.3", "effectiveDate", "2025-08-24");
+        Map<String, String> invalidCompensation = Map.of("employeeCompensationId", "does-not-exist", "salary", "1", "effectiveDate", "2025-08-24");
+
+        BatchResult submittedCompensation = restTemplate.postForEntity(compensationBatchUrl, List.of(validCompensation, invalidCompensation), BatchResult.class).getBody();
+
+        assertNotNull(submittedCompensation);
+        assertEquals(Integer.valueOf(1), submittedCompensation.getSucceeded());
+        assertEquals(Integer.valueOf(1), submittedCompensation.getFailed());
+        assertEquals(true, submittedCompensation.getResults().get(0).getSuccess());
+        assertEquals("Invalid employeeId: does-not-exist", submittedCompensation.getResults().get(1).getError());
+        assertEquals(LocalDate.parse("2025-08-24"), employeeService.readCompensation(createdId).getEffectiveDate());
+    }
+
+    @Test
+    public void testCompensationHistoryAndAsOf() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("History");
+        String id = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody().getEmployeeId();
+
+        //submitted out of order, the effective date decides which entry is in effect, not the order of the writes
+        String submitUrl = "http://localhost:" + port + "/submit-compensation/{id}";
+        restTemplate.postForEntity(submitUrl, Map.of("salary", "110000", "effectiveDate", "2025-01-01"), Compensation.class, id);
+        restTemplate.postForEntity(submitUrl, Map.of("salary", "100000", "effectiveDate", "2024-01-01"), Compensation.class, id);
+        restTemplate.postForEntity(submitUrl, Map.of("salary", "999999", "effectiveDate", "2099-01-01"), Compensation.class, id);
+
+        String compensationUrl = "http://localhost:" + port + "/compensation/{id}";
+        assertEquals("$110,000.00", restTemplate.getForEntity(compensationUrl, Compensation.class, id).getBody().getSalary().format());
+        assertEquals("$100,000.00", restTemplate.getForEntity(compensationUrl + "?asOf=2024-12-31", Compensation.class, id).getBody().getSalary().format());
+        assertEquals("$999,999.00", restTemplate.getForEntity(compensationUrl + "?asOf=2099-01-01", Compensation.class, id).getBody().getSalary().format());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, restTemplate.getForEntity(compensationUrl + "?asOf=2023-12-31", String.class, id).getStatusCode());
+
+        Compensation[] history = restTemplate.getForEntity(compensationUrl + "/history", Compensation[].class, id).getBody();
+        assertEquals(3, history.length);
+        assertEquals(LocalDate.parse("2099-01-01"), history[0].getEffectiveDate());
+        assertEquals(LocalDate.parse("2025-01-01"), history[1].getEffectiveDate());
+        assertEquals(LocalDate.parse("2024-01-01"), history[2].getEffectiveDate());
+    }
+
     @Test(expected = RuntimeException.class)
     public void testReadEmployeeNotFound() {
         testEmployeeService.read("1");
@@ -121,13 +215,13 @@ public class EmployeeServiceImplTest {
         Employee testEmployee1 = new Employee();
 
         Employee testEmployee2 = new Employee();
-        List<Employee> testEmployee2List = new ArrayList<>();
-        testEmployee2List.add(restTemplate.postForEntity(employeeUrl, testEmployee1, Employee.class).getBody());
+        List<String> testEmployee2List = new ArrayList<>();
+        testEmployee2List.add(restTemplate.postForEntity(employeeUrl, testEmployee1, Employee.class).getBody().getEmployeeId());
         testEmployee2.setDirectReports(testEmployee2List);
 
         Employee testEmployee3 = new Employee();
-        List<Employee> testEmployee3List = new ArrayList<>();
-        testEmployee3List.add(restTemplate.postForEntity(employeeUrl, testEmployee2, Employee.class).getBody());
+        List<String> testEmployee3List = new ArrayList<>();
+        testEmployee3List.add(restTemplate.postForEntity(employeeUrl, testEmployee2, Employee.class).getBody().getEmployeeId());
         testEmployee3.setDirectReports(testEmployee3List);
 
         //grab test id when posting the parent employee to the db
@@ -141,11 +235,57 @@ public class EmployeeServiceImplTest {
         assertEquals("2", test.getNumberOfReports().toString());
     }
 
+    @Test
+    public void testDirectReportsAreStoredAsIds() {
+        //the seed data's stub objects are still accepted next to bare IDs
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String payload = "{\"firstName\":\"Stub\",\"directReports\":[{\"employeeId\":\"paul\"},\"ringo\"]}";
+        Employee created = restTemplate.postForEntity(employeeUrl, new HttpEntity<>(payload, headers), Employee.class).getBody();
+        assertEquals(List.of("paul", "ringo"), created.getDirectReports());
+
+        String read = restTemplate.getForObject(employeeIdUrl, String.class, created.getEmployeeId());
+        assertTrue(read.contains("\"directReports\":[\"paul\",\"ringo\"]"));
+    }
+
+    @Test
+    public void testLegacyReportStubsAreMigrated() {
+        //the layout a data directory from an older release restores
+        mongoTemplate.getCollection("employee").insertOne(new Document("employeeId", "legacy")
+                .append("directReports", List.of(new Document("employeeId", "paul"), new Document("employeeId", "ringo"))));
+
+        mongoIndexes.ensureIndexes();
+
+        assertEquals(List.of("paul", "ringo"), employeeService.read("legacy").getDirectReports());
+    }
+
     @Test(expected = RuntimeException.class)
     public void testReportsEmployeeNotFound() {
         testEmployeeService.reports("1");
     }
 
+    @Test
+    public void testManagers() {
+        Employee ringo = createTestEmployee("ringo", "pete");
+        Employee john = createTestEmployee("john", "ringo");
+
+        Mockito.when(mockOrgGraphIndex.managerIds("pete")).thenReturn(List.of("ringo", "john"));
+        Mockito.when(mockEmployeeStore.findByEmployeeIdIn(any())).thenReturn(List.of(john, ringo));
+
+        assertEquals(List.of(ringo, john), testEmployeeService.managers("pete"));
+
+        //the misses are read in one query and the second walk is served from the cache
+        assertEquals(List.of(ringo, john), testEmployeeService.managers("pete"));
+        Mockito.verify(mockEmployeeStore, Mockito.times(1)).findByEmployeeIdIn(any());
+        Mockito.verify(mockEmployeeStore, Mockito.never()).findByEmployeeId(any());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testManagersEmployeeNotFound() {
+        Mockito.when(mockOrgGraphIndex.managerIds("1")).thenReturn(null);
+        testEmployeeService.managers("1");
+    }
+
     @Test(expected = RuntimeException.class)
     public void testSubmitCompensationEmployeeNotFound() {
         Compensation testCompensation = createTestCompensation();
@@ -155,7 +295,7 @@ public class EmployeeServiceImplTest {
     @Test
     public void testSubmitCompensationCreateAndUpdate() {
         Compensation testCompensation = createTestCompensation();
-        Mockito.when(mockEmployeeRepository.findByEmployeeId(any())).thenReturn(new Employee());
+        Mockito.when(mockEmployeeStore.findByEmployeeId(any())).thenReturn(new Employee());
         Mockito.when(mockCompensationRepository.insert(any(Compensation.class))).thenReturn(createTestCompensation());
         Compensation testInserted = testEmployeeService.submitCompensation("12345", testCompensation);
 
@@ -163,35 +303,124 @@ public class EmployeeServiceImplTest {
         assertEquals("12345", testInserted.getEmployeeCompensationId());
         assertEquals(testCompensation.getEffectiveDate(), testInserted.getEffectiveDate());
         assertEquals(testCompensation.getSalary(), testInserted.getSalary());
-        Mockito.verify(mockCompensationRepository, Mockito.times(1)).insert(any(Compensation.class));
 
         Compensation updatedCompensation = createTestCompensation();
-        updatedCompensation.setSalary("987654321");
+        updatedCompensation.setSalary(Money.parse("987654321"));
         updatedCompensation.setEmployeeCompensationId("54321");
 
-        Mockito.when(mockCompensationRepository.findByEmployeeCompensationId(any(String.class))).thenReturn(updatedCompensation);
-        Mockito.when(mockCompensationRepository.save(any(Compensation.class))).thenReturn(updatedCompensation);
+        Mockito.when(mockCompensationRepository.insert(any(Compensation.class))).thenReturn(updatedCompensation);
         Compensation testUpdated = testEmployeeService.submitCompensation("54321", updatedCompensation);
 
         assertNotNull(testUpdated);
         assertNotEquals(testUpdated.getSalary(), testCompensation.getSalary());
-        Mockito.verify(mockCompensationRepository, Mockito.times(1)).deleteByEmployeeCompensationId(any(String.class));
-        Mockito.verify(mockCompensationRepository, Mockito.times(1)).save(any(Compensation.class));
+
+        //both writes are a single insert into the history, the old find, delete and save path is gone
+        Mockito.verify(mockCompensationRepository, Mockito.times(2)).insert(any(Compensation.class));
+        Mockito.verify(mockCompensationRepository, Mockito.never()).findAsOf(any(), any());
+        Mockito.verify(mockCompensationRepository, Mockito.never()).deleteByEmployeeCompensationId(any(String.class));
+        //each accepted write reaches the log, which keeps the payroll view up to date
+        Mockito.verify(mockChangeEventLog, Mockito.times(2)).compensationSubmitted(any(Compensation.class));
+    }
+
+    @Test
+    public void testConcurrentUpdatesNeverHideEmployeeFromReaders() throws Exception {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Concurrent");
+        String id = employeeService.create(testEmployee).getEmployeeId();
+
+        int threads = 16;
+        int iterations = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failedReads = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        //half the threads keep rewriting the employee while the other half keep reading it
+        for (int t = 0; t < threads; t++) {
+            boolean writer = t % 2 == 0;
+            int thread = t;
+
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    if (writer) {
+                        Employee update = new Employee();
+                        update.setEmployeeId(id);
+                        update.setFirstName("Concurrent");
+                        update.setPosition("Writer " + thread + " pass " + i);
+                        employeeService.update(update);
+                    } else {
+                        try {
+                            employeeService.read(id);
+                        } catch (RuntimeException e) {
+                            failedReads.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(0, failedReads.get());
+        assertEquals(Long.valueOf(threads / 2 * iterations), employeeService.read(id).getVersion());
+    }
+
+    @Test(expected = OptimisticLockingFailureException.class)
+    public void testUpdateWithStaleVersionRejected() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Versioned");
+        Employee created = employeeService.create(testEmployee);
+
+        Employee firstUpdate = employeeService.read(created.getEmployeeId());
+        firstUpdate.setPosition("First");
+        employeeService.update(firstUpdate);
+
+        //still carries the version read before the first update
+        Employee staleUpdate = employeeService.read(created.getEmployeeId());
+        staleUpdate.setVersion(created.getVersion());
+        staleUpdate.setPosition("Stale");
+        employeeService.update(staleUpdate);
     }
 
     @Test
     public void testReadCompensation() {
-        Mockito.when(mockEmployeeRepository.findByEmployeeId(any())).thenReturn(new Employee());
-        Mockito.when(mockCompensationRepository.findByEmployeeCompensationId(any())).thenReturn(createTestCompensation());
+        Mockito.when(mockEmployeeStore.findByEmployeeId(any())).thenReturn(new Employee());
+        Mockito.when(mockCompensationRepository.findAsOf(any(), any())).thenReturn(createTestCompensation());
 
         Compensation test = testEmployeeService.readCompensation("1");
 
         assertNotNull(test);
         assertEquals("12345", test.getEmployeeCompensationId());
-        assertEquals("$123,456.30", test.getSalary());
+        assertEquals("$123,456.30", test.getSalary().format());
         assertEquals(LocalDate.parse("2025-08-24"), test.getEffectiveDate());
     }
 
+    @Test
+    public void testReadCompensationCachedUntilSubmitted() {
+        Mockito.when(mockEmployeeStore.findByEmployeeId(any())).thenReturn(new Employee());
+        Mockito.when(mockCompensationRepository.findAsOf(any(), any())).thenReturn(createTestCompensation());
+        Mockito.when(mockCompensationRepository.insert(any(Compensation.class))).thenReturn(createTestCompensation());
+
+        testEmployeeService.readCompensation("1");
+        testEmployeeService.readCompensation("1");
+
+        Mockito.verify(mockEmployeeStore, Mockito.times(1)).findByEmployeeId("1");
+        Mockito.verify(mockCompensationRepository, Mockito.times(1)).findAsOf(any(), any());
+
+        //a write invalidates the cached compensation, the employee stays cached
+        testEmployeeService.submitCompensation("1", createTestCompensation());
+        testEmployeeService.readCompensation("1");
+
+        Mockito.verify(mockEmployeeStore, Mockito.times(1)).findByEmployeeId("1");
+        Mockito.verify(mockCompensationRepository, Mockito.times(2)).findAsOf(any(), any());
+    }
+
     @Test(expected = RuntimeException.class)
     public void testReadCompensationEmployeeNotFound() {
         testEmployeeService.readCompensation("1");
@@ -199,7 +428,7 @@ public class EmployeeServiceImplTest {
 
     @Test(expected = RuntimeException.class)
     public void testReadCompensationDataNotFound() {
-        Mockito.when(mockEmployeeRepository.findByEmployeeId(any())).thenReturn(new Employee());
+        Mockito.when(mockEmployeeStore.findByEmployeeId(any())).thenReturn(new Employee());
         testEmployeeService.readCompensation("1");
     }
 
@@ -213,7 +442,7 @@ public class EmployeeServiceImplTest {
     private static Compensation createTestCompensation() {
         Compensation testCompensation = new Compensation();
         testCompensation.setEmployeeCompensationId("12345");
-        testCompensation.setSalary("123456.3");
+        testCompensation.setSalary(Money.parse("123456.3"));
         testCompensation.setEffectiveDate(LocalDate.parse("2025-08-24"));
         return testCompensation;
     }
@@ -0,0 +1,152 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Employee;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.mindex.challenge.data.TestEmployees.createTestEmployee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class OrgGraphIndexTest {
+
+    private OrgGraphIndex orgGraphIndex;
+
+    @Before
+    public void setup() {
+        //John Lennon's structure from the README
+        orgGraphIndex = new OrgGraphIndex();
+        orgGraphIndex.rebuild(List.of(
+                createTestEmployee("john", "paul", "ringo"),
+                createTestEmployee("paul"),
+                createTestEmployee("ringo", "pete", "george"),
+                createTestEmployee("pete"),
+                createTestEmployee("george")));
+    }
+
+    @Test
+    public void testNumberOfReports() {
+        assertEquals(Integer.valueOf(4), orgGraphIndex.numberOfReports("john"));
+        assertEquals(Integer.valueOf(2), orgGraphIndex.numberOfReports("ringo"));
+        assertEquals(Integer.valueOf(0), orgGraphIndex.numberOfReports("paul"));
+        assertNull(orgGraphIndex.numberOfReports("unknown"));
+    }
+
+    @Test
+    public void testReportIds() {
+        assertEquals(List.of("paul", "ringo", "pete", "george"), orgGraphIndex.reportIds("john"));
+        assertEquals(List.of("paul", "ringo"), orgGraphIndex.reportIds("john", 1));
+        assertEquals(List.of(), orgGraphIndex.reportIds("john", 0));
+    }
+
+    @Test
+    public void testPutUpdatesAncestors() {
+        orgGraphIndex.put(createTestEmployee("paul", "stuart"));
+        orgGraphIndex.put(createTestEmployee("stuart"));
+
+        assertEquals(Integer.valueOf(5), orgGraphIndex.numberOfReports("john"));
+        assertEquals(Integer.valueOf(1), orgGraphIndex.numberOfReports("paul"));
+
+        orgGraphIndex.put(createTestEmployee("ringo"));
+
+        assertEquals(Integer.valueOf(3), orgGraphIndex.numberOfReports("john"));
+    }
+
+    @Test
+    public void testSharedReportsAndCyclesCountedOnce() {
+        //george now also reports to paul, and john is listed under pete
+        orgGraphIndex.put(createTestEmployee("paul", "george"));
+        orgGraphIndex.put(createTestEmployee("pete", "john"));
+
+        assertEquals(Integer.valueOf(4), orgGraphIndex.numberOfReports("john"));
+        assertEquals(Integer.valueOf(4), orgGraphIndex.numberOfReports("ringo"));
+        assertEquals(Integer.valueOf(1), orgGraphIndex.numberOfReports("paul"));
+    }
+
+    @Test
+    public void testSharedReportsCountedOnceAfterRebuildAndPut() {
+        //george reports to paul and ringo, and has a report of his own
+        orgGraphIndex.rebuild(List.of(
+                createTestEmployee("john", "paul", "ringo"),
+                createTestEmployee("paul", "george"),
+                createTestEmployee("ringo", "pete", "george"),
+                createTestEmployee("pete"),
+                createTestEmployee("george", "stuart"),
+                createTestEmployee("stuart")));
+
+        assertEquals(Integer.valueOf(5), orgGraphIndex.numberOfReports("john"));
+        assertEquals(Integer.valueOf(3), orgGraphIndex.numberOfReports("ringo"));
+        assertEquals(Integer.valueOf(2), orgGraphIndex.numberOfReports("paul"));
+
+        //pete was summed under ringo, once paul lists him too john must not count him twice
+        orgGraphIndex.put(createTestEmployee("paul", "george", "pete"));
+
+        assertEquals(Integer.valueOf(5), orgGraphIndex.numberOfReports("john"));
+        assertEquals(Integer.valueOf(3), orgGraphIndex.numberOfReports("paul"));
+
+        //and once he is only ringo's again the counts follow
+        orgGraphIndex.put(createTestEmployee("ringo", "george"));
+
+        assertEquals(Integer.valueOf(5), orgGraphIndex.numberOfReports("john"));
+        assertEquals(Integer.valueOf(2), orgGraphIndex.numberOfReports("ringo"));
+    }
+
+    @Test
+    public void testManagerIds() {
+        assertEquals(List.of("ringo", "john"), orgGraphIndex.managerIds("pete"));
+        assertEquals(List.of("john"), orgGraphIndex.managerIds("paul"));
+        assertEquals(List.of(), orgGraphIndex.managerIds("john"));
+        assertNull(orgGraphIndex.managerIds("unknown"));
+
+        //george now also reports to paul, and the chain follows both managers up to john once
+        orgGraphIndex.put(createTestEmployee("paul", "george"));
+        assertEquals(List.of("ringo", "paul", "john"), orgGraphIndex.managerIds("george"));
+
+        //a cycle back to pete stops at pete
+        orgGraphIndex.put(createTestEmployee("pete", "john"));
+        assertEquals(List.of("ringo", "john"), orgGraphIndex.managerIds("pete"));
+
+        orgGraphIndex.put(createTestEmployee("ringo", "george"));
+        assertEquals(List.of("pete"), orgGraphIndex.managerIds("john"));
+        assertEquals(List.of("john", "pete"), orgGraphIndex.managerIds("ringo"));
+    }
+
+    @Test
+    public void testSubtreeVersionOnlyMovesWithWritesInTheSubtree() {
+        String ringo = orgGraphIndex.subtreeVersion("ringo");
+        String john = orgGraphIndex.subtreeVersion("john");
+        assertNull(orgGraphIndex.subtreeVersion("unknown"));
+
+        //paul is outside ringo's tree
+        apply(1, createTestEmployee("paul", "stuart"));
+        assertEquals(ringo, orgGraphIndex.subtreeVersion("ringo"));
+        assertNotEquals(john, orgGraphIndex.subtreeVersion("john"));
+
+        //a report two levels down, and a new report that joins the tree once it is created
+        apply(2, createTestEmployee("pete", "stu"));
+        String moved = orgGraphIndex.subtreeVersion("ringo");
+        assertNotEquals(ringo, moved);
+        apply(3, createTestEmployee("stu"));
+        assertNotEquals(moved, orgGraphIndex.subtreeVersion("ringo"));
+
+        //george leaves the tree, which is a write to ringo
+        moved = orgGraphIndex.subtreeVersion("ringo");
+        apply(4, createTestEmployee("ringo", "pete"));
+        assertNotEquals(moved, orgGraphIndex.subtreeVersion("ringo"));
+
+        //a rebuild forgets the sequence numbers, so it starts a new set of versions
+        moved = orgGraphIndex.subtreeVersion("pete");
+        orgGraphIndex.rebuild(List.of(createTestEmployee("pete", "stu"), createTestEmployee("stu")));
+        assertNotEquals(moved, orgGraphIndex.subtreeVersion("pete"));
+    }
+
+    private void apply(long sequence, Employee employee) {
+        ChangeEvent event = new ChangeEvent(ChangeEvent.Type.EMPLOYEE_UPDATED, employee, null);
+        event.setSequence(sequence);
+        orgGraphIndex.apply(event);
+    }
+}
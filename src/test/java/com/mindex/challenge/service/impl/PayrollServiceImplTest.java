@@ -0,0 +1,187 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.DepartmentHeadcount;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.Money;
+import com.mindex.challenge.data.PayrollSummary;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.PayrollService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class PayrollServiceImplTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testDepartments() {
+        //a department of its own, so data from other tests cannot end up in it
+        String department = "Payroll-" + UUID.randomUUID();
+        for (int salary = 1; salary <= 10; salary++) {
+            Employee employee = createEmployee(department);
+            //only the entry in effect today counts, not the one it replaced or the raise still to come
+            submitCompensation(employee.getEmployeeId(), 1, "2024-01-01");
+            submitCompensation(employee.getEmployeeId(), salary * 1000);
+            submitCompensation(employee.getEmployeeId(), 1000000, "2099-01-01");
+        }
+        //no compensation yet, so not counted
+        createEmployee(department);
+
+        PayrollSummary[] summaries = restTemplate.getForObject("http://localhost:" + port + "/payroll/departments", PayrollSummary[].class);
+
+        PayrollSummary summary = null;
+        for (PayrollSummary candidate : summaries) {
+            if (department.equals(candidate.getGroup())) {
+                summary = candidate;
+            }
+        }
+
+        assertNotNull(summary);
+        assertEquals(Integer.valueOf(10), summary.getHeadcount());
+        assertEquals(Money.parse("55000"), summary.getTotal());
+        assertEquals(Money.parse("5500"), summary.getMean());
+        assertEquals(Money.parse("1000"), summary.getMin());
+        assertEquals(Money.parse("5000"), summary.getMedian());
+        assertEquals(Money.parse("9000"), summary.getP90());
+        assertEquals(Money.parse("10000"), summary.getP99());
+        assertEquals(Money.parse("10000"), summary.getMax());
+    }
+
+    @Test
+    public void testHeadcountsFollowMoves() {
+        String department = "Headcount-" + UUID.randomUUID();
+        String otherDepartment = "Headcount-" + UUID.randomUUID();
+        Employee moved = createEmployee(department);
+        createEmployee(department);
+        submitCompensation(moved.getEmployeeId(), 70000);
+
+        assertEquals(Integer.valueOf(2), headcount(department));
+        assertEquals(Money.parse("70000"), departmentSummary(department).getTotal());
+
+        //the employee and their salary leave the old department as soon as the update returns
+        moved.setDepartment(otherDepartment);
+        employeeService.update(moved);
+
+        assertEquals(Integer.valueOf(1), headcount(department));
+        assertEquals(Integer.valueOf(1), headcount(otherDepartment));
+        assertNull(departmentSummary(department));
+        assertEquals(Money.parse("70000"), departmentSummary(otherDepartment).getTotal());
+    }
+
+    @Test
+    public void testManagerSubtree() {
+        Employee leaf = createEmployee("Engineering");
+        Employee manager = createEmployee("Engineering", leaf);
+        Employee director = createEmployee("Engineering", manager);
+        Employee outsider = createEmployee("Engineering");
+
+        submitCompensation(leaf.getEmployeeId(), 50000, "2024-01-01");
+        submitCompensation(leaf.getEmployeeId(), 100000);
+        submitCompensation(leaf.getEmployeeId(), 999999, "2099-01-01");
+        submitCompensation(manager.getEmployeeId(), 150000);
+        submitCompensation(director.getEmployeeId(), 200000);
+        submitCompensation(outsider.getEmployeeId(), 999999);
+
+        List<PayrollSummary> managerSummaries = payrollService.managerSubtree(manager.getEmployeeId());
+        assertEquals(1, managerSummaries.size());
+        assertEquals(manager.getEmployeeId(), managerSummaries.get(0).getGroup());
+        assertEquals(Integer.valueOf(2), managerSummaries.get(0).getHeadcount());
+        assertEquals(Money.parse("250000"), managerSummaries.get(0).getTotal());
+
+        PayrollSummary directorSummary = payrollService.managerSubtree(director.getEmployeeId()).get(0);
+        assertEquals(Integer.valueOf(3), directorSummary.getHeadcount());
+        assertEquals(Money.parse("450000"), directorSummary.getTotal());
+        assertEquals(Money.parse("150000"), directorSummary.getMedian());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testManagerSubtreeEmployeeNotFound() {
+        payrollService.managerSubtree("does-not-exist");
+    }
+
+    @Test
+    public void testSummarizeUsesNearestRankAndRoundsMean() {
+        PayrollSummary summary = PayrollServiceImpl.summarize("group", "USD", 10, new long[]{1, 2, 3, 4, 0}, 4);
+
+        assertEquals(Integer.valueOf(4), summary.getHeadcount());
+        assertEquals(Money.of(2), summary.getMean());
+        assertEquals(Money.of(2), summary.getMedian());
+        assertEquals(Money.of(4), summary.getP90());
+        assertEquals(Money.of(4), summary.getMax());
+
+        PayrollSummary empty = PayrollServiceImpl.summarize("group", "USD", 0, new long[0], 0);
+        assertEquals(Integer.valueOf(0), empty.getHeadcount());
+        assertNull(empty.getMedian());
+    }
+
+    private Integer headcount(String department) {
+        DepartmentHeadcount[] headcounts = restTemplate.getForObject("http://localhost:" + port + "/payroll/headcount", DepartmentHeadcount[].class);
+        for (DepartmentHeadcount headcount : headcounts) {
+            if (department.equals(headcount.getDepartment())) {
+                return headcount.getHeadcount();
+            }
+        }
+        return null;
+    }
+
+    private PayrollSummary departmentSummary(String department) {
+        for (PayrollSummary summary : payrollService.departments()) {
+            if (department.equals(summary.getGroup())) {
+                return summary;
+            }
+        }
+        return null;
+    }
+
+    private Employee createEmployee(String department, Employee... directReports) {
+        Employee employee = new Employee();
+        employee.setFirstName("Payroll");
+        employee.setDepartment(department);
+        if (directReports.length > 0) {
+            List<String> reportIds = new ArrayList<>();
+            for (Employee directReport : directReports) {
+                reportIds.add(directReport.getEmployeeId());
+            }
+            employee.setDirectReports(reportIds);
+        }
+        return employeeService.create(employee);
+    }
+
+    private void submitCompensation(String employeeId, long dollars) {
+        submitCompensation(employeeId, dollars, "2025-01-01");
+    }
+
+    private void submitCompensation(String employeeId, long dollars, String effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setSalary(Money.of(dollars * 100));
+        compensation.setEffectiveDate(LocalDate.parse(effectiveDate));
+        employeeService.submitCompensation(employeeId, compensation);
+    }
+}
@@ -0,0 +1,494 @@
+package com.mindex.challenge.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.ReactiveCompensationRepository;
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mindex.challenge.data.BatchResult;
+import com.mindex.challenge.data.ChangeEvent;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+import static com.mindex.challenge.data.TestEmployees.createTestEmployee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.main.web-application-type=reactive")
+public class ReactiveEmployeeServiceImplTest {
+
+    //John Lennon in the seed data, with six employees below him
+    private static final String SEED_MANAGER_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+    @Mock
+    private ReactiveEmployeeRepository mockEmployeeRepository;
+    @Mock
+    private ReactiveCompensationRepository mockCompensationRepository;
+    @Mock
+    private OrgGraphIndex mockOrgGraphIndex;
+    @Mock
+    private EmployeeCache mockEmployeeCache;
+    @Mock
+    private ChangeEventLog mockChangeEventLog;
+
+    @InjectMocks
+    private ReactiveEmployeeService testEmployeeService = new ReactiveEmployeeServiceImpl();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LocalServerPort
+    private int port;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(testEmployeeService, "reportFetchConcurrency", 2);
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(new SimpleMeterRegistry()));
+
+        //not indexed unless a test says otherwise, so the tree is resolved level by level
+        Mockito.when(mockOrgGraphIndex.numberOfReports(any())).thenReturn(null);
+    }
+
+    @Test
+    public void testCreateReadUpdateThroughRoutes() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Jane");
+        testEmployee.setLastName("Doe");
+        testEmployee.setPosition("Developer");
+
+        Employee createdEmployee = webTestClient.post().uri("/employee").bodyValue(testEmployee)
+                .exchange().expectStatus().isOk().expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(createdEmployee.getEmployeeId());
+
+        Employee readEmployee = webTestClient.get().uri("/employee/{id}", createdEmployee.getEmployeeId())
+                .exchange().expectStatus().isOk().expectBody(Employee.class).returnResult().getResponseBody();
+        assertEquals("Jane", readEmployee.getFirstName());
+
+        readEmployee.setPosition("Development Manager");
+        Employee updatedEmployee = webTestClient.put().uri("/employee/{id}", readEmployee.getEmployeeId()).bodyValue(readEmployee)
+                .exchange().expectStatus().isOk().expectBody(Employee.class).returnResult().getResponseBody();
+        assertEquals("Development Manager", updatedEmployee.getPosition());
+
+        //the version the update was based on has moved on, so replaying it is a conflict
+        webTestClient.put().uri("/employee/{id}", readEmployee.getEmployeeId()).bodyValue(readEmployee)
+                .exchange().expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void testEventsThroughRoutes() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Logged");
+        Employee createdEmployee = webTestClient.post().uri("/employee").bodyValue(testEmployee)
+                .exchange().expectStatus().isOk().expectBody(Employee.class).returnResult().getResponseBody();
+
+        //the create is the last write, so it ends the log
+        ChangeEvent last = null;
+        List<ChangeEvent> events = webTestClient.get().uri("/events?limit=1000")
+                .exchange().expectStatus().isOk().expectBodyList(ChangeEvent.class).returnResult().getResponseBody();
+        while (!events.isEmpty()) {
+            last = events.get(events.size() - 1);
+            events = webTestClient.get().uri("/events?since={since}&limit=1000", last.getSequence())
+                    .exchange().expectStatus().isOk().expectBodyList(ChangeEvent.class).returnResult().getResponseBody();
+        }
+
+        assertNotNull(last);
+        assertEquals(ChangeEvent.Type.EMPLOYEE_CREATED, last.getType());
+        assertEquals(createdEmployee.getEmployeeId(), last.getEmployee().getEmployeeId());
+
+        webTestClient.get().uri("/events?since={since}", last.getSequence() + 1)
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testReportsThroughRoutes() {
+        ReportingStructure test = webTestClient.get().uri("/reporting/{id}", SEED_MANAGER_ID)
+                .exchange().expectStatus().isOk().expectBody(ReportingStructure.class).returnResult().getResponseBody();
+
+        assertEquals(Integer.valueOf(6), test.getNumberOfReports());
+        assertEquals("Paul", test.getEmployee().getDirectReports().get(0).getFirstName());
+    }
+
+    @Test
+    public void testReadsAndReportsRevalidateThroughRoutes() throws Exception {
+        List<Employee> reports = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Employee report = new Employee();
+            report.setFirstName("Report " + i);
+            reports.add(report);
+        }
+        BatchResult created = webTestClient.post().uri("/employees:batch").bodyValue(reports)
+                .exchange().expectStatus().isOk().expectBody(BatchResult.class).returnResult().getResponseBody();
+        Employee manager = new Employee();
+        manager.setDirectReports(new ArrayList<>());
+        created.getResults().forEach(result -> manager.getDirectReports().add(result.getEmployeeId()));
+        String managerId = webTestClient.post().uri("/employee").bodyValue(manager)
+                .exchange().expectStatus().isOk().expectBody(Employee.class).returnResult().getResponseBody().getEmployeeId();
+
+        String eTag = webTestClient.get().uri("/employee/{id}", managerId)
+                .exchange().expectStatus().isOk().expectHeader().cacheControl(CacheControl.noCache())
+                .returnResult(Employee.class).getResponseHeaders().getETag();
+        webTestClient.get().uri("/employee/{id}", managerId).header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange().expectStatus().isNotModified().expectBody().isEmpty();
+
+        //a large tree is gzipped and its tag tells it apart from the plain one, read with a plain client since the test
+        //client would take the compression off
+        HttpResponse<byte[]> gzipped = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/reporting/" + managerId))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        String gzipTag = gzipped.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertTrue(gzipTag.endsWith("-gzip\""));
+        try (GZIPInputStream gunzipped = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+            ReportingStructure test = objectMapper.readValue(gunzipped, ReportingStructure.class);
+            assertEquals(Integer.valueOf(100), test.getNumberOfReports());
+        }
+
+        webTestClient.get().uri("/reporting/{id}", managerId).header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzipTag)
+                .exchange().expectStatus().isNotModified().expectHeader().valueEquals(HttpHeaders.ETAG, gzipTag);
+    }
+
+    @Test
+    public void testManagersThroughRoutes() {
+        //Josh reports to Joe, who reports to Ringo
+        List<Employee> managers = webTestClient.get().uri("/employee/{id}/managers", "4f324fc8-1dd9-4b6c-a92c-e239769c766d")
+                .exchange().expectStatus().isOk().expectBodyList(Employee.class).returnResult().getResponseBody();
+
+        assertEquals(List.of("Joe", "Ringo", "John"), managers.stream().map(Employee::getFirstName).toList());
+
+        webTestClient.get().uri("/employee/{id}/managers", SEED_MANAGER_ID)
+                .exchange().expectStatus().isOk().expectBodyList(Employee.class).hasSize(0);
+    }
+
+    @Test
+    public void testManagersEmployeeNotFound() {
+        Mockito.when(mockOrgGraphIndex.managerIds("1")).thenReturn(null);
+
+        StepVerifier.create(testEmployeeService.managers("1"))
+                .expectErrorMessage("Invalid employeeId: 1")
+                .verify();
+    }
+
+    @Test
+    public void testSearchThroughRoutes() {
+        //the seed data is all in Engineering, in last name order B, Best, C, Harrison, Lennon, McCartney, Starr
+        EmployeePage first = webTestClient.get().uri("/employees?department=Engineering&limit=2")
+                .exchange().expectStatus().isOk().expectBody(EmployeePage.class).returnResult().getResponseBody();
+        assertEquals(List.of("B", "Best"), first.getEmployees().stream().map(Employee::getLastName).toList());
+        assertNotNull(first.getNext());
+
+        EmployeePage second = webTestClient.get().uri("/employees?department=Engineering&limit=2&after={after}", first.getNext())
+                .exchange().expectStatus().isOk().expectBody(EmployeePage.class).returnResult().getResponseBody();
+        assertEquals(List.of("C", "Harrison"), second.getEmployees().stream().map(Employee::getLastName).toList());
+
+        EmployeePage prefixed = webTestClient.get().uri("/employees?q=M")
+                .exchange().expectStatus().isOk().expectBody(EmployeePage.class).returnResult().getResponseBody();
+        assertEquals(List.of("McCartney"), prefixed.getEmployees().stream().map(Employee::getLastName).toList());
+    }
+
+    @Test
+    public void testBatchThroughRoutes() {
+        BatchResult result = webTestClient.post().uri("/compensation:batch")
+                .bodyValue(List.of(Map.of("employeeCompensationId", SEED_MANAGER_ID, "salary", "100000", "effectiveDate", "2025-01-01"),
+                        Map.of("employeeCompensationId", "missing", "salary", "1", "effectiveDate", "2025-01-01")))
+                .exchange().expectStatus().isOk().expectBody(BatchResult.class).returnResult().getResponseBody();
+
+        assertEquals(Integer.valueOf(1), result.getSucceeded());
+        assertEquals(Integer.valueOf(1), result.getFailed());
+        assertEquals("Invalid employeeId: missing", result.getResults().get(1).getError());
+    }
+
+    @Test
+    public void testExportThroughRoutes() {
+        String export = webTestClient.get().uri("/employees/export")
+                .exchange().expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        //one employee per line, the seed data alone is more than one line
+        assertTrue(export.split("\n").length > 1);
+        assertTrue(export.startsWith("{") && export.endsWith("}\n"));
+        assertTrue(export.contains(SEED_MANAGER_ID));
+    }
+
+    @Test
+    public void testReadEmployeeNotFound() {
+        Mockito.when(mockEmployeeRepository.findByEmployeeId(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(testEmployeeService.read("1"))
+                .expectErrorMessage("Invalid employeeId: 1")
+                .verify();
+    }
+
+    @Test
+    public void testReportsWithDepthAndFieldsThroughRoutes() {
+        ReportingStructure test = webTestClient.get().uri("/reporting/{id}?depth=1&fields=firstName,position", SEED_MANAGER_ID)
+                .exchange().expectStatus().isOk().expectBody(ReportingStructure.class).returnResult().getResponseBody();
+
+        assertEquals(Integer.valueOf(6), test.getNumberOfReports());
+        assertEquals("Paul", test.getEmployee().getDirectReports().get(0).getFirstName());
+        assertEquals(null, test.getEmployee().getDirectReports().get(0).getLastName());
+        assertEquals(null, test.getEmployee().getDirectReports().get(1).getDirectReports().get(0).getFirstName());
+    }
+
+    @Test
+    public void testReportsSkipsCyclesAndDuplicates() {
+        //root reports to itself and lists the same direct report twice, the direct report lists root again as its own report
+        Employee root = createTestEmployee("root", "report", "report", "root");
+        Employee report = createTestEmployee("report", "root", "leaf");
+        Employee leaf = createTestEmployee("leaf");
+
+        Mockito.when(mockEmployeeRepository.findByEmployeeId("root")).thenReturn(Mono.just(root));
+        Mockito.when(mockEmployeeRepository.findByEmployeeIdIn(any())).thenAnswer(invocation -> {
+            List<Employee> fetched = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                fetched.add("report".equals(id) ? report : leaf);
+            }
+            return Flux.fromIterable(fetched);
+        });
+
+        ReportingStructure test = testEmployeeService.reports("root").block();
+
+        assertEquals(Integer.valueOf(2), test.getNumberOfReports());
+        assertEquals("leaf", test.getEmployee().getDirectReports().get(0).getDirectReports().get(1).getEmployeeId());
+        Mockito.verify(mockEmployeeRepository, Mockito.times(2)).findByEmployeeIdIn(any());
+    }
+
+    @Test
+    public void testReportsFansOutWithBoundedConcurrency() {
+        //a single level wide enough to be split over several queries
+        String[] reportIds = new String[1000];
+        for (int i = 0; i < reportIds.length; i++) {
+            reportIds[i] = "report-" + i;
+        }
+        Employee root = createTestEmployee("root", reportIds);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Mockito.when(mockEmployeeRepository.findByEmployeeId("root")).thenReturn(Mono.just(root));
+        Mockito.when(mockEmployeeRepository.findByEmployeeIdIn(any())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            return Flux.fromIterable(ids)
+                    .map(id -> createTestEmployee((String) id))
+                    .delaySubscription(Duration.ofMillis(20))
+                    .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .doOnTerminate(inFlight::decrementAndGet);
+        });
+
+        ReportingStructure test = testEmployeeService.reports("root").block();
+
+        assertEquals(Integer.valueOf(1000), test.getNumberOfReports());
+        Mockito.verify(mockEmployeeRepository, Mockito.times(4)).findByEmployeeIdIn(any());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    public void testReportsUsesOrgGraphIndex() {
+        Employee root = createTestEmployee("root", "report");
+        Employee report = createTestEmployee("report", "leaf");
+        Employee leaf = createTestEmployee("leaf");
+
+        Mockito.when(mockEmployeeRepository.findByEmployeeId("root")).thenReturn(Mono.just(root));
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenReturn(2);
+        Mockito.when(mockOrgGraphIndex.reportIds("root", Integer.MAX_VALUE)).thenReturn(List.of("report", "leaf"));
+        Mockito.when(mockEmployeeRepository.findByEmployeeIdIn(any())).thenReturn(Flux.just(report, leaf));
+
+        ReportingStructure test = testEmployeeService.reports("root").block();
+
+        assertEquals(Integer.valueOf(2), test.getNumberOfReports());
+        assertEquals("leaf", test.getEmployee().getDirectReports().get(0).getDirectReports().get(0).getEmployeeId());
+        Mockito.verify(mockEmployeeRepository, Mockito.times(1)).findByEmployeeIdIn(any());
+    }
+
+    @Test
+    public void testReportsRecordsMetrics() {
+        Employee root = createTestEmployee("root", "report");
+        Employee report = createTestEmployee("report", "leaf");
+        Employee leaf = createTestEmployee("leaf");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(registry));
+
+        Mockito.when(mockEmployeeRepository.findByEmployeeId("root")).thenReturn(Mono.just(root));
+        Map<String, Employee> employees = Map.of("report", report, "leaf", leaf);
+        Mockito.when(mockEmployeeRepository.findByEmployeeIdIn(any())).thenAnswer(invocation -> Flux.fromIterable(
+                invocation.<Collection<String>>getArgument(0)).map(employees::get));
+
+        //resolved level by level, one query for the root and one per level
+        testEmployeeService.reports("root").block();
+        assertEquals(3, registry.summary("employee.reports.queries").max(), 0);
+        assertEquals(2, registry.summary("employee.reports.tree.size").max(), 0);
+        assertEquals(2, registry.summary("employee.reports.tree.depth").max(), 0);
+
+        //indexed, the root and one batch
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenReturn(2);
+        Mockito.when(mockOrgGraphIndex.reportIds("root", 1)).thenReturn(List.of("report"));
+        testEmployeeService.reports("root", 1, null, false, "0").block();
+        assertEquals(3 + 2, registry.summary("employee.reports.queries").totalAmount(), 0);
+        assertEquals(2 + 1, registry.summary("employee.reports.tree.size").totalAmount(), 0);
+        assertEquals(2 + 1, registry.summary("employee.reports.tree.depth").totalAmount(), 0);
+
+        //the index answers a count on its own, without a query or a tree
+        testEmployeeService.reports("root", null, null, true, "0").block();
+        assertEquals(3, registry.summary("employee.reports.queries").count());
+        assertEquals(3 + 2, registry.summary("employee.reports.queries").totalAmount(), 0);
+        assertEquals(2, registry.summary("employee.reports.tree.size").count());
+    }
+
+    @Test
+    public void testConcurrentReportsSubscribeToOneFetch() {
+        Employee root = createTestEmployee("root", "report");
+        Employee report = createTestEmployee("report");
+
+        AtomicInteger queries = new AtomicInteger();
+        Sinks.One<Employee> rootFetched = Sinks.one();
+        Mockito.when(mockEmployeeRepository.findByEmployeeId("root"))
+                .thenReturn(rootFetched.asMono().doOnSubscribe(subscription -> queries.incrementAndGet()));
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenReturn(1);
+        Mockito.when(mockOrgGraphIndex.reportIds("root", Integer.MAX_VALUE)).thenReturn(List.of("report"));
+        Mockito.when(mockEmployeeRepository.findByEmployeeIdIn(any()))
+                .thenReturn(Flux.just(report).doOnSubscribe(subscription -> queries.incrementAndGet()));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(testEmployeeService, "reportMetrics", new ReportMetrics(registry));
+
+        //every subscriber arrives while the first one is still waiting for the root
+        List<ReportingStructure> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            testEmployeeService.reports("root").subscribe(results::add);
+        }
+        //the index is read on a worker thread first, so the subscribers reach the flight a little later
+        await(() -> registry.counter("employee.reports.coalesced").count() == 999);
+        rootFetched.tryEmitValue(root);
+
+        await(() -> results.size() == 1000);
+        assertEquals(2, queries.get());
+        for (ReportingStructure result : results) {
+            assertSame(results.get(0), result);
+        }
+    }
+
+    @Test
+    public void testIndexAndLogAreCalledOffTheSubscribingThread() {
+        Employee root = createTestEmployee("root");
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        Mockito.when(mockEmployeeRepository.findByEmployeeId("root")).thenReturn(Mono.just(root));
+        Mockito.when(mockEmployeeRepository.upsert(any())).thenReturn(Mono.just(root));
+        Mockito.when(mockOrgGraphIndex.numberOfReports("root")).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return 0;
+        });
+        Mockito.when(mockOrgGraphIndex.reportIds("root", Integer.MAX_VALUE)).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        });
+        Mockito.when(mockOrgGraphIndex.managerIds("root")).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        });
+        Mockito.when(mockOrgGraphIndex.subtreeVersion("root")).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return "0.0";
+        });
+        Mockito.when(mockChangeEventLog.employeeUpdated(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return null;
+        });
+        Mockito.when(mockEmployeeRepository.findByEmployeeIdIn(any())).thenReturn(Flux.empty());
+
+        testEmployeeService.reports("root").block();
+        testEmployeeService.managers("root").collectList().block();
+        testEmployeeService.update(root).block();
+
+        assertEquals(5, Mockito.mockingDetails(mockOrgGraphIndex).getInvocations().size()
+                + Mockito.mockingDetails(mockChangeEventLog).getInvocations().stream()
+                        .filter(invocation -> invocation.getMethod().getName().equals("employeeUpdated")).count());
+        assertTrue(threads.toString(), threads.stream().allMatch(thread -> thread.startsWith("boundedElastic")));
+    }
+
+    @Test
+    public void testReadCompensationDataNotFound() {
+        Mockito.when(mockEmployeeRepository.findByEmployeeId(any())).thenReturn(Mono.just(new Employee()));
+        Mockito.when(mockCompensationRepository.findAsOf(any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(testEmployeeService.readCompensation("1"))
+                .expectErrorMessage("No compensation data found for employeeId: 1")
+                .verify();
+    }
+
+    @Test
+    public void testInvalidAsOfThroughRoutes() {
+        webTestClient.get().uri("/compensation/{id}?asOf=yesterday", SEED_MANAGER_ID)
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testInvalidNumbersThroughRoutes() {
+        webTestClient.get().uri("/reporting/{id}?depth=deep", SEED_MANAGER_ID).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/reporting/{id}?depth=-1", SEED_MANAGER_ID).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/reporting/{id}?fields=salary", SEED_MANAGER_ID).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/employees?department=Engineering&limit=many").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/events?since=then").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/events?limit=many").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/events?limit=0").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/events?since={since}", Long.MAX_VALUE).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/employees?department=Engineering&after=!").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/employees?department=Engineering&limit=0").exchange().expectStatus().isBadRequest();
+    }
+
+    //waits for something another thread does, failing the test if it never happens
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
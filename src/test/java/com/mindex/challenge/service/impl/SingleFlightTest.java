@@ -0,0 +1,99 @@
+package com.mindex.challenge.service.impl;
+
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private final AtomicInteger shared = new AtomicInteger();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>(shared::incrementAndGet);
+
+    @Test
+    public void testJoinedCallsShareTheException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        RuntimeException failure = new RuntimeException("Invalid employeeId: root");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> singleFlight.call("root", "0.1", () -> {
+                calls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw failure;
+            })));
+        }
+        while (shared.get() < 3) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        //every caller sees the exception itself, not wrapped, as the caller that ran it did
+        for (Future<?> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Expected the call to fail");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        executor.shutdown();
+        assertEquals(1, calls.get());
+
+        //the failure is not kept, the next call runs again
+        assertEquals("john", singleFlight.call("root", "0.1", () -> "john"));
+    }
+
+    @Test
+    public void testCancelledSubscriberLeavesFlightRunning() {
+        Sinks.One<String> fetched = Sinks.one();
+
+        Disposable first = singleFlight.mono("root", "0.1", fetched::asMono).subscribe();
+        List<String> results = new ArrayList<>();
+        singleFlight.mono("root", "0.1", () -> Mono.just("unused")).subscribe(results::add);
+        first.dispose();
+        fetched.tryEmitValue("john");
+
+        assertEquals(List.of("john"), results);
+        assertEquals(1, shared.get());
+    }
+
+    @Test
+    public void testNewerVersionTakesOverTheKey() {
+        Sinks.One<String> older = Sinks.one();
+        Sinks.One<String> newer = Sinks.one();
+        List<String> results = new ArrayList<>();
+
+        singleFlight.mono("root", "0.1", older::asMono).subscribe(results::add);
+        //read after a write to the tree, so it cannot be answered with the flight from before it
+        singleFlight.mono("root", "0.2", newer::asMono).subscribe(results::add);
+        //everyone after it joins the newer flight
+        singleFlight.mono("root", "0.2", () -> Mono.just("unused")).subscribe(results::add);
+
+        newer.tryEmitValue("jane");
+        older.tryEmitValue("john");
+
+        assertEquals(List.of("jane", "jane", "john"), results);
+        assertEquals(1, shared.get());
+    }
+}